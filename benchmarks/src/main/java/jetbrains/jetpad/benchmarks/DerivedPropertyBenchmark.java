@@ -0,0 +1,178 @@
+/*
+ * Copyright 2012-2017 JetBrains s.r.o
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jetbrains.jetpad.benchmarks;
+
+import jetbrains.jetpad.model.event.EventHandler;
+import jetbrains.jetpad.model.property.DerivedProperty;
+import jetbrains.jetpad.model.property.LazyDerivedProperty;
+import jetbrains.jetpad.model.property.Properties;
+import jetbrains.jetpad.model.property.PropertyChangeEvent;
+import jetbrains.jetpad.model.property.ReadableProperty;
+import jetbrains.jetpad.model.property.ValueProperty;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Propagation of changes through chains and diamonds of {@link DerivedProperty}
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DerivedPropertyBenchmark {
+  @Param({"1", "10", "100"})
+  public int depth;
+
+  private ValueProperty<Integer> myObservedSource;
+  private ReadableProperty<Integer> myObservedChain;
+
+  private ValueProperty<Integer> myUnobservedSource;
+  private ReadableProperty<Integer> myUnobservedChain;
+
+  private ValueProperty<Integer> myLazySource;
+  private ReadableProperty<Integer> myLazyChain;
+
+  private ValueProperty<Integer> myDiamondSource;
+  private ReadableProperty<Integer> myDiamond;
+
+  private int myValue;
+  private int myEventsCount;
+
+  private final Runnable myDiamondUpdate = new Runnable() {
+    @Override
+    public void run() {
+      myDiamondSource.set(myValue++);
+    }
+  };
+
+  @Setup
+  public void setup() {
+    EventHandler<PropertyChangeEvent<Integer>> counter = new EventHandler<PropertyChangeEvent<Integer>>() {
+      @Override
+      public void onEvent(PropertyChangeEvent<Integer> event) {
+        myEventsCount++;
+      }
+    };
+
+    myObservedSource = new ValueProperty<>(0);
+    myObservedChain = chain(myObservedSource, depth);
+    myObservedChain.addHandler(counter);
+
+    myUnobservedSource = new ValueProperty<>(0);
+    myUnobservedChain = chain(myUnobservedSource, depth);
+
+    myLazySource = new ValueProperty<>(0);
+    ReadableProperty<Integer> lazyChain = myLazySource;
+    for (int i = 0; i < depth; i++) {
+      lazyChain = lazyIncrement(lazyChain);
+    }
+    myLazyChain = lazyChain;
+
+    myDiamondSource = new ValueProperty<>(0);
+    ReadableProperty<Integer> left = chain(myDiamondSource, depth);
+    ReadableProperty<Integer> right = chain(myDiamondSource, depth);
+    myDiamond = sum(left, right);
+    myDiamond.addHandler(counter);
+  }
+
+  @Benchmark
+  public int observedChainSet() {
+    myObservedSource.set(myValue++);
+    return myEventsCount;
+  }
+
+  @Benchmark
+  public int unobservedChainSetAndGet() {
+    myUnobservedSource.set(myValue++);
+    return myUnobservedChain.get();
+  }
+
+  @Benchmark
+  public int unobservedChainGet() {
+    return myUnobservedChain.get();
+  }
+
+  @Benchmark
+  public int lazyUnobservedChainSetAndGet() {
+    myLazySource.set(myValue++);
+    return myLazyChain.get();
+  }
+
+  @Benchmark
+  public int lazyUnobservedChainGet() {
+    return myLazyChain.get();
+  }
+
+  @Benchmark
+  public int diamondSet() {
+    myDiamondSource.set(myValue++);
+    return myEventsCount;
+  }
+
+  @Benchmark
+  public int diamondBatchSet() {
+    Properties.batch(myDiamondUpdate);
+    return myEventsCount;
+  }
+
+  private static ReadableProperty<Integer> chain(ReadableProperty<Integer> source, int depth) {
+    ReadableProperty<Integer> result = source;
+    for (int i = 0; i < depth; i++) {
+      result = increment(result);
+    }
+    return result;
+  }
+
+  private static ReadableProperty<Integer> increment(final ReadableProperty<Integer> prop) {
+    return new DerivedProperty<Integer>(prop) {
+      @Override
+      protected Integer doGet() {
+        return prop.get() + 1;
+      }
+    };
+  }
+
+  private static ReadableProperty<Integer> lazyIncrement(final ReadableProperty<Integer> prop) {
+    return new LazyDerivedProperty<Integer>(prop) {
+      @Override
+      protected Integer doGet() {
+        return prop.get() + 1;
+      }
+    };
+  }
+
+  private static ReadableProperty<Integer> sum(final ReadableProperty<Integer> p1, final ReadableProperty<Integer> p2) {
+    return new DerivedProperty<Integer>(p1, p2) {
+      @Override
+      protected Integer doGet() {
+        return p1.get() + p2.get();
+      }
+    };
+  }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2012-2017 JetBrains s.r.o
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jetbrains.jetpad.benchmarks;
+
+import jetbrains.jetpad.base.Registration;
+import jetbrains.jetpad.model.event.EventHandler;
+import jetbrains.jetpad.model.event.ListenerCaller;
+import jetbrains.jetpad.model.event.ListenerDispatcher;
+import jetbrains.jetpad.model.event.Listeners;
+import jetbrains.jetpad.model.property.ValueProperty;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Dispatch cost of {@link Listeners#fire} and of the property setter built on top of it
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ListenersBenchmark {
+  private static final ListenerDispatcher<EventHandler<Object>, Object> DISPATCHER =
+      new ListenerDispatcher<EventHandler<Object>, Object>() {
+        @Override
+        public void dispatch(EventHandler<Object> l, Object event) {
+          l.onEvent(event);
+        }
+      };
+
+  @Param({"0", "1", "10"})
+  public int listenersCount;
+
+  private Listeners<EventHandler<Object>> myListeners;
+  private ValueProperty<Integer> myProperty;
+  private ValueProperty<Integer> myReusingProperty;
+  private EventHandler<Object> myExtraHandler;
+  private int myValue;
+  private int myEventsCount;
+
+  @Setup
+  public void setup() {
+    myListeners = new Listeners<>();
+    myProperty = new ValueProperty<>(0);
+    myReusingProperty = new ValueProperty<>(0);
+    myReusingProperty.setReuseEvents(true);
+
+    EventHandler<Object> counter = new EventHandler<Object>() {
+      @Override
+      public void onEvent(Object event) {
+        myEventsCount++;
+      }
+    };
+    for (int i = 0; i < listenersCount; i++) {
+      myListeners.add(counter);
+      myProperty.addHandler(counter);
+      myReusingProperty.addHandler(counter);
+    }
+    myExtraHandler = counter;
+  }
+
+  @Benchmark
+  public int fire() {
+    final Object event = myValue++;
+    myListeners.fire(new ListenerCaller<EventHandler<Object>>() {
+      @Override
+      public void call(EventHandler<Object> l) {
+        l.onEvent(event);
+      }
+    });
+    return myEventsCount;
+  }
+
+  @Benchmark
+  public int fireDispatcher() {
+    myListeners.fire(myValue++, DISPATCHER);
+    return myEventsCount;
+  }
+
+  @Benchmark
+  public int valuePropertySet() {
+    myProperty.set(myValue++);
+    return myEventsCount;
+  }
+
+  @Benchmark
+  public int valuePropertySetReusedEvent() {
+    myReusingProperty.set(myValue++);
+    return myEventsCount;
+  }
+
+  @Benchmark
+  public void addRemove() {
+    Registration reg = myListeners.add(myExtraHandler);
+    reg.remove();
+  }
+
+  @Benchmark
+  public void addRemoveDuringFire() {
+    myListeners.fire(new ListenerCaller<EventHandler<Object>>() {
+      @Override
+      public void call(EventHandler<Object> l) {
+        myListeners.add(myExtraHandler).remove();
+      }
+    });
+  }
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright 2012-2017 JetBrains s.r.o
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jetbrains.jetpad.benchmarks;
+
+import jetbrains.jetpad.mapper.Mapper;
+import jetbrains.jetpad.mapper.MapperFactory;
+import jetbrains.jetpad.mapper.Synchronizers;
+import jetbrains.jetpad.model.collections.list.ObservableArrayList;
+import jetbrains.jetpad.model.collections.list.ObservableList;
+import jetbrains.jetpad.model.property.ValueProperty;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link Mapper#attachRoot()} and {@link Mapper#detachRoot()} on trees of mappers with a fan-out of 10
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class MapperBenchmark {
+  private static final int FAN_OUT = 10;
+
+  @Benchmark
+  public Mapper<?, ?> attachRoot(AttachState state) {
+    state.mapper.attachRoot();
+    return state.mapper;
+  }
+
+  @Benchmark
+  public Mapper<?, ?> detachRoot(DetachState state) {
+    state.mapper.detachRoot();
+    return state.mapper;
+  }
+
+  @State(Scope.Benchmark)
+  public static class TreeState {
+    @Param({"1000", "100000", "1000000"})
+    public int size;
+
+    Node root;
+
+    @Setup(Level.Trial)
+    public void setup() {
+      root = new Node();
+      int count = 1;
+      Deque<Node> queue = new ArrayDeque<>();
+      queue.add(root);
+      while (count < size) {
+        Node parent = queue.poll();
+        for (int i = 0; i < FAN_OUT && count < size; i++, count++) {
+          Node child = new Node();
+          child.name.set("node" + count);
+          parent.children.add(child);
+          queue.add(child);
+        }
+      }
+    }
+  }
+
+  @State(Scope.Thread)
+  public static class AttachState {
+    NodeMapper mapper;
+
+    @Setup(Level.Invocation)
+    public void setup(TreeState tree) {
+      mapper = new NodeMapper(tree.root);
+    }
+
+    @TearDown(Level.Invocation)
+    public void tearDown() {
+      mapper.detachRoot();
+    }
+  }
+
+  @State(Scope.Thread)
+  public static class DetachState {
+    NodeMapper mapper;
+
+    @Setup(Level.Invocation)
+    public void setup(TreeState tree) {
+      mapper = new NodeMapper(tree.root);
+      mapper.attachRoot();
+    }
+  }
+
+  static class Node {
+    final ValueProperty<String> name = new ValueProperty<>();
+    final ObservableList<Node> children = new ObservableArrayList<>();
+  }
+
+  static class NodeView {
+    final ValueProperty<String> text = new ValueProperty<>();
+    final List<NodeView> children = new ArrayList<>();
+  }
+
+  static class NodeMapper extends Mapper<Node, NodeView> {
+    private static final MapperFactory<Node, NodeView> FACTORY = new MapperFactory<Node, NodeView>() {
+      @Override
+      public Mapper<? extends Node, ? extends NodeView> createMapper(Node source) {
+        return new NodeMapper(source);
+      }
+    };
+
+    NodeMapper(Node source) {
+      super(source, new NodeView());
+    }
+
+    @Override
+    protected void registerSynchronizers(SynchronizersConfiguration conf) {
+      conf.add(Synchronizers.forPropsOneWay(getSource().name, getTarget().text));
+      conf.add(Synchronizers.forObservableRole(this, getSource().children, getTarget().children, FACTORY));
+    }
+  }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2012-2017 JetBrains s.r.o
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jetbrains.jetpad.benchmarks;
+
+import jetbrains.jetpad.model.collections.CollectionItemEvent;
+import jetbrains.jetpad.model.collections.CollectionListener;
+import jetbrains.jetpad.model.collections.list.ObservableArrayList;
+import jetbrains.jetpad.model.collections.list.ObservableList;
+import jetbrains.jetpad.model.collections.list.ObservableTreeList;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mutation and read costs of {@link ObservableArrayList} and {@link ObservableTreeList} with attached listeners
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ObservableListBenchmark {
+  @Param({"array", "tree"})
+  public String listType;
+
+  @Param({"1000", "100000"})
+  public int size;
+
+  @Param({"0", "1", "10"})
+  public int listenersCount;
+
+  private ObservableList<Integer> myList;
+  private int myEventsCount;
+  private int myIndex;
+
+  @Setup
+  public void setup() {
+    myList = createList(listType);
+    for (int i = 0; i < size; i++) {
+      myList.add(i);
+    }
+
+    CollectionListener<Integer> counter = new CollectionListener<Integer>() {
+      @Override
+      public void onItemAdded(CollectionItemEvent<? extends Integer> event) {
+        myEventsCount++;
+      }
+
+      @Override
+      public void onItemSet(CollectionItemEvent<? extends Integer> event) {
+        myEventsCount++;
+      }
+
+      @Override
+      public void onItemRemoved(CollectionItemEvent<? extends Integer> event) {
+        myEventsCount++;
+      }
+    };
+    for (int i = 0; i < listenersCount; i++) {
+      myList.addListener(counter);
+    }
+  }
+
+  @Benchmark
+  public int addRemoveLast() {
+    myList.add(size);
+    myList.remove(size);
+    return myEventsCount;
+  }
+
+  @Benchmark
+  public int addRemoveMiddle() {
+    int index = size / 2;
+    myList.add(index, -1);
+    myList.remove(index);
+    return myEventsCount;
+  }
+
+  @Benchmark
+  public int addRemoveFirst() {
+    myList.add(0, -1);
+    myList.remove(0);
+    return myEventsCount;
+  }
+
+  @Benchmark
+  public int addAllClearRange() {
+    int index = size / 2;
+    myList.addAll(index, myList.subList(0, 100));
+    myList.subList(index, index + 100).clear();
+    return myEventsCount;
+  }
+
+  @Benchmark
+  public int set() {
+    myIndex = (myIndex + 7919) % size;
+    myList.set(myIndex, myIndex);
+    return myEventsCount;
+  }
+
+  @Benchmark
+  public int get() {
+    myIndex = (myIndex + 7919) % size;
+    return myList.get(myIndex);
+  }
+
+  @Benchmark
+  public long iterate() {
+    long sum = 0;
+    for (Integer i : myList) {
+      sum += i;
+    }
+    return sum;
+  }
+
+  static <ItemT> ObservableList<ItemT> createList(String type) {
+    if ("array".equals(type)) {
+      return new ObservableArrayList<>();
+    } else if ("tree".equals(type)) {
+      return new ObservableTreeList<>();
+    } else {
+      throw new IllegalArgumentException("Unknown list type: " + type);
+    }
+  }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2012-2017 JetBrains s.r.o
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jetbrains.jetpad.benchmarks;
+
+import jetbrains.jetpad.model.collections.set.ObservableHashSet;
+import jetbrains.jetpad.model.collections.set.ObservableIdentityHashSet;
+import jetbrains.jetpad.model.collections.set.ObservableLinkedHashSet;
+import jetbrains.jetpad.model.collections.set.ObservableSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Add, remove and lookup costs of the {@link ObservableHashSet} variants
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ObservableSetBenchmark {
+  @Param({"hash", "identity", "linked"})
+  public String setType;
+
+  @Param({"4", "1000", "100000"})
+  public int size;
+
+  private ObservableSet<Object> mySet;
+  private Object[] myItems;
+  private Object myExtraItem;
+  private int myIndex;
+
+  @Setup
+  public void setup() {
+    mySet = createSet(setType);
+    myItems = new Object[size];
+    for (int i = 0; i < size; i++) {
+      myItems[i] = new Object();
+      mySet.add(myItems[i]);
+    }
+    myExtraItem = new Object();
+  }
+
+  @Benchmark
+  public boolean addRemove() {
+    mySet.add(myExtraItem);
+    return mySet.remove(myExtraItem);
+  }
+
+  @Benchmark
+  public boolean contains() {
+    myIndex = (myIndex + 7919) % size;
+    return mySet.contains(myItems[myIndex]);
+  }
+
+  @Benchmark
+  public int iterate() {
+    int count = 0;
+    for (Object item : mySet) {
+      if (item != null) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  private static <ItemT> ObservableSet<ItemT> createSet(String type) {
+    if ("hash".equals(type)) {
+      return new ObservableHashSet<>();
+    } else if ("identity".equals(type)) {
+      return new ObservableIdentityHashSet<>();
+    } else if ("linked".equals(type)) {
+      return new ObservableLinkedHashSet<>();
+    } else {
+      throw new IllegalArgumentException("Unknown set type: " + type);
+    }
+  }
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright 2012-2017 JetBrains s.r.o
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jetbrains.jetpad.benchmarks;
+
+import jetbrains.jetpad.base.function.Function;
+import jetbrains.jetpad.model.collections.list.ObservableArrayList;
+import jetbrains.jetpad.model.collections.list.ObservableList;
+import jetbrains.jetpad.model.property.ReadableProperty;
+import jetbrains.jetpad.model.property.ValueProperty;
+import jetbrains.jetpad.model.transform.Transformation;
+import jetbrains.jetpad.model.transform.Transformers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Incremental maintenance costs of the {@link Transformers#sortBy}, {@link Transformers#listFilter}
+ * and {@link Transformers#flattenList} pipelines
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TransformersBenchmark {
+  private static final int GROUP_SIZE = 10;
+
+  private static final Function<Item, ReadableProperty<Integer>> KEY = new Function<Item, ReadableProperty<Integer>>() {
+    @Override
+    public ReadableProperty<Integer> apply(Item item) {
+      return item.key;
+    }
+  };
+
+  private static final Function<Item, ReadableProperty<Boolean>> VISIBLE =
+      new Function<Item, ReadableProperty<Boolean>>() {
+        @Override
+        public ReadableProperty<Boolean> apply(Item item) {
+          return item.visible;
+        }
+      };
+
+  @Param({"1000", "10000", "100000"})
+  public int size;
+
+  private ObservableList<Item> mySource;
+  private ObservableList<ObservableList<? extends Item>> myGroups;
+
+  private Transformation<ObservableList<Item>, ObservableList<Item>> mySorted;
+  private Transformation<ObservableList<Item>, ObservableList<Item>> myFiltered;
+  private Transformation<ObservableList<ObservableList<? extends Item>>, ObservableList<Item>> myFlattened;
+
+  private int[] myIndices;
+  private int myStep;
+
+  @Setup
+  public void setup() {
+    Random random = new Random(42);
+
+    mySource = new ObservableArrayList<>();
+    myGroups = new ObservableArrayList<>();
+    ObservableList<Item> group = null;
+    for (int i = 0; i < size; i++) {
+      Item item = new Item(random.nextInt(size), random.nextBoolean());
+      mySource.add(item);
+
+      if (i % GROUP_SIZE == 0) {
+        group = new ObservableArrayList<>();
+        myGroups.add(group);
+      }
+      group.add(item);
+    }
+
+    myIndices = new int[1024];
+    for (int i = 0; i < myIndices.length; i++) {
+      myIndices[i] = random.nextInt(size);
+    }
+
+    mySorted = Transformers.<Item, Item, Integer, ObservableList<Item>>sortBy(KEY).transform(mySource);
+    myFiltered = Transformers.<Item, ObservableList<Item>>listFilter(VISIBLE).transform(mySource);
+    myFlattened = Transformers.<Item>flattenList().transform(myGroups);
+  }
+
+  @TearDown
+  public void tearDown() {
+    mySorted.dispose();
+    myFiltered.dispose();
+    myFlattened.dispose();
+  }
+
+  @Benchmark
+  public int sortByKeyChange() {
+    Item item = mySource.get(nextIndex());
+    item.key.set(item.key.get() + nextIndex() - size / 2);
+    return mySorted.getTarget().size();
+  }
+
+  @Benchmark
+  public int sortByAddRemove() {
+    int index = nextIndex();
+    mySource.add(index, new Item(nextIndex(), true));
+    mySource.remove(index);
+    return mySorted.getTarget().size();
+  }
+
+  @Benchmark
+  public int listFilterToggle() {
+    Item item = mySource.get(nextIndex());
+    item.visible.set(!item.visible.get());
+    return myFiltered.getTarget().size();
+  }
+
+  @Benchmark
+  public int flattenListAddRemove() {
+    ObservableList<? extends Item> group = myGroups.get(nextIndex() / GROUP_SIZE);
+    @SuppressWarnings("unchecked")
+    ObservableList<Item> items = (ObservableList<Item>) group;
+    items.add(0, new Item(0, true));
+    items.remove(0);
+    return myFlattened.getTarget().size();
+  }
+
+  @Benchmark
+  public int sortByBuild() {
+    Transformation<ObservableList<Item>, ObservableList<Item>> transformation =
+        Transformers.<Item, Item, Integer, ObservableList<Item>>sortBy(KEY).transform(mySource);
+    int result = transformation.getTarget().size();
+    transformation.dispose();
+    return result;
+  }
+
+  private int nextIndex() {
+    myStep = (myStep + 1) & (myIndices.length - 1);
+    return myIndices[myStep];
+  }
+
+  private static class Item {
+    final ValueProperty<Integer> key;
+    final ValueProperty<Boolean> visible;
+
+    Item(int key, boolean visible) {
+      this.key = new ValueProperty<>(key);
+      this.visible = new ValueProperty<>(visible);
+    }
+  }
+}
@@ -19,7 +19,7 @@ import com.google.common.collect.Iterators;
 import jetbrains.jetpad.base.ThrowableHandlers;
 import jetbrains.jetpad.model.collections.list.ObservableArrayList;
 import jetbrains.jetpad.model.collections.list.ObservableList;
-import jetbrains.jetpad.model.collections.set.ObservableHashSet;
+import jetbrains.jetpad.model.collections.set.ObservableIdentityHashSet;
 import jetbrains.jetpad.model.collections.set.ObservableSet;
 import jetbrains.jetpad.model.property.Property;
 import jetbrains.jetpad.model.property.ValueProperty;
@@ -449,7 +449,7 @@ public abstract class Mapper<SourceT, TargetT> {
   }
 
   private class ChildSet<MapperT extends Mapper<?, ?>>
-      extends ObservableHashSet<MapperT> implements ChildContainer<MapperT> {
+      extends ObservableIdentityHashSet<MapperT> implements ChildContainer<MapperT> {
     @Override
     protected void checkAdd(MapperT item) {
       checkCanAdd(item);
@@ -17,7 +17,7 @@ package jetbrains.jetpad.mapper;
 
 import jetbrains.jetpad.base.Registration;
 import jetbrains.jetpad.model.event.CompositeRegistration;
-import jetbrains.jetpad.model.event.ListenerCaller;
+import jetbrains.jetpad.model.event.ListenerDispatcher;
 import jetbrains.jetpad.model.event.Listeners;
 
 import java.util.Collections;
@@ -30,8 +30,24 @@ public final class MappingContext {
   public static final MappingContextProperty<CompositeRegistration> ON_DISPOSE =
     new MappingContextProperty<>("OnDispose");
 
+  private static final ListenerDispatcher<MappingContextListener, Mapper<?, ?>> REGISTERED =
+      new ListenerDispatcher<MappingContextListener, Mapper<?, ?>>() {
+        @Override
+        public void dispatch(MappingContextListener l, Mapper<?, ?> mapper) {
+          l.onMapperRegistered(mapper);
+        }
+      };
+
+  private static final ListenerDispatcher<MappingContextListener, Mapper<?, ?>> UNREGISTERED =
+      new ListenerDispatcher<MappingContextListener, Mapper<?, ?>>() {
+        @Override
+        public void dispatch(MappingContextListener l, Mapper<?, ?> mapper) {
+          l.onMapperUnregistered(mapper);
+        }
+      };
+
   private Map<Object, Object> myMappers = new HashMap<>();
-  private Listeners<MappingContextListener> myListeners = new Listeners<>();
+  private Listeners<MappingContextListener> myListeners = new Listeners<>(this);
 
   private Map<MappingContextProperty<?>, Object> myProperties = new HashMap<>();
 
@@ -39,7 +55,7 @@ public final class MappingContext {
     return myListeners.add(l);
   }
 
-  void register(final Mapper<?, ?> mapper) {
+  void register(Mapper<?, ?> mapper) {
     if (mapper.isFindable()) {
       Object source = mapper.getSource();
       if (!(myMappers.containsKey(source))) {
@@ -60,15 +76,10 @@ public final class MappingContext {
       }
     }
 
-    myListeners.fire(new ListenerCaller<MappingContextListener>() {
-      @Override
-      public void call(MappingContextListener l) {
-        l.onMapperRegistered(mapper);
-      }
-    });
+    myListeners.fire(mapper, REGISTERED);
   }
 
-  void unregister(final Mapper<?, ?> mapper) {
+  void unregister(Mapper<?, ?> mapper) {
     if (mapper.isFindable()) {
       Object source = mapper.getSource();
       if (!myMappers.containsKey(source)) {
@@ -90,12 +101,7 @@ public final class MappingContext {
       }
     }
 
-    myListeners.fire(new ListenerCaller<MappingContextListener>() {
-      @Override
-      public void call(MappingContextListener l) {
-        l.onMapperUnregistered(mapper);
-      }
-    });
+    myListeners.fire(mapper, UNREGISTERED);
   }
 
   public <S> Mapper<? super S, ?> getMapper(Mapper<?, ?> ancestor, S source) {
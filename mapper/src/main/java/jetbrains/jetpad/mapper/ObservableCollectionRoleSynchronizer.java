@@ -16,10 +16,12 @@
 package jetbrains.jetpad.mapper;
 
 import jetbrains.jetpad.base.Registration;
-import jetbrains.jetpad.model.collections.CollectionAdapter;
 import jetbrains.jetpad.model.collections.CollectionItemEvent;
+import jetbrains.jetpad.model.collections.list.ListRangeAdapter;
+import jetbrains.jetpad.model.collections.list.ListRangeEvent;
 import jetbrains.jetpad.model.collections.list.ObservableList;
 
+import java.util.ArrayList;
 import java.util.List;
 
 class ObservableCollectionRoleSynchronizer<
@@ -52,12 +54,13 @@ class ObservableCollectionRoleSynchronizer<
     }
 
     new MapperUpdater().update(mySource);
-    List<Mapper<? extends SourceT, ? extends TargetT>> modifiableMappers = getModifiableMappers();
-    for (Mapper<? extends SourceT, ? extends TargetT> m : modifiableMappers) {
-      myTarget.add(m.getTarget());
+    List<TargetT> targets = new ArrayList<>(mySource.size());
+    for (Mapper<? extends SourceT, ? extends TargetT> m : getModifiableMappers()) {
+      targets.add(m.getTarget());
     }
+    myTarget.addAll(targets);
 
-    myCollectionRegistration = mySource.addListener(new CollectionAdapter<SourceT>() {
+    myCollectionRegistration = mySource.addListener(new ListRangeAdapter<SourceT>() {
       @Override
       public void onItemAdded(CollectionItemEvent<? extends SourceT> event) {
         Mapper<? extends SourceT, ? extends TargetT> mapper = createMapper(event.getNewItem());
@@ -71,6 +74,29 @@ class ObservableCollectionRoleSynchronizer<
         getModifiableMappers().remove(event.getIndex());
         myTarget.remove(event.getIndex());
       }
+
+      @Override
+      public void onItemsAdded(ListRangeEvent<? extends SourceT> event) {
+        List<Mapper<? extends SourceT, ? extends TargetT>> mappers = new ArrayList<>(event.size());
+        List<TargetT> targets = new ArrayList<>(event.size());
+        for (SourceT item : event.getItems()) {
+          Mapper<? extends SourceT, ? extends TargetT> mapper = createMapper(item);
+          mappers.add(mapper);
+          targets.add(mapper.getTarget());
+        }
+        getModifiableMappers().addAll(event.getIndex(), mappers);
+        myTarget.addAll(event.getIndex(), targets);
+        for (Mapper<? extends SourceT, ? extends TargetT> mapper : mappers) {
+          processMapper(mapper);
+        }
+      }
+
+      @Override
+      public void onItemsRemoved(ListRangeEvent<? extends SourceT> event) {
+        int index = event.getIndex();
+        getModifiableMappers().subList(index, index + event.size()).clear();
+        myTarget.subList(index, index + event.size()).clear();
+      }
     });
   }
 
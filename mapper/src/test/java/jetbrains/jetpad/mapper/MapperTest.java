@@ -21,6 +21,9 @@ import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mockito;
 
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
@@ -67,6 +70,30 @@ public class MapperTest extends BaseTestCase {
     assertMapped();
   }
 
+  @Test
+  public void addItemsToObservable() {
+    source.getObservableChildren().addAll(1, Arrays.asList(new Item(), new Item()));
+
+    assertEquals(5, target.getObservableChildren().size());
+    assertMapped();
+  }
+
+  @Test
+  public void removeItemsFromObservable() {
+    source.getObservableChildren().subList(1, 3).clear();
+
+    assertEquals(1, target.getObservableChildren().size());
+    assertMapped();
+  }
+
+  @Test
+  public void clearObservable() {
+    source.getObservableChildren().clear();
+
+    assertTrue(target.getObservableChildren().isEmpty());
+    assertMapped();
+  }
+
   @Test
   public void removeItemFromSimple() {
     source.getChildren().remove(0);
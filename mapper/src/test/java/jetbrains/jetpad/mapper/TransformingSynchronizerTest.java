@@ -20,6 +20,7 @@ import jetbrains.jetpad.model.collections.list.ObservableArrayList;
 import jetbrains.jetpad.model.collections.list.ObservableList;
 import jetbrains.jetpad.model.property.Properties;
 import jetbrains.jetpad.model.property.ReadableProperty;
+import jetbrains.jetpad.model.property.ValueProperty;
 import jetbrains.jetpad.model.transform.Transformers;
 import jetbrains.jetpad.test.BaseTestCase;
 import org.junit.Assert;
@@ -66,6 +67,24 @@ public class TransformingSynchronizerTest extends BaseTestCase {
     assertTarget("a", "b");
   }
 
+  @Test
+  public void windowHasMappersOnlyForVisibleItems() {
+    source = new ObservableArrayList<>();
+    Collections.addAll(source, "a", "b", "c", "d", "e");
+    ValueProperty<Integer> offset = new ValueProperty<>(1);
+    WindowMapper mapper = new WindowMapper(source, offset);
+    mapper.attachRoot();
+    target = mapper.getTarget();
+
+    assertTarget("b", "c");
+    Assert.assertEquals(2, mapper.attachedCount);
+
+    offset.set(3);
+
+    assertTarget("d", "e");
+    Assert.assertEquals(2, mapper.attachedCount);
+  }
+
   private void assertTarget(String... items) {
     Assert.assertEquals(Arrays.asList(items), target);
   }
@@ -95,4 +114,40 @@ public class TransformingSynchronizerTest extends BaseTestCase {
       }));
     }
   }
-}
\ No newline at end of file
+
+  static class WindowMapper extends Mapper<ObservableList<String>, ObservableList<String>> {
+    private final ReadableProperty<Integer> myOffset;
+    private int attachedCount;
+
+    WindowMapper(ObservableList<String> source, ReadableProperty<Integer> offset) {
+      super(source, new ObservableArrayList<String>());
+      myOffset = offset;
+    }
+
+    @Override
+    protected void registerSynchronizers(SynchronizersConfiguration conf) {
+      super.registerSynchronizers(conf);
+
+      conf.add(Synchronizers.forObservableRole(this, getSource(),
+          Transformers.<String>window(myOffset, Properties.constant(2)), getTarget(),
+          new MapperFactory<String, String>() {
+            @Override
+            public Mapper<? extends String, ? extends String> createMapper(String source) {
+              return new Mapper<String, String>(source, source) {
+                @Override
+                protected void onAttach(MappingContext ctx) {
+                  super.onAttach(ctx);
+                  attachedCount++;
+                }
+
+                @Override
+                protected void onDetach() {
+                  super.onDetach();
+                  attachedCount--;
+                }
+              };
+            }
+          }));
+    }
+  }
+}
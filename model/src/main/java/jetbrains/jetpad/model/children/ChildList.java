@@ -15,66 +15,27 @@
  */
 package jetbrains.jetpad.model.children;
 
-import jetbrains.jetpad.model.collections.CollectionAdapter;
-import jetbrains.jetpad.model.collections.CollectionItemEvent;
 import jetbrains.jetpad.model.collections.list.ObservableArrayList;
 
+import java.util.List;
+
 public class ChildList<ParentT, ChildT extends SimpleComposite<? super ParentT, ? super ChildT>>
     extends ObservableArrayList<ChildT> {
   private ParentT myParent;
 
   public ChildList(ParentT parent) {
     myParent = parent;
-    addListener(new CollectionAdapter<ChildT>() {
-      @Override
-      public void onItemAdded(CollectionItemEvent<? extends ChildT> event) {
-        event.getNewItem().myParent.flush();
-      }
-
-      @Override
-      public void onItemRemoved(CollectionItemEvent<? extends ChildT> event) {
-        ChildT item = event.getOldItem();
-        item.myParent.set(null);
-        item.myPositionData = null;
-        item.myParent.flush();
-      }
-    });
   }
 
   @Override
   protected void checkAdd(int index, ChildT item) {
     super.checkAdd(index, item);
-    if (item.parent().get() != null) {
-      throw new IllegalArgumentException();
-    }
+    checkCanAdd(item);
   }
 
   @Override
-  protected void beforeItemAdded(int index, final ChildT item) {
-    item.myParent.set(myParent);
-    item.myPositionData = new PositionData<ChildT>() {
-      @Override
-      public Position<ChildT> get() {
-        final int index = indexOf(item);
-        return new Position<ChildT>() {
-          @Override
-          public ChildT get() {
-            if (size() <= index) return null;
-            return ChildList.this.get(index);
-          }
-
-          @Override
-          public Object getRole() {
-            return ChildList.this;
-          }
-        };
-      }
-
-      @Override
-      public void remove() {
-        ChildList.this.remove(item);
-      }
-    };
+  protected void beforeItemAdded(int index, ChildT item) {
+    attach(myParent, this, item);
   }
 
   @Override
@@ -89,11 +50,82 @@ public class ChildList<ParentT, ChildT extends SimpleComposite<? super ParentT,
     beforeItemAdded(index, newItem);
   }
 
+  @Override
+  protected void onItemAdd(int index, ChildT item) {
+    attached(item);
+  }
+
+  @Override
+  protected void onItemSet(int index, ChildT oldItem, ChildT newItem) {
+    detached(oldItem);
+    attached(newItem);
+  }
+
   @Override
   protected void checkRemove(int index, ChildT item) {
     super.checkRemove(index, item);
-    if (item.parent().get() != myParent) {
+    checkCanRemove(myParent, item);
+  }
+
+  @Override
+  protected void onItemRemove(int index, ChildT item) {
+    detached(item);
+  }
+
+  static void checkCanAdd(SimpleComposite<?, ?> item) {
+    if (item.parent().get() != null) {
       throw new IllegalArgumentException();
     }
   }
-}
\ No newline at end of file
+
+  static void checkCanRemove(Object parent, SimpleComposite<?, ?> item) {
+    if (item.parent().get() != parent) {
+      throw new IllegalArgumentException();
+    }
+  }
+
+  static <ParentT, ChildT extends SimpleComposite<? super ParentT, ? super ChildT>> void attach(
+      ParentT parent, List<ChildT> list, ChildT item) {
+    item.myParent.set(parent);
+    item.myPositionData = positionData(list, item);
+  }
+
+  /**
+   * Reports the new parent of the item once it's in the list
+   */
+  static void attached(SimpleComposite<?, ?> item) {
+    item.myParent.flush();
+  }
+
+  static void detached(SimpleComposite<?, ?> item) {
+    item.myParent.set(null);
+    item.myPositionData = null;
+    item.myParent.flush();
+  }
+
+  static <ChildT> PositionData<ChildT> positionData(final List<ChildT> list, final ChildT item) {
+    return new PositionData<ChildT>() {
+      @Override
+      public Position<ChildT> get() {
+        final int index = list.indexOf(item);
+        return new Position<ChildT>() {
+          @Override
+          public ChildT get() {
+            if (list.size() <= index) return null;
+            return list.get(index);
+          }
+
+          @Override
+          public Object getRole() {
+            return list;
+          }
+        };
+      }
+
+      @Override
+      public void remove() {
+        list.remove(item);
+      }
+    };
+  }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2012-2017 JetBrains s.r.o
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jetbrains.jetpad.model.children;
+
+import jetbrains.jetpad.model.collections.list.ObservableIdentityTreeList;
+
+/**
+ * {@link ChildList} for large numbers of children: positions of children are found in O(log n)
+ */
+public class IndexedChildList<ParentT, ChildT extends SimpleComposite<? super ParentT, ? super ChildT>>
+    extends ObservableIdentityTreeList<ChildT> {
+  private ParentT myParent;
+
+  public IndexedChildList(ParentT parent) {
+    myParent = parent;
+  }
+
+  @Override
+  protected void checkAdd(int index, ChildT item) {
+    super.checkAdd(index, item);
+    ChildList.checkCanAdd(item);
+  }
+
+  @Override
+  protected void beforeItemAdded(int index, ChildT item) {
+    ChildList.attach(myParent, this, item);
+  }
+
+  @Override
+  protected void checkSet(int index, ChildT oldItem, ChildT newItem) {
+    super.checkSet(index, oldItem, newItem);
+    checkRemove(index, oldItem);
+    checkAdd(index, newItem);
+  }
+
+  @Override
+  protected void beforeItemSet(int index, ChildT oldItem, ChildT newItem) {
+    beforeItemAdded(index, newItem);
+  }
+
+  @Override
+  protected void onItemAdd(int index, ChildT item) {
+    ChildList.attached(item);
+  }
+
+  @Override
+  protected void onItemSet(int index, ChildT oldItem, ChildT newItem) {
+    ChildList.detached(oldItem);
+    ChildList.attached(newItem);
+  }
+
+  @Override
+  protected void checkRemove(int index, ChildT item) {
+    super.checkRemove(index, item);
+    ChildList.checkCanRemove(myParent, item);
+  }
+
+  @Override
+  protected void onItemRemove(int index, ChildT item) {
+    ChildList.detached(item);
+  }
+}
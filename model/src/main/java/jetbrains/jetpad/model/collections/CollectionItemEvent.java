@@ -15,7 +15,9 @@
  */
 package jetbrains.jetpad.model.collections;
 
+import jetbrains.jetpad.model.event.ListenerDispatcher;
 import jetbrains.jetpad.model.event.ListenerEvent;
+import jetbrains.jetpad.model.event.ReusedEvents;
 
 import java.util.Objects;
 
@@ -23,10 +25,30 @@ public class CollectionItemEvent<ItemT> implements ListenerEvent<CollectionListe
   public enum EventType {
     ADD, SET, REMOVE
   }
+
+  private static final ListenerDispatcher<CollectionListener<Object>, CollectionItemEvent<Object>> DISPATCHER =
+      new ListenerDispatcher<CollectionListener<Object>, CollectionItemEvent<Object>>() {
+        @Override
+        public void dispatch(CollectionListener<Object> l, CollectionItemEvent<Object> event) {
+          event.dispatch(l);
+        }
+      };
+
+  /**
+   * Stateless dispatcher which delivers events to {@link CollectionListener}s stored in
+   * {@link jetbrains.jetpad.model.event.Listeners}
+   */
+  @SuppressWarnings("unchecked")
+  public static <ItemT> ListenerDispatcher<CollectionListener<? super ItemT>, CollectionItemEvent<ItemT>> dispatcher() {
+    return (ListenerDispatcher<CollectionListener<? super ItemT>, CollectionItemEvent<ItemT>>)
+        (ListenerDispatcher<?, ?>) DISPATCHER;
+  }
+
   private ItemT myOldItem;
   private ItemT myNewItem;
   private EventType myType;
   private int myIndex;
+  private boolean myExpired;
 
   public CollectionItemEvent(ItemT oldItem, ItemT newItem, int index, EventType type) {
     if (EventType.ADD == type && oldItem != null || EventType.REMOVE == type && newItem != null) {
@@ -39,21 +61,45 @@ public class CollectionItemEvent<ItemT> implements ListenerEvent<CollectionListe
   }
 
   public ItemT getOldItem() {
+    checkNotExpired();
     return myOldItem;
   }
 
   public ItemT getNewItem() {
+    checkNotExpired();
     return myNewItem;
   }
 
   public int getIndex() {
+    checkNotExpired();
     return myIndex;
   }
 
   public EventType getType() {
+    checkNotExpired();
     return myType;
   }
 
+  /**
+   * For sources which reuse event objects, see {@link ReusedEvents}
+   */
+  protected void reset(ItemT oldItem, ItemT newItem, int index, EventType type) {
+    myOldItem = oldItem;
+    myNewItem = newItem;
+    myIndex = index;
+    myType = type;
+  }
+
+  protected void expire() {
+    myExpired = true;
+  }
+
+  private void checkNotExpired() {
+    if (ReusedEvents.DEBUG) {
+      ReusedEvents.checkNotExpired(myExpired);
+    }
+  }
+
   @Override
   public void dispatch(CollectionListener<ItemT> l) {
     if (EventType.ADD == myType) {
@@ -68,7 +114,7 @@ public class CollectionItemEvent<ItemT> implements ListenerEvent<CollectionListe
   @Override
   public boolean equals(Object o) {
     if (this == o) return true;
-    if (o == null || getClass() != o.getClass()) return false;
+    if (!(o instanceof CollectionItemEvent)) return false;
     CollectionItemEvent<?> that = (CollectionItemEvent<?>) o;
 
     return Objects.equals(myOldItem, that.myOldItem) && Objects.equals(myNewItem, that.myNewItem) &&
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2012-2017 JetBrains s.r.o
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jetbrains.jetpad.model.collections;
+
+import jetbrains.jetpad.base.Registration;
+import jetbrains.jetpad.model.event.EventHandler;
+import jetbrains.jetpad.model.event.Listeners;
+
+/**
+ * Listeners of a view of an observable collection. All the listeners share a single listener of the underlying
+ * collection, so every event is transformed once regardless of the number of listeners.
+ * The underlying listener is added before the first listener of the view and removed after the last one.
+ * So all the listeners of the view are notified at the position of the first of them among the listeners of
+ * the underlying collection, even those which were added after some listeners of the underlying collection.
+ */
+public abstract class RelayCollectionListeners<SourceItemT, TargetItemT> {
+  private final ObservableCollection<? extends SourceItemT> mySource;
+  private final Listeners<CollectionListener<? super TargetItemT>> myListeners;
+  private Registration mySourceRegistration;
+
+  private final CollectionListener<SourceItemT> myRelay = new CollectionListener<SourceItemT>() {
+    @Override
+    public void onItemAdded(CollectionItemEvent<? extends SourceItemT> event) {
+      relay(event);
+    }
+
+    @Override
+    public void onItemSet(CollectionItemEvent<? extends SourceItemT> event) {
+      relay(event);
+    }
+
+    @Override
+    public void onItemRemoved(CollectionItemEvent<? extends SourceItemT> event) {
+      relay(event);
+    }
+  };
+
+  protected RelayCollectionListeners(Object owner, ObservableCollection<? extends SourceItemT> source) {
+    mySource = source;
+    myListeners = new Listeners<CollectionListener<? super TargetItemT>>(owner) {
+      @Override
+      protected void beforeFirstAdded() {
+        mySourceRegistration = mySource.addListener(myRelay);
+      }
+
+      @Override
+      protected void afterLastRemoved() {
+        mySourceRegistration.remove();
+        mySourceRegistration = null;
+      }
+    };
+  }
+
+  public Registration addListener(CollectionListener<? super TargetItemT> l) {
+    return myListeners.add(l);
+  }
+
+  public Registration addHandler(final EventHandler<? super CollectionItemEvent<? extends TargetItemT>> handler) {
+    return addListener(new CollectionListener<TargetItemT>() {
+      @Override
+      public void onItemAdded(CollectionItemEvent<? extends TargetItemT> event) {
+        handler.onEvent(event);
+      }
+
+      @Override
+      public void onItemSet(CollectionItemEvent<? extends TargetItemT> event) {
+        handler.onEvent(event);
+      }
+
+      @Override
+      public void onItemRemoved(CollectionItemEvent<? extends TargetItemT> event) {
+        handler.onEvent(event);
+      }
+    });
+  }
+
+  /**
+   * @return event for the listeners of the view or null if the event should be skipped
+   */
+  protected abstract CollectionItemEvent<? extends TargetItemT>
+  transform(CollectionItemEvent<? extends SourceItemT> event);
+
+  private void relay(CollectionItemEvent<? extends SourceItemT> event) {
+    //listeners of the view only read the items
+    @SuppressWarnings("unchecked")
+    CollectionItemEvent<TargetItemT> targetEvent = (CollectionItemEvent<TargetItemT>) transform(event);
+    if (targetEvent != null) {
+      myListeners.fire(targetEvent, CollectionItemEvent.<TargetItemT>dispatcher());
+    }
+  }
+}
@@ -23,19 +23,26 @@ import java.util.Iterator;
 
 public class UnmodifiableObservableCollection<ItemT> implements ObservableCollection<ItemT> {
   private final ObservableCollection<ItemT> myWrappedCollection;
+  private final RelayCollectionListeners<ItemT, ItemT> myListeners;
 
   public UnmodifiableObservableCollection(ObservableCollection<ItemT> wrappedCollection) {
     myWrappedCollection = wrappedCollection;
+    myListeners = new RelayCollectionListeners<ItemT, ItemT>(this, wrappedCollection) {
+      @Override
+      protected CollectionItemEvent<? extends ItemT> transform(CollectionItemEvent<? extends ItemT> event) {
+        return event;
+      }
+    };
   }
 
   @Override
   public Registration addListener(CollectionListener<? super ItemT> l) {
-    return myWrappedCollection.addListener(l);
+    return myListeners.addListener(l);
   }
 
   @Override
   public Registration addHandler(EventHandler<? super CollectionItemEvent<? extends ItemT>> handler) {
-    return myWrappedCollection.addHandler(handler);
+    return myListeners.addHandler(handler);
   }
 
   @Override
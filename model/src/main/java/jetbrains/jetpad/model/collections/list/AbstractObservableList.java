@@ -19,13 +19,18 @@ import jetbrains.jetpad.base.Registration;
 import jetbrains.jetpad.model.collections.CollectionItemEvent;
 import jetbrains.jetpad.model.collections.CollectionListener;
 import jetbrains.jetpad.model.event.EventHandler;
-import jetbrains.jetpad.model.event.ListenerCaller;
 import jetbrains.jetpad.model.event.Listeners;
+import jetbrains.jetpad.model.event.ReusedEvents;
 
 import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 
 public abstract class AbstractObservableList<ItemT> extends AbstractList<ItemT> implements ObservableList<ItemT> {
-  private Listeners<CollectionListener<? super ItemT>> myListeners;
+  //state which is needed only while the list is listened is kept with the listeners, so that small lists stay small
+  private ItemListeners myListeners;
 
   protected void checkAdd(int index, ItemT item) {
     if (index < 0 || index > size()) {
@@ -54,14 +59,8 @@ public abstract class AbstractObservableList<ItemT> extends AbstractList<ItemT>
       doAdd(index, item);
       success = true;
       onItemAdd(index, item);
-      if (myListeners != null) {
-        final CollectionItemEvent<ItemT> event = new CollectionItemEvent<>(null, item, index, CollectionItemEvent.EventType.ADD);
-        myListeners.fire(new ListenerCaller<CollectionListener<? super ItemT>>() {
-          @Override
-          public void call(CollectionListener<? super ItemT> l) {
-            l.onItemAdded(event);
-          }
-        });
+      if (hasListeners()) {
+        fireItemEvent(null, item, index, CollectionItemEvent.EventType.ADD);
       }
     } finally {
       afterItemAdded(index, item, success);
@@ -89,14 +88,8 @@ public abstract class AbstractObservableList<ItemT> extends AbstractList<ItemT>
       doSet(index, item);
       success = true;
       onItemSet(index, old, item);
-      if (myListeners != null) {
-        final CollectionItemEvent<ItemT> event = new CollectionItemEvent<>(old, item, index, CollectionItemEvent.EventType.SET);
-        myListeners.fire(new ListenerCaller<CollectionListener<? super ItemT>>() {
-          @Override
-          public void call(CollectionListener<? super ItemT> l) {
-            l.onItemSet(event);
-          }
-        });
+      if (hasListeners()) {
+        fireItemEvent(old, item, index, CollectionItemEvent.EventType.SET);
       }
     } finally {
       afterItemSet(index, old, item, success);
@@ -128,14 +121,8 @@ public abstract class AbstractObservableList<ItemT> extends AbstractList<ItemT>
       doRemove(index);
       success = true;
       onItemRemove(index, item);
-      if (myListeners != null) {
-        final CollectionItemEvent<ItemT> event = new CollectionItemEvent<>(item, null, index, CollectionItemEvent.EventType.REMOVE);
-        myListeners.fire(new ListenerCaller<CollectionListener<? super ItemT>>() {
-          @Override
-          public void call(CollectionListener<? super ItemT> l) {
-            l.onItemRemoved(event);
-          }
-        });
+      if (hasListeners()) {
+        fireItemEvent(item, null, index, CollectionItemEvent.EventType.REMOVE);
       }
     } finally {
       afterItemRemoved(index, item, success);
@@ -155,23 +142,171 @@ public abstract class AbstractObservableList<ItemT> extends AbstractList<ItemT>
   }
 
   @Override
-  public Registration addListener(CollectionListener<? super ItemT> listener) {
-    if (myListeners == null) {
-      myListeners = new Listeners<CollectionListener<? super ItemT>>() {
-        @Override
-        protected void beforeFirstAdded() {
-          onListenersAdded();
+  public boolean addAll(Collection<? extends ItemT> items) {
+    return addAll(size(), items);
+  }
+
+  /**
+   * If all the listeners are {@link ListRangeListener}s, the items are reported with a single {@link ListRangeEvent}
+   * fired after all of them are added. Otherwise they are added one by one. Per item checks and hooks are called
+   * in both cases.
+   */
+  @Override
+  public boolean addAll(int index, Collection<? extends ItemT> items) {
+    if (index < 0 || index > size()) {
+      throw new IndexOutOfBoundsException("Add: index=" + index + ", size=" + size());
+    }
+    if (!canFireRangeEvents()) {
+      return super.addAll(index, items);
+    }
+
+    //the items are collected only for the event
+    List<ItemT> added = hasListeners() ? new ArrayList<ItemT>(items.size()) : null;
+    int count = 0;
+    try {
+      for (ItemT item : items) {
+        int i = index + count;
+        checkAdd(i, item);
+        beforeItemAdded(i, item);
+        boolean success = false;
+        try {
+          doAdd(i, item);
+          success = true;
+          onItemAdd(i, item);
+          count++;
+          if (added != null) {
+            added.add(item);
+          }
+        } finally {
+          afterItemAdded(i, item, success);
         }
+      }
+    } finally {
+      if (added != null && !added.isEmpty() && hasListeners()) {
+        ListRangeEvent<ItemT> event = new ListRangeEvent<>(added, index, CollectionItemEvent.EventType.ADD);
+        myListeners.fire(event, ListRangeEvent.<ItemT>dispatcher());
+      }
+    }
+    return count > 0;
+  }
+
+  /**
+   * Removes the items starting from the end of the range. If all the listeners are {@link ListRangeListener}s,
+   * the items are reported with a single {@link ListRangeEvent} fired after all of them are removed.
+   * Otherwise they are removed one by one. It's used by {@link #clear()} and by {@code subList(...).clear()}.
+   */
+  @Override
+  protected void removeRange(int fromIndex, int toIndex) {
+    if (!canFireRangeEvents()) {
+      super.removeRange(fromIndex, toIndex);
+      return;
+    }
+    if (fromIndex < 0 || toIndex > size() || fromIndex > toIndex) {
+      throw new IndexOutOfBoundsException("Remove: from=" + fromIndex + ", to=" + toIndex + ", size=" + size());
+    }
+
+    List<ItemT> removed = new ArrayList<>(toIndex - fromIndex);
+    try {
+      for (int i = toIndex - 1; i >= fromIndex; i--) {
+        ItemT item = get(i);
+        checkRemove(i, item);
+        beforeItemRemoved(i, item);
+        boolean success = false;
+        try {
+          doRemove(i);
+          success = true;
+          onItemRemove(i, item);
+          removed.add(item);
+        } finally {
+          afterItemRemoved(i, item, success);
+        }
+      }
+    } finally {
+      if (!removed.isEmpty() && hasListeners()) {
+        Collections.reverse(removed);
+        int index = toIndex - removed.size();
+        ListRangeEvent<ItemT> event = new ListRangeEvent<>(removed, index, CollectionItemEvent.EventType.REMOVE);
+        myListeners.fire(event, ListRangeEvent.<ItemT>dispatcher());
+      }
+    }
+  }
+
+  private boolean hasListeners() {
+    return myListeners != null && !myListeners.isEmpty();
+  }
+
+  private boolean canFireRangeEvents() {
+    return myListeners == null || myListeners.size() == myListeners.myRangeListenersCount;
+  }
+
+  /**
+   * Makes the list fire the same mutable event object for all the single item changes, so that modifications
+   * don't allocate. Listeners of such list must not retain the events, see {@link ReusedEvents}.
+   */
+  public void setReuseEvents(boolean reuse) {
+    if (myListeners == null) {
+      if (!reuse) return;
+      myListeners = new ItemListeners();
+    }
+    myListeners.myReuseEvents = reuse;
+    myListeners.myFreeEvent = null;
+    if (!reuse && myListeners.isEmpty()) {
+      myListeners = null;
+    }
+  }
+
+  private void fireItemEvent(ItemT oldItem, ItemT newItem, int index, CollectionItemEvent.EventType type) {
+    ItemListeners listeners = myListeners;
+    CollectionItemEvent<ItemT> event;
+    ReusableItemEvent<ItemT> reusableEvent = null;
+    if (listeners.myReuseEvents) {
+      reusableEvent = listeners.myFreeEvent;
+      listeners.myFreeEvent = null;
+      if (reusableEvent == null || ReusedEvents.DEBUG) {
+        //the event is in use if the list is modified by its listener
+        reusableEvent = new ReusableItemEvent<>(oldItem, newItem, index, type);
+      } else {
+        reusableEvent.update(oldItem, newItem, index, type);
+      }
+      event = reusableEvent;
+    } else {
+      event = new CollectionItemEvent<>(oldItem, newItem, index, type);
+    }
 
-        @Override
-        protected void afterLastRemoved() {
-          myListeners = null;
-          onListenersRemoved();
+    try {
+      listeners.fire(event, CollectionItemEvent.<ItemT>dispatcher());
+    } finally {
+      if (reusableEvent != null) {
+        if (ReusedEvents.DEBUG) {
+          reusableEvent.invalidate();
+        } else {
+          reusableEvent.update(null, null, -1, type);
+          listeners.myFreeEvent = reusableEvent;
         }
-      };
+      }
     }
+  }
 
-    return myListeners.add(listener);
+  @Override
+  public Registration addListener(CollectionListener<? super ItemT> listener) {
+    if (myListeners == null) {
+      myListeners = new ItemListeners();
+    }
+
+    final ItemListeners listeners = myListeners;
+    final Registration registration = listeners.add(listener);
+    if (!(listener instanceof ListRangeListener)) {
+      return registration;
+    }
+
+    listeners.myRangeListenersCount++;
+    return new Registration() {
+      @Override
+      protected void doRemove() {
+        listeners.myRangeListenersCount--;
+        registration.remove();
+      }
+    };
   }
 
   @Override
@@ -200,4 +335,42 @@ public abstract class AbstractObservableList<ItemT> extends AbstractList<ItemT>
 
   protected void onListenersRemoved() {
   }
-}
\ No newline at end of file
+
+  private class ItemListeners extends Listeners<CollectionListener<? super ItemT>> {
+    private int myRangeListenersCount;
+    private boolean myReuseEvents;
+    private ReusableItemEvent<ItemT> myFreeEvent;
+
+    private ItemListeners() {
+      super(AbstractObservableList.this);
+    }
+
+    @Override
+    protected void beforeFirstAdded() {
+      onListenersAdded();
+    }
+
+    @Override
+    protected void afterLastRemoved() {
+      //a list which reuses events keeps the setting here
+      if (!myReuseEvents) {
+        myListeners = null;
+      }
+      onListenersRemoved();
+    }
+  }
+
+  private static final class ReusableItemEvent<ItemT> extends CollectionItemEvent<ItemT> {
+    private ReusableItemEvent(ItemT oldItem, ItemT newItem, int index, EventType type) {
+      super(oldItem, newItem, index, type);
+    }
+
+    private void update(ItemT oldItem, ItemT newItem, int index, EventType type) {
+      reset(oldItem, newItem, index, type);
+    }
+
+    private void invalidate() {
+      expire();
+    }
+  }
+}
@@ -0,0 +1,285 @@
+/*
+ * Copyright 2012-2017 JetBrains s.r.o
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jetbrains.jetpad.model.collections.list;
+
+import jetbrains.jetpad.base.Registration;
+import jetbrains.jetpad.model.collections.CollectionItemEvent;
+import jetbrains.jetpad.model.collections.CollectionItemEvent.EventType;
+import jetbrains.jetpad.model.collections.CollectionListener;
+import jetbrains.jetpad.model.event.EventHandler;
+import jetbrains.jetpad.model.event.ListenerDispatcher;
+import jetbrains.jetpad.model.event.Listeners;
+
+import java.util.AbstractList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Common part of the observable lists of primitive values: size, index checks, listeners and the boxing view.
+ * Subclasses keep the values in arrays of their type and report changes with their {@link Change}s.
+ */
+abstract class AbstractPrimitiveList<BoxedT, ListenerT, ChangeT extends AbstractPrimitiveList.Change<ListenerT>> {
+  private static final ListenerDispatcher<Object, Change<Object>> DISPATCHER =
+      new ListenerDispatcher<Object, Change<Object>>() {
+        @Override
+        public void dispatch(Object l, Change<Object> change) {
+          change.dispatch(l);
+        }
+      };
+
+  static int newCapacity(int length, int required) {
+    return Math.max(required, Math.max(4, length + (length >> 1)));
+  }
+
+  int mySize;
+  private Listeners<ListenerT> myListeners;
+  private ChangeT myFreeChange;
+  private BoxedView myView;
+
+  public int size() {
+    return mySize;
+  }
+
+  public boolean isEmpty() {
+    return mySize == 0;
+  }
+
+  /**
+   * Removes the values from fromIndex inclusive to toIndex exclusive with a single range event
+   */
+  public abstract void removeRange(int fromIndex, int toIndex);
+
+  public void clear() {
+    removeRange(0, mySize);
+  }
+
+  public Registration addListener(ListenerT l) {
+    if (myListeners == null) {
+      myListeners = new Listeners<>(this);
+    }
+    return myListeners.add(l);
+  }
+
+  /**
+   * @return view of this list which boxes the values, it's an {@link ObservableList} for the existing
+   * synchronizers and transformers
+   */
+  public ObservableList<BoxedT> asList() {
+    if (myView == null) {
+      myView = new BoxedView();
+    }
+    return myView;
+  }
+
+  abstract BoxedT getBoxed(int index);
+
+  abstract BoxedT setBoxed(int index, BoxedT value);
+
+  abstract void addBoxed(int index, BoxedT value);
+
+  abstract void addAllBoxed(int index, Collection<? extends BoxedT> values);
+
+  abstract BoxedT removeBoxed(int index);
+
+  /**
+   * @return listener of this list which reports its changes to the listeners of the view
+   */
+  abstract ListenerT newRelay(BoxedView view);
+
+  abstract ChangeT newChange();
+
+  /**
+   * Range events can be reported only if all the listeners of the view are {@link ListRangeListener}s,
+   * otherwise subclasses add and remove ranges one by one.
+   */
+  boolean canFireRangeEvents() {
+    return myView == null || myView.canFireRangeEvents();
+  }
+
+  boolean hasListeners() {
+    return myListeners != null && !myListeners.isEmpty();
+  }
+
+  ChangeT obtainChange() {
+    ChangeT change = myFreeChange;
+    myFreeChange = null;
+    if (change == null) {
+      //the change is in use if the list is modified by its listener
+      change = newChange();
+    }
+    return change;
+  }
+
+  void fire(ChangeT change) {
+    try {
+      myListeners.fire(change, AbstractPrimitiveList.<ListenerT>dispatcher());
+    } finally {
+      change.release();
+      myFreeChange = change;
+    }
+  }
+
+  void checkIndex(int index) {
+    if (index < 0 || index >= mySize) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + mySize);
+    }
+  }
+
+  void checkIndexForAdd(int index) {
+    if (index < 0 || index > mySize) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + mySize);
+    }
+  }
+
+  void checkRange(int fromIndex, int toIndex) {
+    if (fromIndex < 0 || toIndex > mySize || fromIndex > toIndex) {
+      throw new IndexOutOfBoundsException("From: " + fromIndex + ", To: " + toIndex + ", Size: " + mySize);
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <ListenerT> ListenerDispatcher<ListenerT, Change<ListenerT>> dispatcher() {
+    return (ListenerDispatcher<ListenerT, Change<ListenerT>>) (ListenerDispatcher<?, ?>) DISPATCHER;
+  }
+
+  abstract static class Change<ListenerT> {
+    static final int ADD = 0;
+    static final int SET = 1;
+    static final int REMOVE = 2;
+    static final int RANGE_ADD = 3;
+    static final int RANGE_REMOVE = 4;
+
+    int myType;
+    int myIndex;
+
+    abstract void dispatch(ListenerT l);
+
+    /**
+     * Drops the values of a range change, so that a free change doesn't hold them
+     */
+    abstract void release();
+  }
+
+  class BoxedView extends AbstractList<BoxedT> implements ObservableList<BoxedT> {
+    private final Listeners<CollectionListener<? super BoxedT>> myViewListeners =
+        new Listeners<CollectionListener<? super BoxedT>>(this) {
+          private Registration myRegistration;
+
+          @Override
+          protected void beforeFirstAdded() {
+            myRegistration = AbstractPrimitiveList.this.addListener(newRelay(BoxedView.this));
+          }
+
+          @Override
+          protected void afterLastRemoved() {
+            myRegistration.remove();
+            myRegistration = null;
+          }
+        };
+    private int myRangeListenersCount;
+
+    @Override
+    public BoxedT get(int index) {
+      return getBoxed(index);
+    }
+
+    @Override
+    public int size() {
+      return mySize;
+    }
+
+    @Override
+    public BoxedT set(int index, BoxedT value) {
+      return setBoxed(index, value);
+    }
+
+    @Override
+    public void add(int index, BoxedT value) {
+      addBoxed(index, value);
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends BoxedT> values) {
+      return addAll(mySize, values);
+    }
+
+    @Override
+    public boolean addAll(int index, Collection<? extends BoxedT> values) {
+      addAllBoxed(index, values);
+      return !values.isEmpty();
+    }
+
+    @Override
+    public BoxedT remove(int index) {
+      return removeBoxed(index);
+    }
+
+    @Override
+    protected void removeRange(int fromIndex, int toIndex) {
+      AbstractPrimitiveList.this.removeRange(fromIndex, toIndex);
+    }
+
+    @Override
+    public Registration addListener(CollectionListener<? super BoxedT> l) {
+      final Registration registration = myViewListeners.add(l);
+      if (!(l instanceof ListRangeListener)) {
+        return registration;
+      }
+
+      myRangeListenersCount++;
+      return new Registration() {
+        @Override
+        protected void doRemove() {
+          myRangeListenersCount--;
+          registration.remove();
+        }
+      };
+    }
+
+    @Override
+    public Registration addHandler(final EventHandler<? super CollectionItemEvent<? extends BoxedT>> handler) {
+      return addListener(new CollectionListener<BoxedT>() {
+        @Override
+        public void onItemAdded(CollectionItemEvent<? extends BoxedT> event) {
+          handler.onEvent(event);
+        }
+
+        @Override
+        public void onItemSet(CollectionItemEvent<? extends BoxedT> event) {
+          handler.onEvent(event);
+        }
+
+        @Override
+        public void onItemRemoved(CollectionItemEvent<? extends BoxedT> event) {
+          handler.onEvent(event);
+        }
+      });
+    }
+
+    void fireItem(BoxedT oldValue, BoxedT newValue, int index, EventType type) {
+      myViewListeners.fire(new CollectionItemEvent<>(oldValue, newValue, index, type),
+          CollectionItemEvent.<BoxedT>dispatcher());
+    }
+
+    void fireRange(List<BoxedT> values, int index, EventType type) {
+      myViewListeners.fire(new ListRangeEvent<>(values, index, type), ListRangeEvent.<BoxedT>dispatcher());
+    }
+
+    private boolean canFireRangeEvents() {
+      return myViewListeners.size() == myRangeListenersCount;
+    }
+  }
+}
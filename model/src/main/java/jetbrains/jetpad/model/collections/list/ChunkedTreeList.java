@@ -0,0 +1,833 @@
+/*
+ * Copyright 2012-2017 JetBrains s.r.o
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jetbrains.jetpad.model.collections.list;
+
+import java.util.AbstractList;
+import java.util.ConcurrentModificationException;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Mutable list based on an order statistic B+tree.
+ * Items are stored in array leaves of up to {@link #LEAF_CAPACITY} items, and branches keep the number of items
+ * in their subtrees.
+ *
+ * Positional operations take O(log n), iteration is sequential access to the arrays of the leaves.
+ * An edit allocates nodes only when a node is split or when it changes nodes shared with a {@link #snapshot()}.
+ *
+ * An identity indexed list, see {@link #identityIndexed()}, also maps its items to the leaves and finds
+ * an item with {@link #indexOf}, {@link #contains} and {@link #remove(Object)} in O(log n).
+ */
+public class ChunkedTreeList<T> extends AbstractList<T> {
+  static final int LEAF_CAPACITY = 64;
+  static final int BRANCH_CAPACITY = 32;
+
+  /**
+   * Creates a list which compares items by identity and doesn't allow an item to be added twice
+   */
+  public static <T> ChunkedTreeList<T> identityIndexed() {
+    return new ChunkedTreeList<>(true);
+  }
+
+  private final Map<Object, Leaf> myLeaves;
+  //owner of the nodes created after the last snapshot, the other nodes are shared with snapshots and copied on write
+  private Object myOwner = new Object();
+  private Node myRoot = new Leaf(myOwner);
+
+  public ChunkedTreeList() {
+    this(false);
+  }
+
+  private ChunkedTreeList(boolean identityIndexed) {
+    myLeaves = identityIndexed ? new IdentityHashMap<Object, Leaf>() : null;
+  }
+
+  /**
+   * Immutable list of the current items. It takes O(1): the snapshot shares the nodes with this list, and
+   * the list copies a shared node before it changes it, i.e. only the nodes on the path to the edited leaf.
+   * The snapshot doesn't change, so it can be read from other threads once it's passed to them.
+   */
+  public List<T> snapshot() {
+    myOwner = new Object();
+    return new Snapshot<>(myRoot, myLeaves != null);
+  }
+
+  @Override
+  public T get(int index) {
+    checkIndex(index);
+    return get(myRoot, index);
+  }
+
+  @Override
+  public int size() {
+    return myRoot.mySize;
+  }
+
+  @Override
+  public T set(int index, T element) {
+    checkIndex(index);
+    Position position = locateForWrite(index);
+    Leaf leaf = position.myLeaf;
+    T oldValue = leaf.get(position.myOffset);
+    if (myLeaves != null && oldValue != element) {
+      checkNotIndexed(element);
+      myLeaves.remove(oldValue);
+      myLeaves.put(element, leaf);
+    }
+    leaf.myItems[position.myOffset] = element;
+    return oldValue;
+  }
+
+  @Override
+  public void add(int index, T element) {
+    if (index < 0 || index > size()) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+    }
+    if (myLeaves != null) {
+      checkNotIndexed(element);
+    }
+
+    Position position = locateForWrite(index);
+    Leaf leaf = position.myLeaf;
+    int offset = position.myOffset;
+    if (leaf.mySize == LEAF_CAPACITY) {
+      Leaf right = new Leaf(myOwner);
+      split(leaf, right);
+      if (offset > leaf.mySize) {
+        offset -= leaf.mySize;
+        leaf = right;
+      }
+    }
+
+    System.arraycopy(leaf.myItems, offset, leaf.myItems, offset + 1, leaf.mySize - offset);
+    leaf.myItems[offset] = element;
+    for (Node node = leaf; node != null; node = node.myParent) {
+      node.mySize++;
+    }
+    if (myLeaves != null) {
+      myLeaves.put(element, leaf);
+    }
+    modCount++;
+  }
+
+  @Override
+  public T remove(int index) {
+    checkIndex(index);
+    Position position = locateForWrite(index);
+    Leaf leaf = position.myLeaf;
+    int offset = position.myOffset;
+    T oldValue = leaf.get(offset);
+
+    System.arraycopy(leaf.myItems, offset + 1, leaf.myItems, offset, leaf.mySize - offset - 1);
+    leaf.myItems[leaf.mySize - 1] = null;
+    for (Node node = leaf; node != null; node = node.myParent) {
+      node.mySize--;
+    }
+    if (myLeaves != null) {
+      myLeaves.remove(oldValue);
+    }
+    modCount++;
+
+    rebalance(leaf);
+    return oldValue;
+  }
+
+  @Override
+  public void clear() {
+    myRoot = new Leaf(myOwner);
+    if (myLeaves != null) {
+      myLeaves.clear();
+    }
+    modCount++;
+  }
+
+  @Override
+  public int indexOf(Object o) {
+    if (myLeaves == null) {
+      return super.indexOf(o);
+    }
+
+    Leaf leaf = myLeaves.get(o);
+    if (leaf == null) {
+      return -1;
+    }
+    int index = 0;
+    while (leaf.myItems[index] != o) {
+      index++;
+    }
+    Node node = leaf;
+    for (Branch parent = node.myParent; parent != null; node = parent, parent = parent.myParent) {
+      for (int i = 0; parent.myChildren[i] != node; i++) {
+        index += parent.myChildren[i].mySize;
+      }
+    }
+    return index;
+  }
+
+  @Override
+  public int lastIndexOf(Object o) {
+    if (myLeaves == null) {
+      return super.lastIndexOf(o);
+    }
+    return indexOf(o);
+  }
+
+  @Override
+  public boolean contains(Object o) {
+    if (myLeaves == null) {
+      return super.contains(o);
+    }
+    return myLeaves.containsKey(o);
+  }
+
+  @Override
+  public boolean remove(Object o) {
+    int index = indexOf(o);
+    if (index == -1) {
+      return false;
+    }
+    remove(index);
+    return true;
+  }
+
+  @Override
+  public ListIterator<T> listIterator(int index) {
+    if (index < 0 || index > size()) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+    }
+    return new Itr(index);
+  }
+
+  public void check() {
+    if (myRoot.myParent != null) {
+      throw new IllegalStateException();
+    }
+    check(myRoot);
+    if (myLeaves != null) {
+      if (myLeaves.size() != size()) {
+        throw new IllegalStateException();
+      }
+      for (Map.Entry<Object, Leaf> entry : myLeaves.entrySet()) {
+        Leaf itemLeaf = entry.getValue();
+        if (itemLeaf.myParent == null && itemLeaf != myRoot || get(indexOf(entry.getKey())) != entry.getKey()) {
+          throw new IllegalStateException();
+        }
+      }
+    }
+  }
+
+  private int check(Node node) {
+    if (node != myRoot && node.count() < node.capacity() / 4) {
+      throw new IllegalStateException();
+    }
+    if (node instanceof Leaf) {
+      return 0;
+    }
+
+    Branch branch = (Branch) node;
+    int size = 0;
+    int depth = -1;
+    for (int i = 0; i < branch.myCount; i++) {
+      Node child = branch.myChildren[i];
+      if (child.myParent != branch) {
+        throw new IllegalStateException();
+      }
+      size += child.mySize;
+      int childDepth = check(child);
+      if (depth != -1 && childDepth != depth) {
+        throw new IllegalStateException();
+      }
+      depth = childDepth;
+    }
+    if (size != branch.mySize || branch == myRoot && branch.myCount < 2) {
+      throw new IllegalStateException();
+    }
+    return depth + 1;
+  }
+
+  private void checkNotIndexed(Object item) {
+    if (myLeaves.containsKey(item)) {
+      throw new IllegalArgumentException("Item is already in the list: " + item);
+    }
+  }
+
+  /**
+   * Updates the leaf of the items of the node after they were moved to it
+   */
+  private void reindex(Node node) {
+    if (myLeaves == null || !(node instanceof Leaf)) return;
+    Leaf leaf = (Leaf) node;
+    for (int i = 0; i < leaf.mySize; i++) {
+      myLeaves.put(leaf.myItems[i], leaf);
+    }
+  }
+
+  private void checkIndex(int index) {
+    if (index < 0 || index >= size()) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+    }
+  }
+
+  private static <T> T get(Node root, int index) {
+    Node node = root;
+    while (node instanceof Branch) {
+      Branch branch = (Branch) node;
+      int last = branch.myCount - 1;
+      int i = 0;
+      while (i < last && index >= branch.myChildren[i].mySize) {
+        index -= branch.myChildren[i++].mySize;
+      }
+      node = branch.myChildren[i];
+    }
+    return ((Leaf) node).get(index);
+  }
+
+  /**
+   * Finds the leaf which contains the item with the index, or the last leaf for the index equal to the size,
+   * and copies the shared nodes on the path to it
+   */
+  private Position locateForWrite(int index) {
+    Node node = mutableRoot();
+    while (node instanceof Branch) {
+      Branch branch = (Branch) node;
+      int last = branch.myCount - 1;
+      int i = 0;
+      while (i < last && index >= branch.myChildren[i].mySize) {
+        index -= branch.myChildren[i++].mySize;
+      }
+      node = mutableChild(branch, i);
+    }
+    return new Position((Leaf) node, index);
+  }
+
+  private Node mutableRoot() {
+    if (myRoot.myOwner != myOwner) {
+      myRoot = myRoot.copy(myOwner);
+      reindex(myRoot);
+    }
+    return myRoot;
+  }
+
+  private Node mutableChild(Branch parent, int i) {
+    Node child = parent.myChildren[i];
+    if (child.myOwner != myOwner) {
+      child = child.copy(myOwner);
+      child.myParent = parent;
+      parent.myChildren[i] = child;
+      reindex(child);
+    }
+    return child;
+  }
+
+  /**
+   * Inserts the empty right node after the given one and moves the second half of the entries to it
+   */
+  private void split(Node node, Node right) {
+    Branch parent = node.myParent;
+    if (parent == null) {
+      Branch root = new Branch(myOwner);
+      root.myChildren[0] = node;
+      root.myCount = 1;
+      root.mySize = node.mySize;
+      node.myParent = root;
+      myRoot = root;
+      parent = root;
+    } else if (parent.myCount == BRANCH_CAPACITY) {
+      split(parent, new Branch(myOwner));
+      parent = node.myParent;
+    }
+
+    int i = parent.indexOf(node);
+    System.arraycopy(parent.myChildren, i + 1, parent.myChildren, i + 2, parent.myCount - i - 1);
+    parent.myChildren[i + 1] = right;
+    parent.myCount++;
+    right.myParent = parent;
+
+    right.takeLast(node, node.count() / 2);
+    reindex(right);
+  }
+
+  private void rebalance(Node node) {
+    Branch parent = node.myParent;
+    if (parent == null) {
+      if (node instanceof Branch && ((Branch) node).myCount == 1) {
+        myRoot = ((Branch) node).myChildren[0];
+        myRoot.myParent = null;
+      }
+      return;
+    }
+    if (node.count() >= node.capacity() / 4) return;
+
+    int i = parent.indexOf(node);
+    Node left;
+    Node right;
+    if (i > 0) {
+      left = mutableChild(parent, i - 1);
+      right = node;
+    } else {
+      left = node;
+      right = mutableChild(parent, i + 1);
+    }
+
+    int total = left.count() + right.count();
+    if (total <= left.capacity()) {
+      left.takeFirst(right, right.count());
+      reindex(left);
+      int rightIndex = parent.indexOf(right);
+      System.arraycopy(parent.myChildren, rightIndex + 1, parent.myChildren, rightIndex, parent.myCount - rightIndex - 1);
+      parent.myChildren[--parent.myCount] = null;
+      rebalance(parent);
+    } else if (left.count() > total / 2) {
+      right.takeLast(left, left.count() - total / 2);
+      reindex(right);
+    } else {
+      left.takeFirst(right, total / 2 - left.count());
+      reindex(left);
+    }
+  }
+
+  private abstract static class Node {
+    //a list changes only the nodes which it owns, and copies the other ones
+    final Object myOwner;
+    //parent in the current tree of the list, snapshots don't use it
+    Branch myParent;
+    int mySize;
+
+    Node(Object owner) {
+      myOwner = owner;
+    }
+
+    abstract int count();
+
+    abstract int capacity();
+
+    abstract Node copy(Object owner);
+
+    /**
+     * Moves n first entries of the next sibling to the end of this node
+     */
+    abstract void takeFirst(Node next, int n);
+
+    /**
+     * Moves n last entries of the previous sibling to the beginning of this node
+     */
+    abstract void takeLast(Node prev, int n);
+  }
+
+  private static final class Leaf extends Node {
+    private final Object[] myItems = new Object[LEAF_CAPACITY];
+
+    Leaf(Object owner) {
+      super(owner);
+    }
+
+    @SuppressWarnings("unchecked")
+    <T> T get(int offset) {
+      return (T) myItems[offset];
+    }
+
+    @Override
+    int count() {
+      return mySize;
+    }
+
+    @Override
+    int capacity() {
+      return LEAF_CAPACITY;
+    }
+
+    @Override
+    Node copy(Object owner) {
+      Leaf result = new Leaf(owner);
+      System.arraycopy(myItems, 0, result.myItems, 0, mySize);
+      result.mySize = mySize;
+      return result;
+    }
+
+    @Override
+    void takeFirst(Node next, int n) {
+      Leaf leaf = (Leaf) next;
+      int size = count();
+      int nextSize = leaf.count();
+      System.arraycopy(leaf.myItems, 0, myItems, size, n);
+      System.arraycopy(leaf.myItems, n, leaf.myItems, 0, nextSize - n);
+      for (int i = nextSize - n; i < nextSize; i++) {
+        leaf.myItems[i] = null;
+      }
+      mySize += n;
+      leaf.mySize -= n;
+    }
+
+    @Override
+    void takeLast(Node prev, int n) {
+      Leaf leaf = (Leaf) prev;
+      int size = count();
+      int prevSize = leaf.count();
+      System.arraycopy(myItems, 0, myItems, n, size);
+      System.arraycopy(leaf.myItems, prevSize - n, myItems, 0, n);
+      for (int i = prevSize - n; i < prevSize; i++) {
+        leaf.myItems[i] = null;
+      }
+      mySize += n;
+      leaf.mySize -= n;
+    }
+  }
+
+  private static final class Branch extends Node {
+    private final Node[] myChildren = new Node[BRANCH_CAPACITY];
+    private int myCount;
+
+    Branch(Object owner) {
+      super(owner);
+    }
+
+    int indexOf(Node child) {
+      for (int i = 0; i < myCount; i++) {
+        if (myChildren[i] == child) {
+          return i;
+        }
+      }
+      throw new IllegalStateException();
+    }
+
+    @Override
+    int count() {
+      return myCount;
+    }
+
+    @Override
+    int capacity() {
+      return BRANCH_CAPACITY;
+    }
+
+    @Override
+    Node copy(Object owner) {
+      Branch result = new Branch(owner);
+      System.arraycopy(myChildren, 0, result.myChildren, 0, myCount);
+      for (int i = 0; i < myCount; i++) {
+        myChildren[i].myParent = result;
+      }
+      result.myCount = myCount;
+      result.mySize = mySize;
+      return result;
+    }
+
+    @Override
+    void takeFirst(Node next, int n) {
+      Branch branch = (Branch) next;
+      int moved = 0;
+      for (int i = 0; i < n; i++) {
+        Node child = branch.myChildren[i];
+        child.myParent = this;
+        moved += child.mySize;
+        myChildren[myCount + i] = child;
+      }
+      System.arraycopy(branch.myChildren, n, branch.myChildren, 0, branch.myCount - n);
+      for (int i = branch.myCount - n; i < branch.myCount; i++) {
+        branch.myChildren[i] = null;
+      }
+      myCount += n;
+      branch.myCount -= n;
+      mySize += moved;
+      branch.mySize -= moved;
+    }
+
+    @Override
+    void takeLast(Node prev, int n) {
+      Branch branch = (Branch) prev;
+      System.arraycopy(myChildren, 0, myChildren, n, myCount);
+      int moved = 0;
+      for (int i = 0; i < n; i++) {
+        Node child = branch.myChildren[branch.myCount - n + i];
+        child.myParent = this;
+        moved += child.mySize;
+        myChildren[i] = child;
+        branch.myChildren[branch.myCount - n + i] = null;
+      }
+      myCount += n;
+      branch.myCount -= n;
+      mySize += moved;
+      branch.mySize -= moved;
+    }
+  }
+
+  private static final class Position {
+    private final Leaf myLeaf;
+    private final int myOffset;
+
+    Position(Leaf leaf, int offset) {
+      myLeaf = leaf;
+      myOffset = offset;
+    }
+  }
+
+  /**
+   * Read only iterator which keeps the path to the current leaf, so that it moves to the adjacent leaf
+   * in amortized O(1)
+   */
+  private static class TreeIterator<T> implements ListIterator<T> {
+    private Branch[] myPath;
+    private int[] myChildIndices;
+    private Leaf myLeaf;
+    private int myOffset;
+    private int myIndex;
+    private int mySize;
+
+    TreeIterator(Node root, int index) {
+      seek(root, index);
+    }
+
+    void seek(Node root, int index) {
+      int depth = 0;
+      for (Node node = root; node instanceof Branch; node = ((Branch) node).myChildren[0]) {
+        depth++;
+      }
+      if (myPath == null || myPath.length != depth) {
+        myPath = new Branch[depth];
+        myChildIndices = new int[depth];
+      }
+
+      Node node = root;
+      int offset = index;
+      for (int level = 0; level < depth; level++) {
+        Branch branch = (Branch) node;
+        int last = branch.myCount - 1;
+        int i = 0;
+        while (i < last && offset >= branch.myChildren[i].mySize) {
+          offset -= branch.myChildren[i++].mySize;
+        }
+        myPath[level] = branch;
+        myChildIndices[level] = i;
+        node = branch.myChildren[i];
+      }
+      myLeaf = (Leaf) node;
+      myOffset = offset;
+      myIndex = index;
+      mySize = root.mySize;
+    }
+
+    /**
+     * Moves to the beginning of the next leaf for the positive direction and to the end of the previous one otherwise
+     */
+    private void moveToLeaf(int direction) {
+      int level = myPath.length - 1;
+      while (myChildIndices[level] + direction < 0 || myChildIndices[level] + direction >= myPath[level].myCount) {
+        level--;
+      }
+      myChildIndices[level] += direction;
+      Node node = myPath[level].myChildren[myChildIndices[level]];
+      for (level++; level < myPath.length; level++) {
+        Branch branch = (Branch) node;
+        int i = direction > 0 ? 0 : branch.myCount - 1;
+        myPath[level] = branch;
+        myChildIndices[level] = i;
+        node = branch.myChildren[i];
+      }
+      myLeaf = (Leaf) node;
+      myOffset = direction > 0 ? 0 : myLeaf.mySize;
+    }
+
+    @Override
+    public boolean hasNext() {
+      return myIndex < mySize;
+    }
+
+    @Override
+    public T next() {
+      if (myIndex >= mySize) {
+        throw new NoSuchElementException();
+      }
+      if (myOffset == myLeaf.mySize) {
+        moveToLeaf(1);
+      }
+      myIndex++;
+      return myLeaf.get(myOffset++);
+    }
+
+    @Override
+    public boolean hasPrevious() {
+      return myIndex > 0;
+    }
+
+    @Override
+    public T previous() {
+      if (myIndex == 0) {
+        throw new NoSuchElementException();
+      }
+      if (myOffset == 0) {
+        moveToLeaf(-1);
+      }
+      myIndex--;
+      return myLeaf.get(--myOffset);
+    }
+
+    @Override
+    public int nextIndex() {
+      return myIndex;
+    }
+
+    @Override
+    public int previousIndex() {
+      return myIndex - 1;
+    }
+
+    @Override
+    public void remove() {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void set(T t) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void add(T t) {
+      throw new UnsupportedOperationException();
+    }
+  }
+
+  private class Itr extends TreeIterator<T> {
+    private int myLastReturned = -1;
+    private int myExpectedModCount = modCount;
+
+    Itr(int index) {
+      super(myRoot, index);
+    }
+
+    private void reset(int index) {
+      seek(myRoot, index);
+      myExpectedModCount = modCount;
+    }
+
+    private void checkForComodification() {
+      if (modCount != myExpectedModCount) {
+        throw new ConcurrentModificationException();
+      }
+    }
+
+    @Override
+    public T next() {
+      checkForComodification();
+      T result = super.next();
+      myLastReturned = previousIndex();
+      return result;
+    }
+
+    @Override
+    public T previous() {
+      checkForComodification();
+      T result = super.previous();
+      myLastReturned = nextIndex();
+      return result;
+    }
+
+    @Override
+    public void remove() {
+      if (myLastReturned < 0) {
+        throw new IllegalStateException();
+      }
+      checkForComodification();
+      ChunkedTreeList.this.remove(myLastReturned);
+      reset(myLastReturned);
+      myLastReturned = -1;
+    }
+
+    @Override
+    public void set(T t) {
+      if (myLastReturned < 0) {
+        throw new IllegalStateException();
+      }
+      checkForComodification();
+      ChunkedTreeList.this.set(myLastReturned, t);
+      //the leaf might have been copied from a snapshot
+      reset(nextIndex());
+    }
+
+    @Override
+    public void add(T t) {
+      checkForComodification();
+      int index = nextIndex();
+      ChunkedTreeList.this.add(index, t);
+      reset(index + 1);
+      myLastReturned = -1;
+    }
+  }
+
+  private static final class Snapshot<T> extends AbstractList<T> {
+    private final Node myRoot;
+    private final boolean myIdentityIndexed;
+
+    Snapshot(Node root, boolean identityIndexed) {
+      myRoot = root;
+      myIdentityIndexed = identityIndexed;
+    }
+
+    @Override
+    public T get(int index) {
+      if (index < 0 || index >= size()) {
+        throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+      }
+      return ChunkedTreeList.get(myRoot, index);
+    }
+
+    @Override
+    public int size() {
+      return myRoot.mySize;
+    }
+
+    @Override
+    public int indexOf(Object o) {
+      if (!myIdentityIndexed) {
+        return super.indexOf(o);
+      }
+      ListIterator<T> it = listIterator();
+      while (it.hasNext()) {
+        if (it.next() == o) {
+          return it.previousIndex();
+        }
+      }
+      return -1;
+    }
+
+    @Override
+    public int lastIndexOf(Object o) {
+      return myIdentityIndexed ? indexOf(o) : super.lastIndexOf(o);
+    }
+
+    @Override
+    public boolean contains(Object o) {
+      return indexOf(o) != -1;
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+      return listIterator(0);
+    }
+
+    @Override
+    public ListIterator<T> listIterator(int index) {
+      if (index < 0 || index > size()) {
+        throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+      }
+      return new TreeIterator<>(myRoot, index);
+    }
+  }
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2012-2017 JetBrains s.r.o
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jetbrains.jetpad.model.collections.list;
+
+/**
+ * {@link DoubleListListener} which reports range changes value by value.
+ * Removals are reported from the end of the range, so every index is valid for a listener which applies
+ * the changes one by one.
+ */
+public class DoubleListAdapter implements DoubleListListener {
+  @Override
+  public void onAdded(int index, double value) {
+  }
+
+  @Override
+  public void onSet(int index, double oldValue, double newValue) {
+  }
+
+  @Override
+  public void onRemoved(int index, double value) {
+  }
+
+  @Override
+  public void onRangeAdded(int index, double[] values) {
+    for (int i = 0; i < values.length; i++) {
+      onAdded(index + i, values[i]);
+    }
+  }
+
+  @Override
+  public void onRangeRemoved(int index, double[] values) {
+    for (int i = values.length - 1; i >= 0; i--) {
+      onRemoved(index + i, values[i]);
+    }
+  }
+}
@@ -0,0 +1,32 @@
+/*
+ * Copyright 2012-2017 JetBrains s.r.o
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jetbrains.jetpad.model.collections.list;
+
+/**
+ * Listener of {@link ObservableDoubleList}.
+ * Arrays of the range events are valid only during the call and must not be modified.
+ */
+public interface DoubleListListener {
+  void onAdded(int index, double value);
+
+  void onSet(int index, double oldValue, double newValue);
+
+  void onRemoved(int index, double value);
+
+  void onRangeAdded(int index, double[] values);
+
+  void onRangeRemoved(int index, double[] values);
+}
@@ -0,0 +1,365 @@
+/*
+ * Copyright 2012-2017 JetBrains s.r.o
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jetbrains.jetpad.model.collections.list;
+
+import jetbrains.jetpad.base.ThrowableHandlers;
+import jetbrains.jetpad.base.edt.EventDispatchThread;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Buffer which accepts modifications of an {@link ObservableList} from any thread and applies them to the list
+ * on its {@link EventDispatchThread}.
+ *
+ * Modifications are put to a lock-free queue, and the queue is drained by a single task scheduled on the EDT,
+ * so producers don't schedule a task per item. The drain applies consecutive appends with one
+ * {@link List#addAll(Collection)} call and drops the modifications which are followed by {@link #clear()}.
+ *
+ * The number of pending modifications is bounded by the capacity: {@link #add(Object)} and the other blocking
+ * methods wait until the EDT applies the earlier modifications, the offer methods fail instead. The blocking
+ * methods must not be called on the EDT of the buffer, which would wait for itself.
+ *
+ * Modifications from one thread are applied in the order they were made. Index based modifications are applied
+ * to the list as it is at the moment of application.
+ */
+public final class EdtBoundList<ItemT> {
+  private final ObservableList<ItemT> myTarget;
+  private final EventDispatchThread myEdt;
+  private final int myBatchSize;
+  private final Semaphore myPermits;
+  private final Queue<Command> myQueue = new ConcurrentLinkedQueue<>();
+  private final AtomicBoolean myDrainScheduled = new AtomicBoolean();
+
+  private final Runnable myDrain = new Runnable() {
+    @Override
+    public void run() {
+      drain();
+    }
+  };
+
+  public EdtBoundList(ObservableList<ItemT> target, EventDispatchThread edt, int capacity) {
+    this(target, edt, capacity, capacity);
+  }
+
+  /**
+   * @param batchSize the maximum number of modifications applied by one EDT task. The rest are applied by the next
+   *                  task, so that the EDT can process other events in between.
+   */
+  public EdtBoundList(ObservableList<ItemT> target, EventDispatchThread edt, int capacity, int batchSize) {
+    if (capacity <= 0 || batchSize <= 0) {
+      throw new IllegalArgumentException("capacity=" + capacity + ", batchSize=" + batchSize);
+    }
+    myTarget = target;
+    myEdt = edt;
+    myBatchSize = batchSize;
+    myPermits = new Semaphore(capacity);
+  }
+
+  public ObservableList<ItemT> getTarget() {
+    return myTarget;
+  }
+
+  /**
+   * @return the number of modifications which aren't applied yet
+   */
+  public int getPendingCount() {
+    return myQueue.size();
+  }
+
+  public void add(ItemT item) throws InterruptedException {
+    put(new Add(-1, item));
+  }
+
+  public void add(int index, ItemT item) throws InterruptedException {
+    put(new Add(index, item));
+  }
+
+  public void set(int index, ItemT item) throws InterruptedException {
+    put(new SetItem(index, item));
+  }
+
+  public void remove(int index) throws InterruptedException {
+    put(new RemoveAt(index));
+  }
+
+  public void remove(ItemT item) throws InterruptedException {
+    put(new RemoveItem(item));
+  }
+
+  public void clear() throws InterruptedException {
+    put(new Clear());
+  }
+
+  /**
+   * Adds the items as one modification, so they take a single place in the queue
+   */
+  public void addAll(Collection<? extends ItemT> items) throws InterruptedException {
+    put(new AddAll(new ArrayList<ItemT>(items)));
+  }
+
+  /**
+   * @return false if the buffer is full
+   */
+  public boolean offer(ItemT item) {
+    return offer(new Add(-1, item));
+  }
+
+  public boolean offer(ItemT item, long timeout, TimeUnit unit) throws InterruptedException {
+    if (!myPermits.tryAcquire(timeout, unit)) {
+      return false;
+    }
+    enqueue(new Add(-1, item));
+    return true;
+  }
+
+  public boolean offerAll(Collection<? extends ItemT> items) {
+    return offer(new AddAll(new ArrayList<ItemT>(items)));
+  }
+
+  private void put(Command command) throws InterruptedException {
+    myPermits.acquire();
+    enqueue(command);
+  }
+
+  private boolean offer(Command command) {
+    if (!myPermits.tryAcquire()) {
+      return false;
+    }
+    enqueue(command);
+    return true;
+  }
+
+  private void enqueue(Command command) {
+    myQueue.add(command);
+    scheduleDrain();
+  }
+
+  private void scheduleDrain() {
+    if (myDrainScheduled.compareAndSet(false, true)) {
+      try {
+        myEdt.schedule(myDrain);
+      } catch (RuntimeException e) {
+        myDrainScheduled.set(false);
+        throw e;
+      }
+    }
+  }
+
+  private void drain() {
+    //a modification enqueued after this point schedules the next drain
+    myDrainScheduled.set(false);
+
+    List<Command> batch = new ArrayList<>();
+    int clearIndex = -1;
+    for (Command command = myQueue.poll(); command != null; command = myQueue.poll()) {
+      if (command.clears()) {
+        clearIndex = batch.size();
+      }
+      batch.add(command);
+      if (batch.size() == myBatchSize) {
+        break;
+      }
+    }
+    if (!myQueue.isEmpty()) {
+      scheduleDrain();
+    }
+
+    try {
+      apply(clearIndex == -1 ? batch : batch.subList(clearIndex, batch.size()));
+    } finally {
+      myPermits.release(batch.size());
+    }
+  }
+
+  private void apply(List<Command> batch) {
+    List<ItemT> appended = new ArrayList<>();
+    for (Command command : batch) {
+      if (command.appendTo(appended)) {
+        continue;
+      }
+      appendAll(appended);
+      applySafely(command);
+    }
+    appendAll(appended);
+  }
+
+  private void appendAll(List<ItemT> items) {
+    if (items.isEmpty()) return;
+    if (items.size() == 1) {
+      append(items.get(0));
+      items.clear();
+      return;
+    }
+
+    int sizeBefore = myTarget.size();
+    try {
+      myTarget.addAll(items);
+    } catch (Throwable t) {
+      //the rest of the items are added one by one, so that a failed item doesn't drop them
+      int added = myTarget.size() - sizeBefore;
+      if (added >= items.size() || append(items.get(added))) {
+        ThrowableHandlers.handle(t);
+      }
+      for (int i = added + 1; i < items.size(); i++) {
+        append(items.get(i));
+      }
+    }
+    items.clear();
+  }
+
+  /**
+   * @return false if the item failed to be added
+   */
+  private boolean append(ItemT item) {
+    try {
+      myTarget.add(item);
+      return true;
+    } catch (Throwable t) {
+      ThrowableHandlers.handle(t);
+      return false;
+    }
+  }
+
+  private void applySafely(Command command) {
+    try {
+      command.apply();
+    } catch (Throwable t) {
+      ThrowableHandlers.handle(t);
+    }
+  }
+
+  private abstract class Command {
+    abstract void apply();
+
+    /**
+     * @return true if the command only appends items, and they are added to the list
+     */
+    boolean appendTo(List<ItemT> items) {
+      return false;
+    }
+
+    boolean clears() {
+      return false;
+    }
+  }
+
+  private final class Add extends Command {
+    private final int myIndex;
+    private final ItemT myItem;
+
+    Add(int index, ItemT item) {
+      myIndex = index;
+      myItem = item;
+    }
+
+    @Override
+    void apply() {
+      if (myIndex == -1) {
+        myTarget.add(myItem);
+      } else {
+        myTarget.add(myIndex, myItem);
+      }
+    }
+
+    @Override
+    boolean appendTo(List<ItemT> items) {
+      if (myIndex != -1) {
+        return false;
+      }
+      items.add(myItem);
+      return true;
+    }
+  }
+
+  private final class AddAll extends Command {
+    private final List<ItemT> myItems;
+
+    AddAll(List<ItemT> items) {
+      myItems = items;
+    }
+
+    @Override
+    void apply() {
+      myTarget.addAll(myItems);
+    }
+
+    @Override
+    boolean appendTo(List<ItemT> items) {
+      items.addAll(myItems);
+      return true;
+    }
+  }
+
+  private final class SetItem extends Command {
+    private final int myIndex;
+    private final ItemT myItem;
+
+    SetItem(int index, ItemT item) {
+      myIndex = index;
+      myItem = item;
+    }
+
+    @Override
+    void apply() {
+      myTarget.set(myIndex, myItem);
+    }
+  }
+
+  private final class RemoveAt extends Command {
+    private final int myIndex;
+
+    RemoveAt(int index) {
+      myIndex = index;
+    }
+
+    @Override
+    void apply() {
+      myTarget.remove(myIndex);
+    }
+  }
+
+  private final class RemoveItem extends Command {
+    private final Object myItem;
+
+    RemoveItem(Object item) {
+      myItem = item;
+    }
+
+    @Override
+    void apply() {
+      myTarget.remove(myItem);
+    }
+  }
+
+  private final class Clear extends Command {
+    @Override
+    void apply() {
+      myTarget.clear();
+    }
+
+    @Override
+    boolean clears() {
+      return true;
+    }
+  }
+}
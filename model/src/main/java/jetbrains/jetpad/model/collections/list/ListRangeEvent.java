@@ -0,0 +1,129 @@
+/*
+ * Copyright 2012-2017 JetBrains s.r.o
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jetbrains.jetpad.model.collections.list;
+
+import jetbrains.jetpad.model.collections.CollectionItemEvent;
+import jetbrains.jetpad.model.collections.CollectionItemEvent.EventType;
+import jetbrains.jetpad.model.collections.CollectionListener;
+import jetbrains.jetpad.model.event.ListenerDispatcher;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Addition or removal of a contiguous range of items of an {@link ObservableList}.
+ * Items are listed in the order in which they are (or were) placed in the list starting from {@link #getIndex()}.
+ */
+public class ListRangeEvent<ItemT> {
+  private static final ListenerDispatcher<CollectionListener<Object>, ListRangeEvent<Object>> DISPATCHER =
+      new ListenerDispatcher<CollectionListener<Object>, ListRangeEvent<Object>>() {
+        @Override
+        public void dispatch(CollectionListener<Object> l, ListRangeEvent<Object> event) {
+          if (l instanceof ListRangeListener) {
+            event.dispatch((ListRangeListener<Object>) l);
+          } else {
+            event.dispatchItems(l);
+          }
+        }
+      };
+
+  /**
+   * Stateless dispatcher which delivers range events to {@link ListRangeListener}s and replays them
+   * item by item for other listeners
+   */
+  @SuppressWarnings("unchecked")
+  public static <ItemT> ListenerDispatcher<CollectionListener<? super ItemT>, ListRangeEvent<ItemT>> dispatcher() {
+    return (ListenerDispatcher<CollectionListener<? super ItemT>, ListRangeEvent<ItemT>>)
+        (ListenerDispatcher<?, ?>) DISPATCHER;
+  }
+
+  private final List<ItemT> myItems;
+  private final int myIndex;
+  private final EventType myType;
+
+  public ListRangeEvent(List<ItemT> items, int index, EventType type) {
+    if (EventType.SET == type) {
+      throw new IllegalArgumentException();
+    }
+    myItems = Collections.unmodifiableList(items);
+    myIndex = index;
+    myType = type;
+  }
+
+  public List<ItemT> getItems() {
+    return myItems;
+  }
+
+  public int getIndex() {
+    return myIndex;
+  }
+
+  public int size() {
+    return myItems.size();
+  }
+
+  public EventType getType() {
+    return myType;
+  }
+
+  public void dispatch(ListRangeListener<? super ItemT> l) {
+    if (EventType.ADD == myType) {
+      l.onItemsAdded(this);
+    } else {
+      l.onItemsRemoved(this);
+    }
+  }
+
+  /**
+   * Replays the event as a sequence of single item events. Removals are replayed from the end of the range,
+   * so every event index is valid for a listener which applies the events one by one.
+   */
+  public void dispatchItems(CollectionListener<? super ItemT> l) {
+    if (EventType.ADD == myType) {
+      for (int i = 0; i < myItems.size(); i++) {
+        l.onItemAdded(new CollectionItemEvent<>(null, myItems.get(i), myIndex + i, EventType.ADD));
+      }
+    } else {
+      for (int i = myItems.size() - 1; i >= 0; i--) {
+        l.onItemRemoved(new CollectionItemEvent<>(myItems.get(i), null, myIndex + i, EventType.REMOVE));
+      }
+    }
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (o == null || getClass() != o.getClass()) return false;
+    ListRangeEvent<?> that = (ListRangeEvent<?>) o;
+
+    return myItems.equals(that.myItems) && Objects.equals(myType, that.myType) && myIndex == that.myIndex;
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(myItems, myType, myIndex);
+  }
+
+  @Override
+  public String toString() {
+    if (EventType.ADD == myType) {
+      return myItems + " added at " + myIndex;
+    } else {
+      return myItems + " removed at " + myIndex;
+    }
+  }
+}
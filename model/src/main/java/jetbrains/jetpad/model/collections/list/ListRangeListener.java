@@ -0,0 +1,28 @@
+/*
+ * Copyright 2012-2017 JetBrains s.r.o
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jetbrains.jetpad.model.collections.list;
+
+import jetbrains.jetpad.model.collections.CollectionListener;
+
+/**
+ * Listener which can handle bulk modifications of an {@link ObservableList} in one call.
+ * {@link AbstractObservableList} fires range events only when all its listeners implement this interface,
+ * otherwise bulk operations are performed and reported item by item.
+ */
+public interface ListRangeListener<ItemT> extends CollectionListener<ItemT> {
+  void onItemsAdded(ListRangeEvent<? extends ItemT> event);
+  void onItemsRemoved(ListRangeEvent<? extends ItemT> event);
+}
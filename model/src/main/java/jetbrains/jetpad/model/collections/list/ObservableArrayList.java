@@ -15,48 +15,102 @@
  */
 package jetbrains.jetpad.model.collections.list;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
 
+/**
+ * Observable list which keeps a single item in its own field and moves the items to an array when it grows beyond
+ * that. Most of the lists in a model are empty or have one item, so they don't allocate a container, and an empty
+ * list isn't larger than one which allocates its container lazily.
+ */
 public class ObservableArrayList<ItemT> extends AbstractObservableList<ItemT> {
-  private List<ItemT> myContainer;
+  //null if the list is empty, the only item of the list, or Items if there are more of them or the item is null
+  private Object myData;
 
   @Override
   public ItemT get(int index) {
-    if (myContainer == null) {
+    if (index < 0 || index >= size()) {
       throw new ArrayIndexOutOfBoundsException(index);
     }
 
-    return myContainer.get(index);
+    Object item = myData instanceof Items ? ((Items) myData).myArray[index] : myData;
+    @SuppressWarnings("unchecked")
+    ItemT result = (ItemT) item;
+    return result;
   }
 
   @Override
   public int size() {
-    return myContainer == null ? 0 : myContainer.size();
+    if (myData == null) {
+      return 0;
+    }
+    return myData instanceof Items ? ((Items) myData).mySize : 1;
   }
 
   @Override
   protected void doAdd(int index, ItemT item) {
-    ensureContainerInitialized();
-    myContainer.add(index, item);
+    if (myData == null && item != null) {
+      myData = item;
+    } else {
+      items().add(index, item);
+    }
   }
 
   @Override
   protected void doSet(int index, ItemT item) {
-    myContainer.set(index, item);
+    if (myData instanceof Items) {
+      ((Items) myData).myArray[index] = item;
+    } else if (item != null) {
+      myData = item;
+    } else {
+      myData = null;
+      items().add(0, null);
+    }
   }
 
   @Override
   protected void doRemove(int index) {
-    myContainer.remove(index);
-    if (myContainer.isEmpty()) {
-      myContainer = null;
+    if (!(myData instanceof Items)) {
+      myData = null;
+      return;
+    }
+
+    Items items = (Items) myData;
+    items.remove(index);
+    if (items.mySize == 0) {
+      myData = null;
+    }
+  }
+
+  private Items items() {
+    if (myData instanceof Items) {
+      return (Items) myData;
+    }
+
+    Items items = new Items();
+    if (myData != null) {
+      items.add(0, myData);
     }
+    myData = items;
+    return items;
   }
 
-  private void ensureContainerInitialized() {
-    if (myContainer == null) {
-      myContainer = new ArrayList<>(1);
+  private static final class Items {
+    private Object[] myArray = new Object[2];
+    private int mySize;
+
+    private void add(int index, Object item) {
+      if (mySize == myArray.length) {
+        myArray = Arrays.copyOf(myArray, mySize + (mySize >> 1));
+      }
+      System.arraycopy(myArray, index, myArray, index + 1, mySize - index);
+      myArray[index] = item;
+      mySize++;
+    }
+
+    private void remove(int index) {
+      mySize--;
+      System.arraycopy(myArray, index + 1, myArray, index, mySize - index);
+      myArray[mySize] = null;
     }
   }
-}
\ No newline at end of file
+}
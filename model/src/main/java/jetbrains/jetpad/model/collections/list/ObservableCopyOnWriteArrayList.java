@@ -0,0 +1,92 @@
+/*
+ * Copyright 2012-2017 JetBrains s.r.o
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jetbrains.jetpad.model.collections.list;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Array based observable list which gives out immutable snapshots of its items in O(1).
+ * A snapshot keeps the current array and the list copies the array on its next modification, so that
+ * the snapshot doesn't change and can be read from other threads once it's passed to them.
+ */
+public class ObservableCopyOnWriteArrayList<ItemT> extends AbstractObservableList<ItemT> {
+  private static final Object[] EMPTY = new Object[0];
+
+  private Object[] myItems = EMPTY;
+  private int mySize;
+  //the last snapshot if it shares myItems with this list
+  private List<ItemT> mySnapshot;
+
+  @Override
+  public ItemT get(int index) {
+    if (index < 0 || index >= mySize) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + mySize);
+    }
+    @SuppressWarnings("unchecked")
+    ItemT item = (ItemT) myItems[index];
+    return item;
+  }
+
+  @Override
+  public int size() {
+    return mySize;
+  }
+
+  public List<ItemT> snapshot() {
+    if (mySnapshot == null) {
+      if (mySize == 0) {
+        mySnapshot = Collections.emptyList();
+      } else {
+        @SuppressWarnings("unchecked")
+        List<ItemT> items = (List<ItemT>) Arrays.asList(myItems).subList(0, mySize);
+        mySnapshot = Collections.unmodifiableList(items);
+      }
+    }
+    return mySnapshot;
+  }
+
+  @Override
+  protected void doAdd(int index, ItemT item) {
+    prepareForWrite(mySize + 1);
+    System.arraycopy(myItems, index, myItems, index + 1, mySize - index);
+    myItems[index] = item;
+    mySize++;
+  }
+
+  @Override
+  protected void doSet(int index, ItemT item) {
+    prepareForWrite(mySize);
+    myItems[index] = item;
+  }
+
+  @Override
+  protected void doRemove(int index) {
+    prepareForWrite(mySize);
+    System.arraycopy(myItems, index + 1, myItems, index, mySize - index - 1);
+    myItems[--mySize] = null;
+  }
+
+  private void prepareForWrite(int capacity) {
+    if (capacity > myItems.length) {
+      myItems = Arrays.copyOf(myItems, Math.max(capacity, Math.max(4, myItems.length + (myItems.length >> 1))));
+    } else if (mySnapshot != null) {
+      myItems = Arrays.copyOf(myItems, myItems.length);
+    }
+    mySnapshot = null;
+  }
+}
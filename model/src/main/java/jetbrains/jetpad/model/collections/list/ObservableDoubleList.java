@@ -0,0 +1,266 @@
+/*
+ * Copyright 2012-2017 JetBrains s.r.o
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jetbrains.jetpad.model.collections.list;
+
+import jetbrains.jetpad.model.collections.CollectionItemEvent.EventType;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Observable list of double values backed by an array.
+ * Changes are reported to {@link DoubleListListener}s without boxing and without event objects.
+ * {@link #asList()} is a boxing view for the code which works with {@link ObservableList}s.
+ */
+public class ObservableDoubleList
+    extends AbstractPrimitiveList<Double, DoubleListListener, ObservableDoubleList.DoubleChange> {
+  private static final double[] EMPTY = new double[0];
+
+  private double[] myValues = EMPTY;
+
+  public double get(int index) {
+    checkIndex(index);
+    return myValues[index];
+  }
+
+  public double set(int index, double value) {
+    checkIndex(index);
+    double oldValue = myValues[index];
+    myValues[index] = value;
+    if (hasListeners()) {
+      fire(DoubleChange.SET, index, oldValue, value, null);
+    }
+    return oldValue;
+  }
+
+  public void add(double value) {
+    add(mySize, value);
+  }
+
+  public void add(int index, double value) {
+    checkIndexForAdd(index);
+    ensureCapacity(mySize + 1);
+    System.arraycopy(myValues, index, myValues, index + 1, mySize - index);
+    myValues[index] = value;
+    mySize++;
+    if (hasListeners()) {
+      fire(DoubleChange.ADD, index, 0, value, null);
+    }
+  }
+
+  public void addAll(double[] values) {
+    addAll(mySize, values);
+  }
+
+  /**
+   * Adds the values with a single range event. The array is passed to the listeners, so it must not be modified
+   * by them. If the view returned by {@link #asList()} has listeners which don't handle ranges, the values are
+   * added one by one.
+   */
+  public void addAll(int index, double[] values) {
+    checkIndexForAdd(index);
+    if (values.length == 0) return;
+    if (!canFireRangeEvents()) {
+      for (int i = 0; i < values.length; i++) {
+        add(index + i, values[i]);
+      }
+      return;
+    }
+    ensureCapacity(mySize + values.length);
+    System.arraycopy(myValues, index, myValues, index + values.length, mySize - index);
+    System.arraycopy(values, 0, myValues, index, values.length);
+    mySize += values.length;
+    if (hasListeners()) {
+      fire(DoubleChange.RANGE_ADD, index, 0, 0, values);
+    }
+  }
+
+  public double remove(int index) {
+    checkIndex(index);
+    double oldValue = myValues[index];
+    System.arraycopy(myValues, index + 1, myValues, index, mySize - index - 1);
+    mySize--;
+    if (hasListeners()) {
+      fire(DoubleChange.REMOVE, index, oldValue, 0, null);
+    }
+    return oldValue;
+  }
+
+  @Override
+  public void removeRange(int fromIndex, int toIndex) {
+    checkRange(fromIndex, toIndex);
+    if (fromIndex == toIndex) return;
+    if (!canFireRangeEvents()) {
+      for (int i = toIndex - 1; i >= fromIndex; i--) {
+        remove(i);
+      }
+      return;
+    }
+    double[] removed = hasListeners() ? Arrays.copyOfRange(myValues, fromIndex, toIndex) : null;
+    System.arraycopy(myValues, toIndex, myValues, fromIndex, mySize - toIndex);
+    mySize -= toIndex - fromIndex;
+    if (removed != null) {
+      fire(DoubleChange.RANGE_REMOVE, fromIndex, 0, 0, removed);
+    }
+  }
+
+  public int indexOf(double value) {
+    for (int i = 0; i < mySize; i++) {
+      if (myValues[i] == value) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  public boolean contains(double value) {
+    return indexOf(value) != -1;
+  }
+
+  public double[] toArray() {
+    return Arrays.copyOf(myValues, mySize);
+  }
+
+  @Override
+  public String toString() {
+    return Arrays.toString(toArray());
+  }
+
+  @Override
+  Double getBoxed(int index) {
+    return get(index);
+  }
+
+  @Override
+  Double setBoxed(int index, Double value) {
+    return set(index, value);
+  }
+
+  @Override
+  void addBoxed(int index, Double value) {
+    add(index, value);
+  }
+
+  @Override
+  void addAllBoxed(int index, Collection<? extends Double> values) {
+    double[] array = new double[values.size()];
+    int i = 0;
+    for (Double value : values) {
+      array[i++] = value;
+    }
+    addAll(index, array);
+  }
+
+  @Override
+  Double removeBoxed(int index) {
+    return remove(index);
+  }
+
+  @Override
+  DoubleListListener newRelay(final BoxedView view) {
+    return new DoubleListListener() {
+      @Override
+      public void onAdded(int index, double value) {
+        view.fireItem(null, (Double) value, index, EventType.ADD);
+      }
+
+      @Override
+      public void onSet(int index, double oldValue, double newValue) {
+        view.fireItem((Double) oldValue, (Double) newValue, index, EventType.SET);
+      }
+
+      @Override
+      public void onRemoved(int index, double value) {
+        view.fireItem((Double) value, null, index, EventType.REMOVE);
+      }
+
+      @Override
+      public void onRangeAdded(int index, double[] values) {
+        view.fireRange(box(values), index, EventType.ADD);
+      }
+
+      @Override
+      public void onRangeRemoved(int index, double[] values) {
+        view.fireRange(box(values), index, EventType.REMOVE);
+      }
+    };
+  }
+
+  @Override
+  DoubleChange newChange() {
+    return new DoubleChange();
+  }
+
+  private void fire(int type, int index, double oldValue, double newValue, double[] values) {
+    DoubleChange change = obtainChange();
+    change.myType = type;
+    change.myIndex = index;
+    change.myOldValue = oldValue;
+    change.myNewValue = newValue;
+    change.myValues = values;
+    fire(change);
+  }
+
+  private void ensureCapacity(int capacity) {
+    if (capacity > myValues.length) {
+      myValues = Arrays.copyOf(myValues, newCapacity(myValues.length, capacity));
+    }
+  }
+
+  private static List<Double> box(double[] values) {
+    List<Double> result = new ArrayList<>(values.length);
+    for (double value : values) {
+      result.add(value);
+    }
+    return result;
+  }
+
+  static final class DoubleChange extends Change<DoubleListListener> {
+    private double myOldValue;
+    private double myNewValue;
+    private double[] myValues;
+
+    @Override
+    void dispatch(DoubleListListener l) {
+      switch (myType) {
+        case ADD:
+          l.onAdded(myIndex, myNewValue);
+          break;
+        case SET:
+          l.onSet(myIndex, myOldValue, myNewValue);
+          break;
+        case REMOVE:
+          l.onRemoved(myIndex, myOldValue);
+          break;
+        case RANGE_ADD:
+          l.onRangeAdded(myIndex, myValues);
+          break;
+        case RANGE_REMOVE:
+          l.onRangeRemoved(myIndex, myValues);
+          break;
+        default:
+          throw new IllegalStateException();
+      }
+    }
+
+    @Override
+    void release() {
+      myValues = null;
+    }
+  }
+}
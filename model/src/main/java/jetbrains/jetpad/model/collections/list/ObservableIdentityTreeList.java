@@ -0,0 +1,46 @@
+/*
+ * Copyright 2012-2017 JetBrains s.r.o
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jetbrains.jetpad.model.collections.list;
+
+/**
+ * Tree list which finds its items in O(log n): {@link #indexOf}, {@link #contains} and {@link #remove(Object)}
+ * don't iterate over the list. Items are compared by identity and an item can't be added twice.
+ */
+public class ObservableIdentityTreeList<ItemT> extends ObservableTreeList<ItemT> {
+  public ObservableIdentityTreeList() {
+    super(true);
+  }
+
+  @Override
+  protected void checkAdd(int index, ItemT item) {
+    super.checkAdd(index, item);
+    checkNotContains(item);
+  }
+
+  @Override
+  protected void checkSet(int index, ItemT oldItem, ItemT newItem) {
+    super.checkSet(index, oldItem, newItem);
+    if (oldItem != newItem) {
+      checkNotContains(newItem);
+    }
+  }
+
+  private void checkNotContains(ItemT item) {
+    if (contains(item)) {
+      throw new IllegalArgumentException("Item is already in the list: " + item);
+    }
+  }
+}
@@ -0,0 +1,266 @@
+/*
+ * Copyright 2012-2017 JetBrains s.r.o
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jetbrains.jetpad.model.collections.list;
+
+import jetbrains.jetpad.model.collections.CollectionItemEvent.EventType;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Observable list of int values backed by an array.
+ * Changes are reported to {@link IntListListener}s without boxing and without event objects.
+ * {@link #asList()} is a boxing view for the code which works with {@link ObservableList}s.
+ */
+public class ObservableIntList
+    extends AbstractPrimitiveList<Integer, IntListListener, ObservableIntList.IntChange> {
+  private static final int[] EMPTY = new int[0];
+
+  private int[] myValues = EMPTY;
+
+  public int get(int index) {
+    checkIndex(index);
+    return myValues[index];
+  }
+
+  public int set(int index, int value) {
+    checkIndex(index);
+    int oldValue = myValues[index];
+    myValues[index] = value;
+    if (hasListeners()) {
+      fire(IntChange.SET, index, oldValue, value, null);
+    }
+    return oldValue;
+  }
+
+  public void add(int value) {
+    add(mySize, value);
+  }
+
+  public void add(int index, int value) {
+    checkIndexForAdd(index);
+    ensureCapacity(mySize + 1);
+    System.arraycopy(myValues, index, myValues, index + 1, mySize - index);
+    myValues[index] = value;
+    mySize++;
+    if (hasListeners()) {
+      fire(IntChange.ADD, index, 0, value, null);
+    }
+  }
+
+  public void addAll(int[] values) {
+    addAll(mySize, values);
+  }
+
+  /**
+   * Adds the values with a single range event. The array is passed to the listeners, so it must not be modified
+   * by them. If the view returned by {@link #asList()} has listeners which don't handle ranges, the values are
+   * added one by one.
+   */
+  public void addAll(int index, int[] values) {
+    checkIndexForAdd(index);
+    if (values.length == 0) return;
+    if (!canFireRangeEvents()) {
+      for (int i = 0; i < values.length; i++) {
+        add(index + i, values[i]);
+      }
+      return;
+    }
+    ensureCapacity(mySize + values.length);
+    System.arraycopy(myValues, index, myValues, index + values.length, mySize - index);
+    System.arraycopy(values, 0, myValues, index, values.length);
+    mySize += values.length;
+    if (hasListeners()) {
+      fire(IntChange.RANGE_ADD, index, 0, 0, values);
+    }
+  }
+
+  public int remove(int index) {
+    checkIndex(index);
+    int oldValue = myValues[index];
+    System.arraycopy(myValues, index + 1, myValues, index, mySize - index - 1);
+    mySize--;
+    if (hasListeners()) {
+      fire(IntChange.REMOVE, index, oldValue, 0, null);
+    }
+    return oldValue;
+  }
+
+  @Override
+  public void removeRange(int fromIndex, int toIndex) {
+    checkRange(fromIndex, toIndex);
+    if (fromIndex == toIndex) return;
+    if (!canFireRangeEvents()) {
+      for (int i = toIndex - 1; i >= fromIndex; i--) {
+        remove(i);
+      }
+      return;
+    }
+    int[] removed = hasListeners() ? Arrays.copyOfRange(myValues, fromIndex, toIndex) : null;
+    System.arraycopy(myValues, toIndex, myValues, fromIndex, mySize - toIndex);
+    mySize -= toIndex - fromIndex;
+    if (removed != null) {
+      fire(IntChange.RANGE_REMOVE, fromIndex, 0, 0, removed);
+    }
+  }
+
+  public int indexOf(int value) {
+    for (int i = 0; i < mySize; i++) {
+      if (myValues[i] == value) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  public boolean contains(int value) {
+    return indexOf(value) != -1;
+  }
+
+  public int[] toArray() {
+    return Arrays.copyOf(myValues, mySize);
+  }
+
+  @Override
+  public String toString() {
+    return Arrays.toString(toArray());
+  }
+
+  @Override
+  Integer getBoxed(int index) {
+    return get(index);
+  }
+
+  @Override
+  Integer setBoxed(int index, Integer value) {
+    return set(index, value);
+  }
+
+  @Override
+  void addBoxed(int index, Integer value) {
+    add(index, value);
+  }
+
+  @Override
+  void addAllBoxed(int index, Collection<? extends Integer> values) {
+    int[] array = new int[values.size()];
+    int i = 0;
+    for (Integer value : values) {
+      array[i++] = value;
+    }
+    addAll(index, array);
+  }
+
+  @Override
+  Integer removeBoxed(int index) {
+    return remove(index);
+  }
+
+  @Override
+  IntListListener newRelay(final BoxedView view) {
+    return new IntListListener() {
+      @Override
+      public void onAdded(int index, int value) {
+        view.fireItem(null, (Integer) value, index, EventType.ADD);
+      }
+
+      @Override
+      public void onSet(int index, int oldValue, int newValue) {
+        view.fireItem((Integer) oldValue, (Integer) newValue, index, EventType.SET);
+      }
+
+      @Override
+      public void onRemoved(int index, int value) {
+        view.fireItem((Integer) value, null, index, EventType.REMOVE);
+      }
+
+      @Override
+      public void onRangeAdded(int index, int[] values) {
+        view.fireRange(box(values), index, EventType.ADD);
+      }
+
+      @Override
+      public void onRangeRemoved(int index, int[] values) {
+        view.fireRange(box(values), index, EventType.REMOVE);
+      }
+    };
+  }
+
+  @Override
+  IntChange newChange() {
+    return new IntChange();
+  }
+
+  private void fire(int type, int index, int oldValue, int newValue, int[] values) {
+    IntChange change = obtainChange();
+    change.myType = type;
+    change.myIndex = index;
+    change.myOldValue = oldValue;
+    change.myNewValue = newValue;
+    change.myValues = values;
+    fire(change);
+  }
+
+  private void ensureCapacity(int capacity) {
+    if (capacity > myValues.length) {
+      myValues = Arrays.copyOf(myValues, newCapacity(myValues.length, capacity));
+    }
+  }
+
+  private static List<Integer> box(int[] values) {
+    List<Integer> result = new ArrayList<>(values.length);
+    for (int value : values) {
+      result.add(value);
+    }
+    return result;
+  }
+
+  static final class IntChange extends Change<IntListListener> {
+    private int myOldValue;
+    private int myNewValue;
+    private int[] myValues;
+
+    @Override
+    void dispatch(IntListListener l) {
+      switch (myType) {
+        case ADD:
+          l.onAdded(myIndex, myNewValue);
+          break;
+        case SET:
+          l.onSet(myIndex, myOldValue, myNewValue);
+          break;
+        case REMOVE:
+          l.onRemoved(myIndex, myOldValue);
+          break;
+        case RANGE_ADD:
+          l.onRangeAdded(myIndex, myValues);
+          break;
+        case RANGE_REMOVE:
+          l.onRangeRemoved(myIndex, myValues);
+          break;
+        default:
+          throw new IllegalStateException();
+      }
+    }
+
+    @Override
+    void release() {
+      myValues = null;
+    }
+  }
+}
@@ -0,0 +1,266 @@
+/*
+ * Copyright 2012-2017 JetBrains s.r.o
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jetbrains.jetpad.model.collections.list;
+
+import jetbrains.jetpad.model.collections.CollectionItemEvent.EventType;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Observable list of long values backed by an array.
+ * Changes are reported to {@link LongListListener}s without boxing and without event objects.
+ * {@link #asList()} is a boxing view for the code which works with {@link ObservableList}s.
+ */
+public class ObservableLongList
+    extends AbstractPrimitiveList<Long, LongListListener, ObservableLongList.LongChange> {
+  private static final long[] EMPTY = new long[0];
+
+  private long[] myValues = EMPTY;
+
+  public long get(int index) {
+    checkIndex(index);
+    return myValues[index];
+  }
+
+  public long set(int index, long value) {
+    checkIndex(index);
+    long oldValue = myValues[index];
+    myValues[index] = value;
+    if (hasListeners()) {
+      fire(LongChange.SET, index, oldValue, value, null);
+    }
+    return oldValue;
+  }
+
+  public void add(long value) {
+    add(mySize, value);
+  }
+
+  public void add(int index, long value) {
+    checkIndexForAdd(index);
+    ensureCapacity(mySize + 1);
+    System.arraycopy(myValues, index, myValues, index + 1, mySize - index);
+    myValues[index] = value;
+    mySize++;
+    if (hasListeners()) {
+      fire(LongChange.ADD, index, 0, value, null);
+    }
+  }
+
+  public void addAll(long[] values) {
+    addAll(mySize, values);
+  }
+
+  /**
+   * Adds the values with a single range event. The array is passed to the listeners, so it must not be modified
+   * by them. If the view returned by {@link #asList()} has listeners which don't handle ranges, the values are
+   * added one by one.
+   */
+  public void addAll(int index, long[] values) {
+    checkIndexForAdd(index);
+    if (values.length == 0) return;
+    if (!canFireRangeEvents()) {
+      for (int i = 0; i < values.length; i++) {
+        add(index + i, values[i]);
+      }
+      return;
+    }
+    ensureCapacity(mySize + values.length);
+    System.arraycopy(myValues, index, myValues, index + values.length, mySize - index);
+    System.arraycopy(values, 0, myValues, index, values.length);
+    mySize += values.length;
+    if (hasListeners()) {
+      fire(LongChange.RANGE_ADD, index, 0, 0, values);
+    }
+  }
+
+  public long remove(int index) {
+    checkIndex(index);
+    long oldValue = myValues[index];
+    System.arraycopy(myValues, index + 1, myValues, index, mySize - index - 1);
+    mySize--;
+    if (hasListeners()) {
+      fire(LongChange.REMOVE, index, oldValue, 0, null);
+    }
+    return oldValue;
+  }
+
+  @Override
+  public void removeRange(int fromIndex, int toIndex) {
+    checkRange(fromIndex, toIndex);
+    if (fromIndex == toIndex) return;
+    if (!canFireRangeEvents()) {
+      for (int i = toIndex - 1; i >= fromIndex; i--) {
+        remove(i);
+      }
+      return;
+    }
+    long[] removed = hasListeners() ? Arrays.copyOfRange(myValues, fromIndex, toIndex) : null;
+    System.arraycopy(myValues, toIndex, myValues, fromIndex, mySize - toIndex);
+    mySize -= toIndex - fromIndex;
+    if (removed != null) {
+      fire(LongChange.RANGE_REMOVE, fromIndex, 0, 0, removed);
+    }
+  }
+
+  public int indexOf(long value) {
+    for (int i = 0; i < mySize; i++) {
+      if (myValues[i] == value) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  public boolean contains(long value) {
+    return indexOf(value) != -1;
+  }
+
+  public long[] toArray() {
+    return Arrays.copyOf(myValues, mySize);
+  }
+
+  @Override
+  public String toString() {
+    return Arrays.toString(toArray());
+  }
+
+  @Override
+  Long getBoxed(int index) {
+    return get(index);
+  }
+
+  @Override
+  Long setBoxed(int index, Long value) {
+    return set(index, value);
+  }
+
+  @Override
+  void addBoxed(int index, Long value) {
+    add(index, value);
+  }
+
+  @Override
+  void addAllBoxed(int index, Collection<? extends Long> values) {
+    long[] array = new long[values.size()];
+    int i = 0;
+    for (Long value : values) {
+      array[i++] = value;
+    }
+    addAll(index, array);
+  }
+
+  @Override
+  Long removeBoxed(int index) {
+    return remove(index);
+  }
+
+  @Override
+  LongListListener newRelay(final BoxedView view) {
+    return new LongListListener() {
+      @Override
+      public void onAdded(int index, long value) {
+        view.fireItem(null, (Long) value, index, EventType.ADD);
+      }
+
+      @Override
+      public void onSet(int index, long oldValue, long newValue) {
+        view.fireItem((Long) oldValue, (Long) newValue, index, EventType.SET);
+      }
+
+      @Override
+      public void onRemoved(int index, long value) {
+        view.fireItem((Long) value, null, index, EventType.REMOVE);
+      }
+
+      @Override
+      public void onRangeAdded(int index, long[] values) {
+        view.fireRange(box(values), index, EventType.ADD);
+      }
+
+      @Override
+      public void onRangeRemoved(int index, long[] values) {
+        view.fireRange(box(values), index, EventType.REMOVE);
+      }
+    };
+  }
+
+  @Override
+  LongChange newChange() {
+    return new LongChange();
+  }
+
+  private void fire(int type, int index, long oldValue, long newValue, long[] values) {
+    LongChange change = obtainChange();
+    change.myType = type;
+    change.myIndex = index;
+    change.myOldValue = oldValue;
+    change.myNewValue = newValue;
+    change.myValues = values;
+    fire(change);
+  }
+
+  private void ensureCapacity(int capacity) {
+    if (capacity > myValues.length) {
+      myValues = Arrays.copyOf(myValues, newCapacity(myValues.length, capacity));
+    }
+  }
+
+  private static List<Long> box(long[] values) {
+    List<Long> result = new ArrayList<>(values.length);
+    for (long value : values) {
+      result.add(value);
+    }
+    return result;
+  }
+
+  static final class LongChange extends Change<LongListListener> {
+    private long myOldValue;
+    private long myNewValue;
+    private long[] myValues;
+
+    @Override
+    void dispatch(LongListListener l) {
+      switch (myType) {
+        case ADD:
+          l.onAdded(myIndex, myNewValue);
+          break;
+        case SET:
+          l.onSet(myIndex, myOldValue, myNewValue);
+          break;
+        case REMOVE:
+          l.onRemoved(myIndex, myOldValue);
+          break;
+        case RANGE_ADD:
+          l.onRangeAdded(myIndex, myValues);
+          break;
+        case RANGE_REMOVE:
+          l.onRangeRemoved(myIndex, myValues);
+          break;
+        default:
+          throw new IllegalStateException();
+      }
+    }
+
+    @Override
+    void release() {
+      myValues = null;
+    }
+  }
+}
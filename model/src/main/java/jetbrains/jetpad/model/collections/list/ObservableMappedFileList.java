@@ -0,0 +1,193 @@
+/*
+ * Copyright 2012-2017 JetBrains s.r.o
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jetbrains.jetpad.model.collections.list;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Observable list of fixed size records stored in a memory mapped file, for data sets which don't fit in the heap.
+ *
+ * The file is mapped by segments of about {@link #SEGMENT_BYTES} bytes when they are accessed. Items are decoded
+ * by a {@link RecordCodec} on access, and the recently accessed ones are kept in a small LRU cache.
+ *
+ * The list can be appended to, its items can be replaced, and the last item can be removed, all of which fire
+ * the usual events. Insertions and removals in the middle would require moving the records, so they aren't
+ * supported. An existing file is opened with as many items as there are whole records in it.
+ * The file grows by segments while the list is open and is truncated to the records on {@link #close()}.
+ */
+public class ObservableMappedFileList<ItemT> extends AbstractObservableList<ItemT> implements Closeable {
+  static final int SEGMENT_BYTES = 1 << 24;
+
+  public static <ItemT> ObservableMappedFileList<ItemT> open(File file, RecordCodec<ItemT> codec, int cacheSize)
+      throws IOException {
+    FileChannel channel = FileChannel.open(file.toPath(),
+        StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.CREATE);
+    return new ObservableMappedFileList<>(channel, codec, cacheSize);
+  }
+
+  private final FileChannel myChannel;
+  private final RecordCodec<ItemT> myCodec;
+  private final int myRecordSize;
+  private final int myRecordsPerSegment;
+  private final List<MappedByteBuffer> mySegments = new ArrayList<>();
+  private final Map<Integer, ItemT> myCache;
+  private int mySize;
+
+  /**
+   * @param channel readable and writable channel which is closed with the list
+   */
+  public ObservableMappedFileList(FileChannel channel, RecordCodec<ItemT> codec, final int cacheSize)
+      throws IOException {
+    myChannel = channel;
+    myCodec = codec;
+    myRecordSize = codec.recordSize();
+    if (myRecordSize <= 0) {
+      throw new IllegalArgumentException("Record size: " + myRecordSize);
+    }
+    myRecordsPerSegment = Math.max(1, SEGMENT_BYTES / myRecordSize);
+    long records = channel.size() / myRecordSize;
+    if (records > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("Too many records: " + records);
+    }
+    mySize = (int) records;
+    myCache = new LinkedHashMap<Integer, ItemT>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Integer, ItemT> eldest) {
+        return size() > cacheSize;
+      }
+    };
+  }
+
+  @Override
+  public ItemT get(int index) {
+    if (index < 0 || index >= mySize) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + mySize);
+    }
+    ItemT item = myCache.get(index);
+    if (item == null) {
+      item = myCodec.decode(record(index));
+      myCache.put(index, item);
+    }
+    return item;
+  }
+
+  @Override
+  public int size() {
+    return mySize;
+  }
+
+  /**
+   * Writes the changes to the storage device
+   */
+  public void force() {
+    for (MappedByteBuffer segment : mySegments) {
+      if (segment != null) {
+        segment.force();
+      }
+    }
+  }
+
+  /**
+   * Truncates the file to the records and closes it. The list can't be used after that.
+   */
+  @Override
+  public void close() throws IOException {
+    force();
+    mySegments.clear();
+    myCache.clear();
+    try {
+      myChannel.truncate((long) mySize * myRecordSize);
+    } finally {
+      myChannel.close();
+    }
+  }
+
+  @Override
+  protected void checkAdd(int index, ItemT item) {
+    super.checkAdd(index, item);
+    if (index != mySize) {
+      throw new UnsupportedOperationException("Items can only be appended: index=" + index + ", size=" + mySize);
+    }
+  }
+
+  @Override
+  protected void checkRemove(int index, ItemT item) {
+    super.checkRemove(index, item);
+    if (index != mySize - 1) {
+      throw new UnsupportedOperationException("Only the last item can be removed: index=" + index + ", size=" + mySize);
+    }
+  }
+
+  @Override
+  protected void doAdd(int index, ItemT item) {
+    myCodec.encode(item, record(index));
+    mySize++;
+    myCache.put(index, item);
+  }
+
+  @Override
+  protected void doSet(int index, ItemT item) {
+    myCodec.encode(item, record(index));
+    myCache.put(index, item);
+  }
+
+  @Override
+  protected void doRemove(int index) {
+    mySize--;
+    myCache.remove(index);
+  }
+
+  /**
+   * @return a buffer positioned at the record with exactly the record size remaining
+   */
+  private ByteBuffer record(int index) {
+    int segmentIndex = index / myRecordsPerSegment;
+    int offset = (index % myRecordsPerSegment) * myRecordSize;
+    //called through the base classes, since Java 9 adds covariant overrides which Java 7 and 8 don't have
+    ByteBuffer buffer = ((ByteBuffer) segment(segmentIndex)).duplicate();
+    ((Buffer) buffer).limit(offset + myRecordSize);
+    ((Buffer) buffer).position(offset);
+    return buffer;
+  }
+
+  private MappedByteBuffer segment(int index) {
+    while (mySegments.size() <= index) {
+      mySegments.add(null);
+    }
+    MappedByteBuffer segment = mySegments.get(index);
+    if (segment == null) {
+      long segmentSize = (long) myRecordsPerSegment * myRecordSize;
+      try {
+        segment = myChannel.map(FileChannel.MapMode.READ_WRITE, index * segmentSize, segmentSize);
+      } catch (IOException e) {
+        throw new IllegalStateException("Can't map segment " + index, e);
+      }
+      mySegments.set(index, segment);
+    }
+    return segment;
+  }
+}
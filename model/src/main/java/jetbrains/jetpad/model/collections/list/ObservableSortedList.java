@@ -0,0 +1,254 @@
+/*
+ * Copyright 2012-2017 JetBrains s.r.o
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jetbrains.jetpad.model.collections.list;
+
+import jetbrains.jetpad.base.Registration;
+import jetbrains.jetpad.base.function.Function;
+import jetbrains.jetpad.model.event.EventHandler;
+import jetbrains.jetpad.model.property.ReadableProperty;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tree list which keeps its items sorted. {@link #add(Object)} inserts an item at its position in O(log n)
+ * comparisons, and the positional modifications fail with {@link IllegalArgumentException} if they break the order.
+ * Equal items are kept in the order of addition.
+ *
+ * A list sorted by a key property, see {@link #byKey(Function)}, listens to the key properties of its items
+ * and moves an item when its key changes, which is reported as a removal followed by an addition. Such a list
+ * compares its items by identity, like {@link ObservableIdentityTreeList}, and finds them in O(log n).
+ */
+public class ObservableSortedList<ItemT> extends ObservableTreeList<ItemT> {
+  public static <ItemT, KeyT extends Comparable<? super KeyT>> ObservableSortedList<ItemT> byKey(
+      Function<? super ItemT, ? extends ReadableProperty<? extends KeyT>> key) {
+    return byKey(key, new Comparator<KeyT>() {
+      @Override
+      public int compare(KeyT k1, KeyT k2) {
+        return k1.compareTo(k2);
+      }
+    });
+  }
+
+  /**
+   * Null keys precede all the other keys
+   */
+  public static <ItemT, KeyT> ObservableSortedList<ItemT> byKey(
+      final Function<? super ItemT, ? extends ReadableProperty<? extends KeyT>> key,
+      final Comparator<? super KeyT> cmp) {
+    Comparator<ItemT> comparator = new Comparator<ItemT>() {
+      @Override
+      public int compare(ItemT i1, ItemT i2) {
+        KeyT k1 = key.apply(i1).get();
+        KeyT k2 = key.apply(i2).get();
+        if (k1 == null || k2 == null) {
+          return k1 == k2 ? 0 : (k1 == null ? -1 : 1);
+        }
+        return cmp.compare(k1, k2);
+      }
+    };
+    return new ObservableSortedList<>(comparator, key);
+  }
+
+  private final Comparator<? super ItemT> myComparator;
+  private final Function<? super ItemT, ? extends ReadableProperty<?>> myKey;
+  private Map<ItemT, Registration> myKeyRegistrations;
+  private ItemT myMovedItem;
+
+  public ObservableSortedList(Comparator<? super ItemT> comparator) {
+    this(comparator, null);
+  }
+
+  private ObservableSortedList(
+      Comparator<? super ItemT> comparator, Function<? super ItemT, ? extends ReadableProperty<?>> key) {
+    super(key != null);
+    myComparator = comparator;
+    myKey = key;
+  }
+
+  @Override
+  public boolean add(ItemT item) {
+    add(upperBound(item), item);
+    return true;
+  }
+
+  @Override
+  public boolean addAll(Collection<? extends ItemT> items) {
+    if (!isEmpty()) {
+      for (ItemT item : items) {
+        add(item);
+      }
+      return !items.isEmpty();
+    }
+
+    List<ItemT> sorted = new ArrayList<>(items);
+    Collections.sort(sorted, myComparator);
+    return addAll(0, sorted);
+  }
+
+  @Override
+  public int indexOf(Object o) {
+    if (myKey != null) {
+      return super.indexOf(o);
+    }
+
+    @SuppressWarnings("unchecked")
+    ItemT item = (ItemT) o;
+    for (int i = lowerBound(item); i < size(); i++) {
+      ItemT current = get(i);
+      if (myComparator.compare(current, item) != 0) {
+        break;
+      }
+      if (current == null ? item == null : current.equals(item)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  @Override
+  public boolean contains(Object o) {
+    return myKey != null ? super.contains(o) : indexOf(o) != -1;
+  }
+
+  @Override
+  protected void checkAdd(int index, ItemT item) {
+    super.checkAdd(index, item);
+    if (myKey != null && item != myMovedItem) {
+      checkNotContains(item);
+    }
+    if (index > 0 && myComparator.compare(get(index - 1), item) > 0
+        || index < size() && myComparator.compare(item, get(index)) > 0) {
+      throw new IllegalArgumentException("Item " + item + " is out of order at " + index);
+    }
+  }
+
+  @Override
+  protected void checkSet(int index, ItemT oldItem, ItemT newItem) {
+    super.checkSet(index, oldItem, newItem);
+    if (myKey != null && oldItem != newItem) {
+      checkNotContains(newItem);
+    }
+    if (!isInPlace(index, newItem)) {
+      throw new IllegalArgumentException("Item " + newItem + " is out of order at " + index);
+    }
+  }
+
+  @Override
+  protected void afterItemAdded(int index, ItemT item, boolean success) {
+    if (success && myKey != null && item != myMovedItem) {
+      watch(item);
+    }
+    super.afterItemAdded(index, item, success);
+  }
+
+  @Override
+  protected void afterItemSet(int index, ItemT oldItem, ItemT newItem, boolean success) {
+    if (success && myKey != null && oldItem != newItem) {
+      unwatch(oldItem);
+      watch(newItem);
+    }
+    super.afterItemSet(index, oldItem, newItem, success);
+  }
+
+  @Override
+  protected void afterItemRemoved(int index, ItemT item, boolean success) {
+    if (success && myKey != null && item != myMovedItem) {
+      unwatch(item);
+    }
+    super.afterItemRemoved(index, item, success);
+  }
+
+  private void watch(final ItemT item) {
+    if (myKeyRegistrations == null) {
+      myKeyRegistrations = new IdentityHashMap<>();
+    }
+    myKeyRegistrations.put(item, myKey.apply(item).addHandler(new EventHandler<Object>() {
+      @Override
+      public void onEvent(Object event) {
+        keyChanged(item);
+      }
+    }));
+  }
+
+  private void unwatch(ItemT item) {
+    myKeyRegistrations.remove(item).remove();
+  }
+
+  private void keyChanged(ItemT item) {
+    int index = indexOf(item);
+    if (isInPlace(index, item)) return;
+
+    ItemT prevMovedItem = myMovedItem;
+    myMovedItem = item;
+    try {
+      remove(index);
+      add(upperBound(item), item);
+    } finally {
+      myMovedItem = prevMovedItem;
+    }
+  }
+
+  private boolean isInPlace(int index, ItemT item) {
+    return (index == 0 || myComparator.compare(get(index - 1), item) <= 0)
+        && (index >= size() - 1 || myComparator.compare(item, get(index + 1)) <= 0);
+  }
+
+  /**
+   * @return the index of the first item which is greater than the given one
+   */
+  private int upperBound(ItemT item) {
+    int low = 0;
+    int high = size();
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (myComparator.compare(get(mid), item) <= 0) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * @return the index of the first item which isn't less than the given one
+   */
+  private int lowerBound(ItemT item) {
+    int low = 0;
+    int high = size();
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (myComparator.compare(get(mid), item) < 0) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  private void checkNotContains(ItemT item) {
+    if (contains(item)) {
+      throw new IllegalArgumentException("Item is already in the list: " + item);
+    }
+  }
+}
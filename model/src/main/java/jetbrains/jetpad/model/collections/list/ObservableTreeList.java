@@ -15,10 +15,25 @@
  */
 package jetbrains.jetpad.model.collections.list;
 
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.ListIterator;
+import java.util.NoSuchElementException;
 
 public class ObservableTreeList<ItemT> extends AbstractObservableList<ItemT> {
-  private List<ItemT> myContainer;
+  private final boolean myIdentityIndexed;
+  private ChunkedTreeList<ItemT> myContainer;
+  //the last snapshot if there were no modifications after it
+  private List<ItemT> mySnapshot;
+
+  public ObservableTreeList() {
+    this(false);
+  }
+
+  ObservableTreeList(boolean identityIndexed) {
+    myIdentityIndexed = identityIndexed;
+  }
 
   @Override
   public ItemT get(int index) {
@@ -34,19 +49,90 @@ public class ObservableTreeList<ItemT> extends AbstractObservableList<ItemT> {
     return myContainer == null ? 0 : myContainer.size();
   }
 
+  @Override
+  public int indexOf(Object o) {
+    return myContainer == null ? -1 : myContainer.indexOf(o);
+  }
+
+  @Override
+  public int lastIndexOf(Object o) {
+    return myContainer == null ? -1 : myContainer.lastIndexOf(o);
+  }
+
+  @Override
+  public boolean contains(Object o) {
+    return myContainer != null && myContainer.contains(o);
+  }
+
+  @Override
+  public boolean remove(Object o) {
+    int index = indexOf(o);
+    if (index == -1) {
+      return false;
+    }
+    remove(index);
+    return true;
+  }
+
+  /**
+   * Immutable list of the current items. It takes O(1), see {@link ChunkedTreeList#snapshot()}.
+   * The snapshot doesn't change, so it can be read from other threads once it's passed to them.
+   */
+  public List<ItemT> snapshot() {
+    if (mySnapshot == null) {
+      mySnapshot = myContainer == null ? Collections.<ItemT>emptyList() : myContainer.snapshot();
+    }
+    return mySnapshot;
+  }
+
+  @Override
+  public Iterator<ItemT> iterator() {
+    return new Iterator<ItemT>() {
+      private ListIterator<ItemT> myIterator = myContainer == null ? null : myContainer.listIterator(0);
+      private int myLastReturned = -1;
+
+      @Override
+      public boolean hasNext() {
+        return myIterator != null && myIterator.hasNext();
+      }
+
+      @Override
+      public ItemT next() {
+        if (myIterator == null) {
+          throw new NoSuchElementException();
+        }
+        myLastReturned = myIterator.nextIndex();
+        return myIterator.next();
+      }
+
+      @Override
+      public void remove() {
+        if (myLastReturned < 0) {
+          throw new IllegalStateException();
+        }
+        ObservableTreeList.this.remove(myLastReturned);
+        myIterator = myContainer == null ? null : myContainer.listIterator(myLastReturned);
+        myLastReturned = -1;
+      }
+    };
+  }
+
   @Override
   protected void doAdd(int index, ItemT item) {
+    mySnapshot = null;
     ensureContainerInitialized();
     myContainer.add(index, item);
   }
 
   @Override
   protected void doSet(int index, ItemT item) {
+    mySnapshot = null;
     myContainer.set(index, item);
   }
 
   @Override
   protected void doRemove(int index) {
+    mySnapshot = null;
     myContainer.remove(index);
     if (myContainer.isEmpty()) {
       myContainer = null;
@@ -55,7 +141,7 @@ public class ObservableTreeList<ItemT> extends AbstractObservableList<ItemT> {
 
   private void ensureContainerInitialized() {
     if (myContainer == null) {
-      myContainer = new TreeList<>();
+      myContainer = myIdentityIndexed ? ChunkedTreeList.<ItemT>identityIndexed() : new ChunkedTreeList<ItemT>();
     }
   }
 }
\ No newline at end of file
@@ -0,0 +1,35 @@
+/*
+ * Copyright 2012-2017 JetBrains s.r.o
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jetbrains.jetpad.model.collections.list;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Converts items of {@link ObservableMappedFileList} to records of a fixed size and back
+ */
+public interface RecordCodec<ItemT> {
+  int recordSize();
+
+  /**
+   * Writes the item at the position of the buffer, there are exactly {@link #recordSize()} bytes remaining
+   */
+  void encode(ItemT item, ByteBuffer buffer);
+
+  /**
+   * Reads an item from the position of the buffer, there are exactly {@link #recordSize()} bytes remaining
+   */
+  ItemT decode(ByteBuffer buffer);
+}
@@ -18,11 +18,20 @@ package jetbrains.jetpad.model.collections.list;
 import jetbrains.jetpad.base.Registration;
 import jetbrains.jetpad.model.collections.CollectionItemEvent;
 import jetbrains.jetpad.model.collections.CollectionListener;
+import jetbrains.jetpad.model.collections.RelayCollectionListeners;
 import jetbrains.jetpad.model.event.EventHandler;
 
 public class UnmodifiableObservableList<ElementT> extends UnmodifiableList<ElementT> implements ObservableList<ElementT> {
+  private final RelayCollectionListeners<ElementT, ElementT> myListeners;
+
   public UnmodifiableObservableList(ObservableList<ElementT> wrappedList) {
     super(wrappedList);
+    myListeners = new RelayCollectionListeners<ElementT, ElementT>(this, wrappedList) {
+      @Override
+      protected CollectionItemEvent<? extends ElementT> transform(CollectionItemEvent<? extends ElementT> event) {
+        return event;
+      }
+    };
   }
 
   @Override
@@ -32,11 +41,11 @@ public class UnmodifiableObservableList<ElementT> extends UnmodifiableList<Eleme
 
   @Override
   public Registration addListener(CollectionListener<? super ElementT> l) {
-    return getWrappedList().addListener(l);
+    return myListeners.addListener(l);
   }
 
   @Override
   public Registration addHandler(EventHandler<? super CollectionItemEvent<? extends ElementT>> handler) {
-    return getWrappedList().addHandler(handler);
+    return myListeners.addHandler(handler);
   }
 }
\ No newline at end of file
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2012-2017 JetBrains s.r.o
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jetbrains.jetpad.model.collections.map;
+
+import jetbrains.jetpad.model.event.ListenerDispatcher;
+import jetbrains.jetpad.model.event.ListenerEvent;
+
+import java.util.Objects;
+
+public class MapEvent<KeyT, ValueT> implements ListenerEvent<MapListener<KeyT, ValueT>> {
+  public enum EventType {
+    PUT, REPLACE, REMOVE
+  }
+
+  private static final ListenerDispatcher<MapListener<Object, Object>, MapEvent<Object, Object>> DISPATCHER =
+      new ListenerDispatcher<MapListener<Object, Object>, MapEvent<Object, Object>>() {
+        @Override
+        public void dispatch(MapListener<Object, Object> l, MapEvent<Object, Object> event) {
+          event.dispatch(l);
+        }
+      };
+
+  /**
+   * Stateless dispatcher which delivers events to {@link MapListener}s stored in
+   * {@link jetbrains.jetpad.model.event.Listeners}
+   */
+  @SuppressWarnings("unchecked")
+  public static <KeyT, ValueT> ListenerDispatcher<MapListener<? super KeyT, ? super ValueT>, MapEvent<KeyT, ValueT>>
+      dispatcher() {
+    return (ListenerDispatcher<MapListener<? super KeyT, ? super ValueT>, MapEvent<KeyT, ValueT>>)
+        (ListenerDispatcher<?, ?>) DISPATCHER;
+  }
+
+  private final KeyT myKey;
+  private final ValueT myOldValue;
+  private final ValueT myNewValue;
+  private final EventType myType;
+
+  public MapEvent(KeyT key, ValueT oldValue, ValueT newValue, EventType type) {
+    if (EventType.PUT == type && oldValue != null || EventType.REMOVE == type && newValue != null) {
+      throw new IllegalStateException();
+    }
+    myKey = key;
+    myOldValue = oldValue;
+    myNewValue = newValue;
+    myType = type;
+  }
+
+  public KeyT getKey() {
+    return myKey;
+  }
+
+  public ValueT getOldValue() {
+    return myOldValue;
+  }
+
+  public ValueT getNewValue() {
+    return myNewValue;
+  }
+
+  public EventType getType() {
+    return myType;
+  }
+
+  @Override
+  public void dispatch(MapListener<KeyT, ValueT> l) {
+    if (EventType.PUT == myType) {
+      l.onEntryPut(this);
+    } else if (EventType.REPLACE == myType) {
+      l.onEntryReplaced(this);
+    } else {
+      l.onEntryRemoved(this);
+    }
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (!(o instanceof MapEvent)) return false;
+    MapEvent<?, ?> that = (MapEvent<?, ?>) o;
+
+    return Objects.equals(myKey, that.myKey) && Objects.equals(myOldValue, that.myOldValue) &&
+           Objects.equals(myNewValue, that.myNewValue) && myType == that.myType;
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(myKey, myOldValue, myNewValue, myType);
+  }
+
+  @Override
+  public String toString() {
+    if (EventType.PUT == myType) {
+      return myKey + " -> " + myNewValue + " put";
+    } else if (EventType.REPLACE == myType) {
+      return myKey + " -> " + myOldValue + " replaced with " + myNewValue;
+    } else {
+      return myKey + " -> " + myOldValue + " removed";
+    }
+  }
+}
@@ -0,0 +1,265 @@
+/*
+ * Copyright 2012-2017 JetBrains s.r.o
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jetbrains.jetpad.model.collections.map;
+
+import jetbrains.jetpad.base.Registration;
+import jetbrains.jetpad.model.event.EventHandler;
+import jetbrains.jetpad.model.event.EventSources;
+import jetbrains.jetpad.model.event.Listeners;
+import jetbrains.jetpad.model.property.BaseReadableProperty;
+import jetbrains.jetpad.model.property.PropertyChangeEvent;
+import jetbrains.jetpad.model.property.ReadableProperty;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Observable map backed by a {@link HashMap}.
+ * Handlers of {@link #valueProperty(Object)} are kept in a table indexed by the key, so an update notifies only
+ * the handlers of the updated key.
+ */
+public class ObservableHashMap<KeyT, ValueT> extends AbstractMap<KeyT, ValueT> implements ObservableMap<KeyT, ValueT> {
+  private final Map<KeyT, ValueT> myMap = new HashMap<>();
+  private Listeners<MapListener<? super KeyT, ? super ValueT>> myListeners;
+  private Map<Object, KeyListeners> myKeyListeners;
+  private Set<Entry<KeyT, ValueT>> myEntrySet;
+
+  @Override
+  public int size() {
+    return myMap.size();
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return myMap.containsKey(key);
+  }
+
+  @Override
+  public boolean containsValue(Object value) {
+    return myMap.containsValue(value);
+  }
+
+  @Override
+  public ValueT get(Object key) {
+    return myMap.get(key);
+  }
+
+  @Override
+  public ValueT put(KeyT key, ValueT value) {
+    if (!myMap.containsKey(key)) {
+      myMap.put(key, value);
+      fire(new MapEvent<>(key, null, value, MapEvent.EventType.PUT));
+      return null;
+    }
+    ValueT oldValue = myMap.put(key, value);
+    if (!Objects.equals(oldValue, value)) {
+      fire(new MapEvent<>(key, oldValue, value, MapEvent.EventType.REPLACE));
+    }
+    return oldValue;
+  }
+
+  @Override
+  public ValueT remove(Object key) {
+    if (!myMap.containsKey(key)) {
+      return null;
+    }
+    @SuppressWarnings("unchecked")
+    KeyT k = (KeyT) key;
+    ValueT oldValue = myMap.remove(key);
+    fire(new MapEvent<>(k, oldValue, null, MapEvent.EventType.REMOVE));
+    return oldValue;
+  }
+
+  @Override
+  public Set<Entry<KeyT, ValueT>> entrySet() {
+    if (myEntrySet == null) {
+      myEntrySet = new EntrySet();
+    }
+    return myEntrySet;
+  }
+
+  @Override
+  public Registration addListener(MapListener<? super KeyT, ? super ValueT> l) {
+    if (myListeners == null) {
+      myListeners = new Listeners<MapListener<? super KeyT, ? super ValueT>>(this) {
+        @Override
+        protected void afterLastRemoved() {
+          myListeners = null;
+        }
+      };
+    }
+    return myListeners.add(l);
+  }
+
+  @Override
+  public Registration addHandler(final EventHandler<? super MapEvent<? extends KeyT, ? extends ValueT>> handler) {
+    return addListener(new MapListener<KeyT, ValueT>() {
+      @Override
+      public void onEntryPut(MapEvent<? extends KeyT, ? extends ValueT> event) {
+        handler.onEvent(event);
+      }
+
+      @Override
+      public void onEntryReplaced(MapEvent<? extends KeyT, ? extends ValueT> event) {
+        handler.onEvent(event);
+      }
+
+      @Override
+      public void onEntryRemoved(MapEvent<? extends KeyT, ? extends ValueT> event) {
+        handler.onEvent(event);
+      }
+    });
+  }
+
+  @Override
+  public ReadableProperty<ValueT> valueProperty(final KeyT key) {
+    return new BaseReadableProperty<ValueT>() {
+      @Override
+      public ValueT get() {
+        return myMap.get(key);
+      }
+
+      @Override
+      public Registration addHandler(EventHandler<? super PropertyChangeEvent<ValueT>> handler) {
+        if (myKeyListeners == null) {
+          myKeyListeners = new HashMap<>();
+        }
+        KeyListeners listeners = myKeyListeners.get(key);
+        if (listeners == null) {
+          listeners = new KeyListeners(key);
+          myKeyListeners.put(key, listeners);
+        }
+        return listeners.add(handler);
+      }
+
+      @Override
+      public String getPropExpr() {
+        return "valueProperty(" + key + ")";
+      }
+    };
+  }
+
+  private void fire(MapEvent<KeyT, ValueT> event) {
+    if (myListeners != null) {
+      myListeners.fire(event, MapEvent.<KeyT, ValueT>dispatcher());
+    }
+    //a value property doesn't fire if its value doesn't change, e.g. when a null value is put or removed
+    if (myKeyListeners != null && !Objects.equals(event.getOldValue(), event.getNewValue())) {
+      KeyListeners listeners = myKeyListeners.get(event.getKey());
+      if (listeners != null) {
+        PropertyChangeEvent<ValueT> change = new PropertyChangeEvent<>(event.getOldValue(), event.getNewValue());
+        listeners.fire(change, EventSources.<PropertyChangeEvent<ValueT>>handlerDispatcher());
+      }
+    }
+  }
+
+  private class KeyListeners extends Listeners<EventHandler<? super PropertyChangeEvent<ValueT>>> {
+    private final Object myKey;
+
+    KeyListeners(Object key) {
+      super(ObservableHashMap.this);
+      myKey = key;
+    }
+
+    @Override
+    protected void afterLastRemoved() {
+      if (myKeyListeners.get(myKey) == this) {
+        myKeyListeners.remove(myKey);
+      }
+    }
+  }
+
+  private class EntrySet extends AbstractSet<Entry<KeyT, ValueT>> {
+    @Override
+    public int size() {
+      return myMap.size();
+    }
+
+    @Override
+    public Iterator<Entry<KeyT, ValueT>> iterator() {
+      final Iterator<Entry<KeyT, ValueT>> iterator = myMap.entrySet().iterator();
+      return new Iterator<Entry<KeyT, ValueT>>() {
+        private Entry<KeyT, ValueT> myLastReturned;
+
+        @Override
+        public boolean hasNext() {
+          return iterator.hasNext();
+        }
+
+        @Override
+        public Entry<KeyT, ValueT> next() {
+          myLastReturned = iterator.next();
+          return new ObservableEntry(myLastReturned);
+        }
+
+        @Override
+        public void remove() {
+          if (myLastReturned == null) {
+            throw new IllegalStateException();
+          }
+          KeyT key = myLastReturned.getKey();
+          ValueT oldValue = myLastReturned.getValue();
+          myLastReturned = null;
+          iterator.remove();
+          fire(new MapEvent<>(key, oldValue, null, MapEvent.EventType.REMOVE));
+        }
+      };
+    }
+  }
+
+  private class ObservableEntry implements Entry<KeyT, ValueT> {
+    private final Entry<KeyT, ValueT> myEntry;
+
+    ObservableEntry(Entry<KeyT, ValueT> entry) {
+      myEntry = entry;
+    }
+
+    @Override
+    public KeyT getKey() {
+      return myEntry.getKey();
+    }
+
+    @Override
+    public ValueT getValue() {
+      return myEntry.getValue();
+    }
+
+    @Override
+    public ValueT setValue(ValueT value) {
+      return put(myEntry.getKey(), value);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      return myEntry.equals(o);
+    }
+
+    @Override
+    public int hashCode() {
+      return myEntry.hashCode();
+    }
+
+    @Override
+    public String toString() {
+      return myEntry.toString();
+    }
+  }
+}
@@ -0,0 +1,34 @@
+/*
+ * Copyright 2012-2017 JetBrains s.r.o
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jetbrains.jetpad.model.collections.map;
+
+import jetbrains.jetpad.base.Registration;
+import jetbrains.jetpad.model.event.EventSource;
+import jetbrains.jetpad.model.property.ReadableProperty;
+
+import java.util.Map;
+
+public interface ObservableMap<KeyT, ValueT>
+    extends Map<KeyT, ValueT>, EventSource<MapEvent<? extends KeyT, ? extends ValueT>> {
+
+  Registration addListener(MapListener<? super KeyT, ? super ValueT> l);
+
+  /**
+   * Value stored under the key, null if there's no such key. Handlers of the property are notified only about
+   * changes of this key, so the cost of a map update doesn't depend on the number of watched keys.
+   */
+  ReadableProperty<ValueT> valueProperty(KeyT key);
+}
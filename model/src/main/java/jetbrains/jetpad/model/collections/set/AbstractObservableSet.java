@@ -20,7 +20,6 @@ import jetbrains.jetpad.model.collections.CollectionAdapter;
 import jetbrains.jetpad.model.collections.CollectionItemEvent;
 import jetbrains.jetpad.model.collections.CollectionListener;
 import jetbrains.jetpad.model.event.EventHandler;
-import jetbrains.jetpad.model.event.ListenerCaller;
 import jetbrains.jetpad.model.event.Listeners;
 
 import java.util.AbstractSet;
@@ -33,7 +32,12 @@ public abstract class AbstractObservableSet<ItemT> extends AbstractSet<ItemT> im
   @Override
   public Registration addListener(CollectionListener<? super ItemT> l) {
     if (myListeners == null) {
-      myListeners = new Listeners<>();
+      myListeners = new Listeners<CollectionListener<? super ItemT>>(this) {
+        @Override
+        protected void afterLastRemoved() {
+          myListeners = null;
+        }
+      };
     }
     return myListeners.add(l);
   }
@@ -57,15 +61,11 @@ public abstract class AbstractObservableSet<ItemT> extends AbstractSet<ItemT> im
     beforeItemAdded(item);
   }
 
-  private void doAfterAdd(final ItemT item, boolean success) {
+  private void doAfterAdd(ItemT item, boolean success) {
     try {
       if (success && myListeners != null) {
-        myListeners.fire(new ListenerCaller<CollectionListener<? super ItemT>>() {
-          @Override
-          public void call(CollectionListener<? super ItemT> l) {
-            l.onItemAdded(new CollectionItemEvent<>(null, item, -1, CollectionItemEvent.EventType.ADD));
-          }
-        });
+        CollectionItemEvent<ItemT> event = new CollectionItemEvent<>(null, item, -1, CollectionItemEvent.EventType.ADD);
+        myListeners.fire(event, CollectionItemEvent.<ItemT>dispatcher());
       }
     } finally {
       afterItemAdded(item, success);
@@ -133,15 +133,11 @@ public abstract class AbstractObservableSet<ItemT> extends AbstractSet<ItemT> im
     beforeItemRemoved(item);
   }
 
-  private void doAfterRemove(final ItemT item, boolean success) {
+  private void doAfterRemove(ItemT item, boolean success) {
     try {
       if (success && myListeners != null) {
-        myListeners.fire(new ListenerCaller<CollectionListener<? super ItemT>>() {
-          @Override
-          public void call(CollectionListener<? super ItemT> l) {
-            l.onItemRemoved(new CollectionItemEvent<>(item, null, -1, CollectionItemEvent.EventType.REMOVE));
-          }
-        });
+        CollectionItemEvent<ItemT> event = new CollectionItemEvent<>(item, null, -1, CollectionItemEvent.EventType.REMOVE);
+        myListeners.fire(event, CollectionItemEvent.<ItemT>dispatcher());
       }
     } finally {
       afterItemRemoved(item, success);
@@ -17,13 +17,11 @@ package jetbrains.jetpad.model.collections.set;
 
 import jetbrains.jetpad.base.Registration;
 import jetbrains.jetpad.base.function.Function;
-import jetbrains.jetpad.model.collections.CollectionAdapter;
 import jetbrains.jetpad.model.collections.CollectionItemEvent;
 import jetbrains.jetpad.model.collections.CollectionListener;
 import jetbrains.jetpad.model.collections.ObservableCollection;
+import jetbrains.jetpad.model.collections.RelayCollectionListeners;
 import jetbrains.jetpad.model.event.EventHandler;
-import jetbrains.jetpad.model.event.ListenerCaller;
-import jetbrains.jetpad.model.event.Listeners;
 
 import java.util.AbstractSet;
 import java.util.Iterator;
@@ -32,33 +30,27 @@ public class MirrorObservableSet<SourceT, TargetT> extends AbstractSet<TargetT>
   private ObservableCollection<SourceT> myBaseCollection;
   private Function<SourceT, TargetT> myTargetSupplier;
   private Function<TargetT, SourceT> mySourceSupplier;
-  private Listeners<CollectionListener<? super TargetT>> myListeners = new Listeners<>();
+  private final RelayCollectionListeners<SourceT, TargetT> myListeners;
 
   public MirrorObservableSet(ObservableCollection<SourceT> baseSet, Function<SourceT, TargetT> targetSupplier, Function<TargetT, SourceT> sourceSupplier) {
     myBaseCollection = baseSet;
     myTargetSupplier = targetSupplier;
     mySourceSupplier = sourceSupplier;
-    myBaseCollection.addListener(new CollectionAdapter<SourceT>() {
+    myListeners = new RelayCollectionListeners<SourceT, TargetT>(this, baseSet) {
       @Override
-      public void onItemAdded(final CollectionItemEvent<? extends SourceT> event) {
-        myListeners.fire(new ListenerCaller<CollectionListener<? super TargetT>>() {
-          @Override
-          public void call(CollectionListener<? super TargetT> l) {
-            l.onItemAdded(new CollectionItemEvent<>(null, myTargetSupplier.apply(event.getNewItem()), -1, CollectionItemEvent.EventType.ADD));
-          }
-        });
+      protected CollectionItemEvent<? extends TargetT> transform(CollectionItemEvent<? extends SourceT> event) {
+        switch (event.getType()) {
+          case ADD:
+            return new CollectionItemEvent<>(
+                null, myTargetSupplier.apply(event.getNewItem()), -1, CollectionItemEvent.EventType.ADD);
+          case REMOVE:
+            return new CollectionItemEvent<>(
+                myTargetSupplier.apply(event.getOldItem()), null, -1, CollectionItemEvent.EventType.REMOVE);
+          default:
+            return null;
+        }
       }
-
-      @Override
-      public void onItemRemoved(final CollectionItemEvent<? extends SourceT> event) {
-        myListeners.fire(new ListenerCaller<CollectionListener<? super TargetT>>() {
-          @Override
-          public void call(CollectionListener<? super TargetT> l) {
-            l.onItemRemoved(new CollectionItemEvent<>(myTargetSupplier.apply(event.getOldItem()), null, -1, CollectionItemEvent.EventType.REMOVE));
-          }
-        });
-      }
-    });
+    };
   }
 
   @Override
@@ -94,11 +86,11 @@ public class MirrorObservableSet<SourceT, TargetT> extends AbstractSet<TargetT>
 
   @Override
   public Registration addListener(CollectionListener<? super TargetT> l) {
-    return myListeners.add(l);
+    return myListeners.addListener(l);
   }
 
   @Override
-  public Registration addHandler(EventHandler<? super CollectionItemEvent<? extends TargetT>> collectionItemEventEventHandler) {
-    throw new UnsupportedOperationException();
+  public Registration addHandler(EventHandler<? super CollectionItemEvent<? extends TargetT>> handler) {
+    return myListeners.addHandler(handler);
   }
 }
\ No newline at end of file
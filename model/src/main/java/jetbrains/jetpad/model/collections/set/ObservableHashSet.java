@@ -15,42 +15,136 @@
  */
 package jetbrains.jetpad.model.collections.set;
 
-import java.util.HashSet;
 import java.util.Iterator;
-import java.util.Set;
+import java.util.NoSuchElementException;
+import java.util.Objects;
 
+/**
+ * Observable set which keeps a single item in its own field and moves the items to an open addressing hash table
+ * when it grows beyond that. Most of the sets in a model are empty or have one item, so they don't allocate
+ * a hash table, and an empty set isn't larger than one which allocates its table lazily.
+ *
+ * The iteration order isn't specified, see {@link ObservableLinkedHashSet} for a set which iterates in the order
+ * of addition and {@link ObservableIdentityHashSet} for a set which compares items by identity.
+ */
 public class ObservableHashSet<ItemT> extends AbstractObservableSet<ItemT> {
-  private Set<ItemT> mySet;
+  //null if the set is empty, the only item of the set, or OpenHashTable if there are more of them or the item is null
+  private Object myData;
 
   @Override
   public int size() {
-    return mySet == null ? 0 : mySet.size();
+    if (myData == null) {
+      return 0;
+    }
+    return myData instanceof OpenHashTable ? table().size() : 1;
   }
 
   @Override
   public boolean contains(Object o) {
-    return mySet != null && mySet.contains(o);
+    if (myData instanceof OpenHashTable) {
+      return table().contains(o);
+    }
+    return myData != null && same(myData, o);
+  }
+
+  /**
+   * Modes are methods rather than fields, so that they don't take space in every set
+   */
+  boolean isIdentity() {
+    return false;
+  }
+
+  boolean isOrdered() {
+    return false;
   }
 
   @Override
   protected boolean doAdd(ItemT item) {
-    ensureSetInitialized();
-    return mySet.add(item);
+    if (myData == null && item != null) {
+      myData = item;
+      return true;
+    }
+    if (!(myData instanceof OpenHashTable)) {
+      if (myData != null && same(myData, item)) {
+        return false;
+      }
+      moveToTable();
+    }
+    return table().add(item);
   }
 
   @Override
   protected boolean doRemove(ItemT item) {
-    return mySet.remove(item);
+    if (myData instanceof OpenHashTable) {
+      OpenHashTable<ItemT> table = table();
+      boolean result = table.remove(item);
+      if (table.size() == 0) {
+        myData = null;
+      }
+      return result;
+    }
+
+    if (myData == null || !same(myData, item)) {
+      return false;
+    }
+    myData = null;
+    return true;
   }
 
   @Override
   protected Iterator<ItemT> getIterator() {
-    return mySet.iterator();
+    if (myData instanceof OpenHashTable) {
+      return table().iterator();
+    }
+
+    return new Iterator<ItemT>() {
+      private boolean myHasNext = myData != null;
+      private boolean myCanRemove;
+
+      @Override
+      public boolean hasNext() {
+        return myHasNext;
+      }
+
+      @Override
+      public ItemT next() {
+        if (!myHasNext) {
+          throw new NoSuchElementException();
+        }
+        myHasNext = false;
+        myCanRemove = true;
+        @SuppressWarnings("unchecked")
+        ItemT item = (ItemT) myData;
+        return item;
+      }
+
+      @Override
+      public void remove() {
+        if (!myCanRemove) {
+          throw new IllegalStateException();
+        }
+        myCanRemove = false;
+        myData = null;
+      }
+    };
+  }
+
+  @SuppressWarnings("unchecked")
+  private OpenHashTable<ItemT> table() {
+    return (OpenHashTable<ItemT>) myData;
   }
 
-  private void ensureSetInitialized() {
-    if (mySet == null) {
-      mySet = new HashSet<>(1);
+  private void moveToTable() {
+    OpenHashTable<ItemT> table = new OpenHashTable<>(isIdentity(), isOrdered());
+    if (myData != null) {
+      @SuppressWarnings("unchecked")
+      ItemT item = (ItemT) myData;
+      table.add(item);
     }
+    myData = table;
+  }
+
+  private boolean same(Object item, Object o) {
+    return isIdentity() ? item == o : Objects.equals(item, o);
   }
-}
\ No newline at end of file
+}
@@ -0,0 +1,269 @@
+/*
+ * Copyright 2012-2017 JetBrains s.r.o
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jetbrains.jetpad.model.collections.set;
+
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/**
+ * Hash table with open addressing which backs {@link ObservableHashSet}.
+ *
+ * Items are kept densely in myItems in the order of addition, myIndex is a linear probing table of positions
+ * in myItems. Removal shifts the following slots of the probe sequence back, so there are no tombstones in the
+ * index. In the ordered mode a removed item leaves a hole in myItems which is compacted on the next growth,
+ * otherwise the last item is moved to the hole.
+ *
+ * The slot found by the last lookup is remembered until the next modification, so that {@link #add(Object)} and
+ * {@link #remove(Object)} of the item which has just been checked with {@link #contains(Object)} don't probe
+ * the table again.
+ */
+final class OpenHashTable<ItemT> implements Iterable<ItemT> {
+  private static final Object REMOVED = new Object();
+  private static final int INITIAL_CAPACITY = 8;
+
+  private final boolean myIdentity;
+  private final boolean myOrdered;
+  private Object[] myItems = new Object[INITIAL_CAPACITY];
+  private int[] myIndex = new int[INITIAL_CAPACITY * 2];
+  private int myEnd;
+  private int mySize;
+  private int myModCount;
+
+  private Object myProbedItem;
+  private int myProbedSlot;
+  private int myProbedModCount = -1;
+
+  OpenHashTable(boolean identity, boolean ordered) {
+    myIdentity = identity;
+    myOrdered = ordered;
+  }
+
+  int size() {
+    return mySize;
+  }
+
+  boolean contains(Object o) {
+    return find(o) >= 0;
+  }
+
+  boolean add(ItemT item) {
+    if (myEnd == myItems.length) {
+      resize();
+    }
+
+    int slot;
+    if (myProbedModCount == myModCount && myProbedItem == item) {
+      slot = myProbedSlot;
+    } else {
+      slot = find(item);
+    }
+    forgetProbe();
+    if (slot >= 0) {
+      return false;
+    }
+
+    myIndex[-slot - 1] = myEnd + 1;
+    myItems[myEnd++] = item;
+    mySize++;
+    myModCount++;
+    return true;
+  }
+
+  boolean remove(Object o) {
+    int slot;
+    if (myProbedModCount == myModCount && myProbedItem == o) {
+      slot = myProbedSlot;
+    } else {
+      slot = find(o);
+    }
+    if (slot < 0) {
+      return false;
+    }
+    removeAt(slot);
+    return true;
+  }
+
+  @Override
+  public Iterator<ItemT> iterator() {
+    return new Iterator<ItemT>() {
+      private int myNext = skipRemoved(0);
+      private int myLastReturned = -1;
+      private int myExpectedModCount = myModCount;
+
+      @Override
+      public boolean hasNext() {
+        return myNext < myEnd;
+      }
+
+      @Override
+      public ItemT next() {
+        checkModCount();
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        }
+        myLastReturned = myNext;
+        myNext = skipRemoved(myNext + 1);
+        return itemAt(myLastReturned);
+      }
+
+      @Override
+      public void remove() {
+        checkModCount();
+        if (myLastReturned == -1) {
+          throw new IllegalStateException();
+        }
+        boolean movesLast = !myOrdered && myLastReturned != myEnd - 1;
+        removeAt(find(myItems[myLastReturned]));
+        if (movesLast) {
+          //the last item has been moved to the position which we've just returned
+          myNext = myLastReturned;
+        } else {
+          myNext = Math.min(skipRemoved(myNext), myEnd);
+        }
+        myLastReturned = -1;
+        myExpectedModCount = myModCount;
+      }
+
+      private void checkModCount() {
+        if (myExpectedModCount != myModCount) {
+          throw new ConcurrentModificationException();
+        }
+      }
+    };
+  }
+
+  /**
+   * @return the slot of the item if it's present, or -(slot + 1) where slot is a free slot for it
+   */
+  private int find(Object o) {
+    int mask = myIndex.length - 1;
+    int slot = hash(o) & mask;
+    while (true) {
+      int position = myIndex[slot];
+      if (position == 0) {
+        slot = -slot - 1;
+        break;
+      }
+      if (same(myItems[position - 1], o)) {
+        break;
+      }
+      slot = (slot + 1) & mask;
+    }
+    myProbedItem = o;
+    myProbedSlot = slot;
+    myProbedModCount = myModCount;
+    return slot;
+  }
+
+  private void removeAt(int slot) {
+    int position = myIndex[slot] - 1;
+    deleteSlot(slot);
+    mySize--;
+    myModCount++;
+
+    if (mySize == 0) {
+      Arrays.fill(myItems, 0, myEnd, null);
+      myEnd = 0;
+    } else if (myOrdered || position == myEnd - 1) {
+      myItems[position] = REMOVED;
+      while (myItems[myEnd - 1] == REMOVED) {
+        myItems[--myEnd] = null;
+      }
+    } else {
+      Object last = myItems[myEnd - 1];
+      myIndex[find(last)] = position + 1;
+      myItems[position] = last;
+      myItems[--myEnd] = null;
+    }
+    forgetProbe();
+  }
+
+  /**
+   * The probe is only valid until the next modification, and it mustn't keep a removed item alive
+   */
+  private void forgetProbe() {
+    myProbedItem = null;
+    myProbedModCount = -1;
+  }
+
+  private void deleteSlot(int slot) {
+    int mask = myIndex.length - 1;
+    int hole = slot;
+    myIndex[hole] = 0;
+    for (int i = (hole + 1) & mask; myIndex[i] != 0; i = (i + 1) & mask) {
+      int home = hash(myItems[myIndex[i] - 1]) & mask;
+      //the item can fill the hole if the hole lies between its home slot and its current slot
+      if (((i - home) & mask) >= ((i - hole) & mask)) {
+        myIndex[hole] = myIndex[i];
+        myIndex[i] = 0;
+        hole = i;
+      }
+    }
+  }
+
+  private void resize() {
+    int capacity = myItems.length;
+    if (!myOrdered || mySize > capacity / 2) {
+      capacity *= 2;
+    }
+
+    Object[] items = new Object[capacity];
+    int end = 0;
+    for (int i = 0; i < myEnd; i++) {
+      if (myItems[i] != REMOVED) {
+        items[end++] = myItems[i];
+      }
+    }
+    myItems = items;
+    myEnd = end;
+
+    myIndex = new int[capacity * 2];
+    int mask = myIndex.length - 1;
+    for (int i = 0; i < myEnd; i++) {
+      int slot = hash(myItems[i]) & mask;
+      while (myIndex[slot] != 0) {
+        slot = (slot + 1) & mask;
+      }
+      myIndex[slot] = i + 1;
+    }
+    myModCount++;
+  }
+
+  private int skipRemoved(int position) {
+    while (position < myEnd && myItems[position] == REMOVED) {
+      position++;
+    }
+    return position;
+  }
+
+  @SuppressWarnings("unchecked")
+  private ItemT itemAt(int position) {
+    return (ItemT) myItems[position];
+  }
+
+  private boolean same(Object item, Object o) {
+    return myIdentity ? item == o : Objects.equals(item, o);
+  }
+
+  private int hash(Object o) {
+    int h = myIdentity ? System.identityHashCode(o) : Objects.hashCode(o);
+    h *= 0x9E3779B9;
+    return h ^ (h >>> 16);
+  }
+}
@@ -18,11 +18,20 @@ package jetbrains.jetpad.model.collections.set;
 import jetbrains.jetpad.base.Registration;
 import jetbrains.jetpad.model.collections.CollectionItemEvent;
 import jetbrains.jetpad.model.collections.CollectionListener;
+import jetbrains.jetpad.model.collections.RelayCollectionListeners;
 import jetbrains.jetpad.model.event.EventHandler;
 
 public class UnmodifiableObservableSet<ElementT> extends UnmodifiableSet<ElementT> implements ObservableSet<ElementT> {
+  private final RelayCollectionListeners<ElementT, ElementT> myListeners;
+
   public UnmodifiableObservableSet(ObservableSet<ElementT> wrappedSet) {
     super(wrappedSet);
+    myListeners = new RelayCollectionListeners<ElementT, ElementT>(this, wrappedSet) {
+      @Override
+      protected CollectionItemEvent<? extends ElementT> transform(CollectionItemEvent<? extends ElementT> event) {
+        return event;
+      }
+    };
   }
 
   @Override
@@ -32,12 +41,12 @@ public class UnmodifiableObservableSet<ElementT> extends UnmodifiableSet<Element
 
   @Override
   public Registration addListener(CollectionListener<? super ElementT> l) {
-    return getWrappedSet().addListener(l);
+    return myListeners.addListener(l);
   }
 
   @Override
   public Registration addHandler(EventHandler<? super CollectionItemEvent<? extends ElementT>> handler) {
-    return getWrappedSet().addHandler(handler);
+    return myListeners.addHandler(handler);
   }
 
 
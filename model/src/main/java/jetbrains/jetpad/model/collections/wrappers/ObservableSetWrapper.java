@@ -19,7 +19,7 @@ import jetbrains.jetpad.base.Registration;
 import jetbrains.jetpad.base.function.Function;
 import jetbrains.jetpad.model.collections.CollectionItemEvent;
 import jetbrains.jetpad.model.collections.CollectionListener;
-import jetbrains.jetpad.model.collections.RelayCollectionListener;
+import jetbrains.jetpad.model.collections.RelayCollectionListeners;
 import jetbrains.jetpad.model.collections.set.ObservableSet;
 import jetbrains.jetpad.model.event.EventHandler;
 
@@ -33,31 +33,28 @@ public class ObservableSetWrapper<SourceItemT, TargetItemT> implements Observabl
   private final ObservableSet<SourceItemT> mySource;
   private final Function<SourceItemT, TargetItemT> myStoT;
   private final Function<TargetItemT, SourceItemT> myTtoS;
+  private final RelayCollectionListeners<SourceItemT, TargetItemT> myListeners;
 
   public ObservableSetWrapper(ObservableSet<SourceItemT> source, Function<SourceItemT, TargetItemT> toTarget, Function<TargetItemT, SourceItemT> toSource) {
     mySource = source;
     myStoT = toTarget;
     myTtoS = toSource;
-  }
-
-  @Override
-  public Registration addListener(CollectionListener<? super TargetItemT> l) {
-    return mySource.addListener(new RelayCollectionListener<SourceItemT, TargetItemT>(l) {
+    myListeners = new RelayCollectionListeners<SourceItemT, TargetItemT>(this, source) {
       @Override
       protected CollectionItemEvent<? extends TargetItemT> transform(CollectionItemEvent<? extends SourceItemT> event) {
         return wrapEvent(event, myStoT);
       }
-    });
+    };
   }
 
   @Override
-  public Registration addHandler(final EventHandler<? super CollectionItemEvent<? extends TargetItemT>> handler) {
-    return mySource.addHandler(new EventHandler<CollectionItemEvent<? extends SourceItemT>>() {
-      @Override
-      public void onEvent(CollectionItemEvent<? extends SourceItemT> event) {
-        handler.onEvent(wrapEvent(event, myStoT));
-      }
-    });
+  public Registration addListener(CollectionListener<? super TargetItemT> l) {
+    return myListeners.addListener(l);
+  }
+
+  @Override
+  public Registration addHandler(EventHandler<? super CollectionItemEvent<? extends TargetItemT>> handler) {
+    return myListeners.addHandler(handler);
   }
 
   @Override
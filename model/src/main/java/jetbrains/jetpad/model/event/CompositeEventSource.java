@@ -49,7 +49,7 @@ final class CompositeEventSource<EventT> implements EventSource<EventT> {
   @Override
   public Registration addHandler(EventHandler<? super EventT> handler) {
     if (myHandlers == null) {
-      myHandlers = new Listeners<EventHandler<? super EventT>>() {
+      myHandlers = new Listeners<EventHandler<? super EventT>>(this) {
         @Override
         protected void beforeFirstAdded() {
           for (EventSource<? extends EventT> src : myEventSources) {
@@ -73,13 +73,8 @@ final class CompositeEventSource<EventT> implements EventSource<EventT> {
   private <PartEventT extends EventT> void addHandlerTo(EventSource<PartEventT> src) {
     myRegistrations.add(src.addHandler(new EventHandler<PartEventT>() {
       @Override
-      public void onEvent(final PartEventT event) {
-        myHandlers.fire(new ListenerCaller<EventHandler<? super EventT>>() {
-          @Override
-          public void call(EventHandler<? super EventT> item) {
-            item.onEvent(event);
-          }
-        });
+      public void onEvent(PartEventT event) {
+        myHandlers.fire(event, EventSources.<EventT>handlerDispatcher());
       }
     }));
   }
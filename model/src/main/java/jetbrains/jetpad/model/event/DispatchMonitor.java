@@ -0,0 +1,31 @@
+/*
+ * Copyright 2012-2017 JetBrains s.r.o
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jetbrains.jetpad.model.event;
+
+/**
+ * Observer of the event dispatch done by {@link Listeners}, see {@link DispatchMonitors}.
+ * The source is the object which owns the listeners, e.g. a property or a collection.
+ * The depth is the number of fires in progress including the current one, so nested fires have depth more than 1.
+ */
+public interface DispatchMonitor {
+  void onFireStarted(Object source, int listenersCount, int depth);
+
+  void onListenerStarted(Object source, Object listener);
+
+  void onListenerFinished(Object source, Object listener);
+
+  void onFireFinished(Object source);
+}
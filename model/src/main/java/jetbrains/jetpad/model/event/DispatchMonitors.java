@@ -0,0 +1,64 @@
+/*
+ * Copyright 2012-2017 JetBrains s.r.o
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jetbrains.jetpad.model.event;
+
+import jetbrains.jetpad.base.Registration;
+
+/**
+ * Installs a {@link DispatchMonitor} which is notified about all the fires of {@link Listeners}.
+ * This includes all the events of the properties and the observable collections.
+ *
+ * Monitoring is compiled out unless {@link #ENABLED} is set, so it has no overhead in production.
+ * The model is single threaded, as well as the monitor support.
+ */
+public final class DispatchMonitors {
+  public static final boolean ENABLED = false;
+
+  private static DispatchMonitor ourMonitor;
+  private static int ourDepth;
+
+  public static Registration setMonitor(final DispatchMonitor monitor) {
+    if (!ENABLED) {
+      throw new IllegalStateException("Dispatch monitoring is disabled, see DispatchMonitors.ENABLED");
+    }
+    if (ourMonitor != null) {
+      throw new IllegalStateException("Dispatch monitor is already set");
+    }
+    ourMonitor = monitor;
+    return new Registration() {
+      @Override
+      protected void doRemove() {
+        ourMonitor = null;
+      }
+    };
+  }
+
+  static DispatchMonitor fireStarted(Object source, int listenersCount) {
+    DispatchMonitor monitor = ourMonitor;
+    if (monitor != null) {
+      monitor.onFireStarted(source, listenersCount, ++ourDepth);
+    }
+    return monitor;
+  }
+
+  static void fireFinished(DispatchMonitor monitor, Object source) {
+    ourDepth--;
+    monitor.onFireFinished(source);
+  }
+
+  private DispatchMonitors() {
+  }
+}
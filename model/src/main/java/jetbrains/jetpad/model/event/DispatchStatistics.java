@@ -0,0 +1,222 @@
+/*
+ * Copyright 2012-2017 JetBrains s.r.o
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jetbrains.jetpad.model.event;
+
+import jetbrains.jetpad.model.property.ReadableProperty;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link DispatchMonitor} which aggregates the time spent in fires per source and per listener, so that the hottest
+ * sources and the slowest listeners can be found. Time of a fire includes the time of the nested fires.
+ *
+ * The statistics keep the monitored sources and listeners reachable until {@link #reset()}.
+ * JVM only since it uses {@link System#nanoTime()}.
+ */
+public class DispatchStatistics implements DispatchMonitor {
+  private static final Comparator<Stats> BY_TOTAL_TIME = new Comparator<Stats>() {
+    @Override
+    public int compare(Stats s1, Stats s2) {
+      return Long.compare(s2.myTotalNanos, s1.myTotalNanos);
+    }
+  };
+
+  private static final Comparator<Stats> BY_MAX_TIME = new Comparator<Stats>() {
+    @Override
+    public int compare(Stats s1, Stats s2) {
+      return Long.compare(s2.myMaxNanos, s1.myMaxNanos);
+    }
+  };
+
+  private final Map<Object, SourceStats> mySources = new IdentityHashMap<>();
+  private final Map<Object, ListenerStats> myListeners = new IdentityHashMap<>();
+
+  private long[] myFireStarts = new long[16];
+  private long[] myListenerStarts = new long[16];
+  private int myDepth;
+
+  @Override
+  public void onFireStarted(Object source, int listenersCount, int depth) {
+    SourceStats stats = mySources.get(source);
+    if (stats == null) {
+      stats = new SourceStats(describe(source));
+      mySources.put(source, stats);
+    }
+    stats.myMaxListenersCount = Math.max(stats.myMaxListenersCount, listenersCount);
+    stats.myMaxDepth = Math.max(stats.myMaxDepth, depth);
+
+    if (myDepth == myFireStarts.length) {
+      myFireStarts = copyOf(myFireStarts, myDepth * 2);
+      myListenerStarts = copyOf(myListenerStarts, myDepth * 2);
+    }
+    myFireStarts[myDepth++] = nanoTime();
+  }
+
+  @Override
+  public void onListenerStarted(Object source, Object listener) {
+    myListenerStarts[myDepth - 1] = nanoTime();
+  }
+
+  @Override
+  public void onListenerFinished(Object source, Object listener) {
+    long nanos = nanoTime() - myListenerStarts[myDepth - 1];
+    ListenerStats stats = myListeners.get(listener);
+    if (stats == null) {
+      stats = new ListenerStats(describe(listener));
+      myListeners.put(listener, stats);
+    }
+    stats.add(nanos);
+    SourceStats sourceStats = mySources.get(source);
+    if (sourceStats != null) {
+      stats.myLastSource = sourceStats.getName();
+    }
+  }
+
+  @Override
+  public void onFireFinished(Object source) {
+    long nanos = nanoTime() - myFireStarts[--myDepth];
+    SourceStats stats = mySources.get(source);
+    //can be null after reset() during the fire
+    if (stats != null) {
+      stats.add(nanos);
+    }
+  }
+
+  /**
+   * Sources sorted by the total time spent in their fires
+   */
+  public List<SourceStats> getHottestSources(int count) {
+    return top(mySources.values(), count, BY_TOTAL_TIME);
+  }
+
+  /**
+   * Listeners sorted by the longest time of a single call
+   */
+  public List<ListenerStats> getSlowestListeners(int count) {
+    return top(myListeners.values(), count, BY_MAX_TIME);
+  }
+
+  public void reset() {
+    mySources.clear();
+    myListeners.clear();
+  }
+
+  protected long nanoTime() {
+    return System.nanoTime();
+  }
+
+  protected String describe(Object o) {
+    if (o instanceof ReadableProperty) {
+      return ((ReadableProperty<?>) o).getPropExpr();
+    }
+    return o.getClass().getName() + "@" + Integer.toHexString(System.identityHashCode(o));
+  }
+
+  private static <StatsT extends Stats> List<StatsT> top(Collection<StatsT> stats, int count, Comparator<Stats> order) {
+    List<StatsT> result = new ArrayList<>(stats);
+    Collections.sort(result, order);
+    return new ArrayList<>(result.subList(0, Math.min(count, result.size())));
+  }
+
+  private static long[] copyOf(long[] array, int length) {
+    long[] result = new long[length];
+    System.arraycopy(array, 0, result, 0, array.length);
+    return result;
+  }
+
+  public abstract static class Stats {
+    private final String myName;
+    private int myCount;
+    private long myTotalNanos;
+    private long myMaxNanos;
+
+    Stats(String name) {
+      myName = name;
+    }
+
+    void add(long nanos) {
+      myCount++;
+      myTotalNanos += nanos;
+      myMaxNanos = Math.max(myMaxNanos, nanos);
+    }
+
+    public String getName() {
+      return myName;
+    }
+
+    public int getCount() {
+      return myCount;
+    }
+
+    public long getTotalNanos() {
+      return myTotalNanos;
+    }
+
+    public long getMaxNanos() {
+      return myMaxNanos;
+    }
+
+    @Override
+    public String toString() {
+      return myName + ": " + myCount + " calls, total " + myTotalNanos + " ns, max " + myMaxNanos + " ns";
+    }
+  }
+
+  public static final class SourceStats extends Stats {
+    private int myMaxListenersCount;
+    private int myMaxDepth;
+
+    private SourceStats(String name) {
+      super(name);
+    }
+
+    public int getMaxListenersCount() {
+      return myMaxListenersCount;
+    }
+
+    public int getMaxDepth() {
+      return myMaxDepth;
+    }
+
+    @Override
+    public String toString() {
+      return super.toString() + ", max listeners " + myMaxListenersCount + ", max depth " + myMaxDepth;
+    }
+  }
+
+  public static final class ListenerStats extends Stats {
+    private String myLastSource;
+
+    private ListenerStats(String name) {
+      super(name);
+    }
+
+    public String getLastSource() {
+      return myLastSource;
+    }
+
+    @Override
+    public String toString() {
+      return super.toString() + ", last source " + myLastSource;
+    }
+  }
+}
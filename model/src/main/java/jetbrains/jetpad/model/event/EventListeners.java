@@ -16,12 +16,17 @@
 package jetbrains.jetpad.model.event;
 
 public final class EventListeners<ListenerT, EventT extends ListenerEvent<ListenerT>> extends Listeners<ListenerT> {
-  public void fire(final EventT event) {
-    fire(new ListenerCaller<ListenerT>() {
-      @Override
-      public void call(ListenerT item) {
-        event.dispatch(item);
-      }
-    });
+  private static final ListenerDispatcher<Object, ListenerEvent<Object>> DISPATCHER =
+      new ListenerDispatcher<Object, ListenerEvent<Object>>() {
+        @Override
+        public void dispatch(Object l, ListenerEvent<Object> event) {
+          event.dispatch(l);
+        }
+      };
+
+  public void fire(EventT event) {
+    @SuppressWarnings("unchecked")
+    ListenerDispatcher<ListenerT, EventT> dispatcher = (ListenerDispatcher<ListenerT, EventT>) (ListenerDispatcher<?, ?>) DISPATCHER;
+    fire(event, dispatcher);
   }
 }
\ No newline at end of file
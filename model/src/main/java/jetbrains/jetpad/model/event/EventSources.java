@@ -26,6 +26,14 @@ import java.util.ArrayList;
 import java.util.List;
 
 public final class EventSources {
+  private static final ListenerDispatcher<EventHandler<Object>, Object> HANDLER_DISPATCHER =
+      new ListenerDispatcher<EventHandler<Object>, Object>() {
+        @Override
+        public void dispatch(EventHandler<Object> l, Object event) {
+          l.onEvent(event);
+        }
+      };
+
   /**
    * Event source which always dispatched the same events on subscription. It's useful for testing and
    * composition. In Rx-like libraries a similar thing is called cold observable.
@@ -114,6 +122,14 @@ public final class EventSources {
     };
   }
 
+  /**
+   * Stateless dispatcher which delivers events to {@link EventHandler}s stored in {@link Listeners}
+   */
+  @SuppressWarnings("unchecked")
+  public static <EventT> ListenerDispatcher<EventHandler<? super EventT>, EventT> handlerDispatcher() {
+    return (ListenerDispatcher<EventHandler<? super EventT>, EventT>) (ListenerDispatcher<?, ?>) HANDLER_DISPATCHER;
+  }
+
   private EventSources() {
   }
 }
@@ -19,86 +19,192 @@ package jetbrains.jetpad.model.event;
 import jetbrains.jetpad.base.Registration;
 import jetbrains.jetpad.base.ThrowableHandlers;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.io.PrintStream;
+import java.util.IdentityHashMap;
+import java.util.Map;
 
 /**
  * Reusable container for listeners.
  * It supports:
  * - managing listeners
  * - firing events
+ *
+ * Every listener occupies a slot in an array and the slot is the registration returned by {@link #add}.
+ * Removing a registration clears its slot in O(1). The array is compacted when no fire is in progress,
+ * so indices of the slots stay stable while listeners are iterated. Firing itself doesn't allocate when used
+ * with a stateless {@link ListenerDispatcher}.
+ *
+ * Fires can be observed with {@link DispatchMonitors}.
+ * If {@link #DEBUG} is set, every registration remembers where it was made, and the registrations which were
+ * never removed can be reported with {@link #checkForLeaks}.
  */
 public class Listeners<ListenerT> {
-  private List<Object> myListeners;
+  public static final boolean DEBUG = false;
+
+  private static final Slot<?>[] EMPTY = new Slot<?>[0];
+
+  private static final ListenerDispatcher<Object, ListenerCaller<Object>> CALLER_DISPATCHER =
+      new ListenerDispatcher<Object, ListenerCaller<Object>>() {
+        @Override
+        public void dispatch(Object l, ListenerCaller<Object> caller) {
+          caller.call(l);
+        }
+      };
+
+  private static final Map<Registration, RuntimeException> ourLeaks = new IdentityHashMap<>();
+
+  /**
+   * Prints stack traces of the registrations which weren't removed. Works only if {@link #DEBUG} is set.
+   *
+   * @return true if there are such registrations
+   */
+  public static boolean checkForLeaks(PrintStream stream) {
+    synchronized (ourLeaks) {
+      for (RuntimeException leak : ourLeaks.values()) {
+        leak.printStackTrace(stream);
+      }
+      return !ourLeaks.isEmpty();
+    }
+  }
+
+  private final Object mySource;
+  private Slot<?>[] mySlots = EMPTY;
+  private int myEnd;
+  private int mySize;
   private int myFireDepth;
-  private int myListenersCount;
+
+  public Listeners() {
+    this(null);
+  }
+
+  /**
+   * @param source object which owns the listeners, it's reported to {@link DispatchMonitor}
+   */
+  public Listeners(Object source) {
+    mySource = source;
+  }
 
   public boolean isEmpty() {
-    return myListeners == null || myListeners.isEmpty();
+    return mySize == 0;
   }
 
-  public Registration add(final ListenerT l) {
+  public Registration add(ListenerT l) {
     if (isEmpty()) {
       beforeFirstAdded();
     }
 
-    if (myFireDepth > 0) {
-      myListeners.add(new ListenerOp<>(l, true));
-    } else {
-      if (myListeners == null) {
-        myListeners = new ArrayList<>(1);
+    if (myEnd == mySlots.length) {
+      if (myFireDepth == 0 && mySize < myEnd) {
+        compact();
+      } else {
+        Slot<?>[] newSlots = new Slot<?>[Math.max(1, myEnd * 2)];
+        System.arraycopy(mySlots, 0, newSlots, 0, myEnd);
+        mySlots = newSlots;
       }
-      myListeners.add(l);
-      myListenersCount++;
     }
-    return new Registration() {
-      @Override
-      protected void doRemove() {
-        if (myFireDepth > 0) {
-          myListeners.add(new ListenerOp<>(l, false));
-        } else {
-          myListeners.remove(l);
-          myListenersCount--;
-        }
 
-        if (isEmpty()) {
-          afterLastRemoved();
-        }
+    Slot<ListenerT> slot = new Slot<>(this, l, myEnd);
+    mySlots[myEnd++] = slot;
+    mySize++;
+    if (DEBUG) {
+      synchronized (ourLeaks) {
+        ourLeaks.put(slot, new RuntimeException("Potential leak"));
       }
-    };
+    }
+    return slot;
+  }
+
+  private void remove(Slot<?> slot) {
+    if (DEBUG) {
+      synchronized (ourLeaks) {
+        ourLeaks.remove(slot);
+      }
+    }
+    mySlots[slot.myIndex] = null;
+    mySize--;
+
+    if (myFireDepth == 0) {
+      if (mySize == 0) {
+        myEnd = 0;
+      } else if (mySize * 2 < myEnd) {
+        compact();
+      }
+    }
+
+    if (isEmpty()) {
+      afterLastRemoved();
+    }
+  }
+
+  private void compact() {
+    int j = 0;
+    for (int i = 0; i < myEnd; i++) {
+      Slot<?> slot = mySlots[i];
+      if (slot == null) continue;
+      slot.myIndex = j;
+      mySlots[j++] = slot;
+    }
+    for (int i = j; i < myEnd; i++) {
+      mySlots[i] = null;
+    }
+    myEnd = j;
   }
 
   public void fire(ListenerCaller<ListenerT> h) {
+    @SuppressWarnings("unchecked")
+    ListenerDispatcher<ListenerT, ListenerCaller<ListenerT>> dispatcher =
+        (ListenerDispatcher<ListenerT, ListenerCaller<ListenerT>>) (ListenerDispatcher<?, ?>) CALLER_DISPATCHER;
+    fire(h, dispatcher);
+  }
+
+  /**
+   * Delivers the event to all the listeners which were added before the call.
+   * Listeners removed during the fire aren't called, listeners added during the fire are called only by the
+   * subsequent fires.
+   */
+  public <EventT> void fire(EventT event, ListenerDispatcher<? super ListenerT, ? super EventT> dispatcher) {
     if (isEmpty()) return;
-    beforeFire();
+
+    DispatchMonitor monitor = null;
+    if (DispatchMonitors.ENABLED) {
+      monitor = DispatchMonitors.fireStarted(getSource(), mySize);
+    }
+
+    int end = myEnd;
+    myFireDepth++;
     //exception can be thrown from ThrowableHandlers.handle()
     try {
-      int size = myListenersCount;
-      for (int i = 0; i < size; i++) {
+      for (int i = 0; i < end; i++) {
+        //the array can be reallocated by add() during the call, so it's re-read on every step
         @SuppressWarnings("unchecked")
-        ListenerT l = (ListenerT) myListeners.get(i);
-
-        if (isRemoved(l)) continue;
-
+        Slot<ListenerT> slot = (Slot<ListenerT>) mySlots[i];
+        if (slot == null) continue;
+        if (DispatchMonitors.ENABLED && monitor != null) {
+          monitor.onListenerStarted(getSource(), slot.myListener);
+        }
         try {
-          h.call(l);
+          dispatcher.dispatch(slot.myListener, event);
         } catch (Throwable t) {
           ThrowableHandlers.handle(t);
+        } finally {
+          if (DispatchMonitors.ENABLED && monitor != null) {
+            monitor.onListenerFinished(getSource(), slot.myListener);
+          }
         }
       }
     } finally {
-      afterFire();
+      if (DispatchMonitors.ENABLED && monitor != null) {
+        DispatchMonitors.fireFinished(monitor, getSource());
+      }
+      myFireDepth--;
+      if (myFireDepth == 0 && mySize < myEnd) {
+        compact();
+      }
     }
   }
 
-  private boolean isRemoved(ListenerT l) {
-    int size = myListeners.size();
-    for (int i = myListenersCount; i < size; i++) {
-      @SuppressWarnings("unchecked")
-      ListenerOp<ListenerT> op = (ListenerOp<ListenerT>) myListeners.get(i);
-      if (!op.add && op.listener == l) return true;
-    }
-    return false;
+  private Object getSource() {
+    return mySource != null ? mySource : this;
   }
 
   protected void beforeFirstAdded() {
@@ -107,41 +213,24 @@ public class Listeners<ListenerT> {
   protected void afterLastRemoved() {
   }
 
-  private void beforeFire() {
-    myFireDepth++;
+  public int size() {
+    return mySize;
   }
 
-  private void afterFire() {
-    myFireDepth--;
-    if (myFireDepth == 0) {
-      List<Object> opsList = myListeners.subList(myListenersCount, myListeners.size());
-      Object[] ops = opsList.toArray();
-      opsList.clear();
-      for (Object o : ops) {
-        @SuppressWarnings("unchecked")
-        ListenerOp<ListenerT> op = (ListenerOp<ListenerT>) o;
-        if (op.add) {
-          myListeners.add(op.listener);
-          myListenersCount++;
-        } else {
-          myListeners.remove(op.listener);
-          myListenersCount--;
-        }
-      }
-    }
-  }
+  private static final class Slot<ListenerT> extends Registration {
+    private final Listeners<ListenerT> myOwner;
+    private final ListenerT myListener;
+    private int myIndex;
 
-  int size() {
-    return myListeners == null ? 0 : myListeners.size();
-  }
-
-  private static class ListenerOp<ListenerT> {
-    private final ListenerT listener;
-    private final boolean add;
+    private Slot(Listeners<ListenerT> owner, ListenerT listener, int index) {
+      myOwner = owner;
+      myListener = listener;
+      myIndex = index;
+    }
 
-    ListenerOp(ListenerT listener, boolean add) {
-      this.listener = listener;
-      this.add = add;
+    @Override
+    protected void doRemove() {
+      myOwner.remove(this);
     }
   }
 }
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2012-2017 JetBrains s.r.o
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jetbrains.jetpad.model.event;
+
+import jetbrains.jetpad.base.Registration;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Group of registrations which are removed together by {@link #dispose()}, e.g. all the subscriptions of
+ * a short living view. Unlike {@link CompositeRegistration}, registrations removed individually are forgotten
+ * by the scope, so it doesn't grow with the subscriptions which come and go.
+ */
+public final class RegistrationScope extends Registration {
+  private Set<Registration> myRegistrations = new LinkedHashSet<>();
+
+  /**
+   * @return registration which removes the given one and forgets it in the scope
+   */
+  public Registration add(final Registration registration) {
+    if (myRegistrations == null) {
+      throw new IllegalStateException("Scope is disposed");
+    }
+    myRegistrations.add(registration);
+    return new Registration() {
+      @Override
+      protected void doRemove() {
+        if (myRegistrations != null && myRegistrations.remove(registration)) {
+          registration.remove();
+        }
+      }
+    };
+  }
+
+  public boolean isEmpty() {
+    return myRegistrations == null || myRegistrations.isEmpty();
+  }
+
+  @Override
+  protected void doRemove() {
+    Registration[] registrations = myRegistrations.toArray(new Registration[myRegistrations.size()]);
+    myRegistrations = null;
+    for (int i = registrations.length - 1; i > -1; i--) {
+      registrations[i].remove();
+    }
+  }
+}
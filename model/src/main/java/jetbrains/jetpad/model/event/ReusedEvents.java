@@ -0,0 +1,38 @@
+/*
+ * Copyright 2012-2017 JetBrains s.r.o
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jetbrains.jetpad.model.event;
+
+/**
+ * Support for event sources which reuse a single mutable event object for all their fires, e.g.
+ * {@code ValueProperty.setReuseEvents()} and {@code AbstractObservableList.setReuseEvents()}.
+ * Listeners of such sources must not retain the events or read them after they return.
+ *
+ * If {@link #DEBUG} is set, the sources allocate a new event for every fire and expire it when the fire is completed,
+ * so reading a retained event throws {@link IllegalStateException} and points to the listener which retained it.
+ */
+public final class ReusedEvents {
+  public static final boolean DEBUG = false;
+
+  public static void checkNotExpired(boolean expired) {
+    if (expired) {
+      throw new IllegalStateException("Event is read after its dispatch is completed. "
+          + "Listeners of sources which reuse events must not retain them.");
+    }
+  }
+
+  private ReusedEvents() {
+  }
+}
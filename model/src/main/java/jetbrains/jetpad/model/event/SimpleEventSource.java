@@ -18,15 +18,10 @@ package jetbrains.jetpad.model.event;
 import jetbrains.jetpad.base.Registration;
 
 public final class SimpleEventSource<EventT> implements EventSource<EventT> {
-  private Listeners<EventHandler<? super EventT>> myListeners = new Listeners<>();
+  private Listeners<EventHandler<? super EventT>> myListeners = new Listeners<>(this);
 
-  public void fire(final EventT event) {
-    myListeners.fire(new ListenerCaller<EventHandler<? super EventT>>() {
-      @Override
-      public void call(EventHandler<? super EventT> l) {
-        l.onEvent(event);
-      }
-    });
+  public void fire(EventT event) {
+    myListeners.fire(event, EventSources.<EventT>handlerDispatcher());
   }
 
   @Override
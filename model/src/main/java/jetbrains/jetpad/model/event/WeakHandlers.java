@@ -0,0 +1,137 @@
+/*
+ * Copyright 2012-2017 JetBrains s.r.o
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jetbrains.jetpad.model.event;
+
+import jetbrains.jetpad.base.Registration;
+import jetbrains.jetpad.model.collections.CollectionItemEvent;
+import jetbrains.jetpad.model.collections.CollectionListener;
+import jetbrains.jetpad.model.collections.ObservableCollection;
+
+import java.lang.ref.WeakReference;
+
+/**
+ * Registrations which don't keep handlers reachable from long living sources.
+ * A handler which was garbage collected is removed from the source by the next fire.
+ * The caller must keep the handler reachable for as long as it should get events.
+ *
+ * JVM only since GWT doesn't support weak references.
+ */
+public final class WeakHandlers {
+  public static <EventT> Registration addWeakHandler(
+      EventSource<? extends EventT> source, EventHandler<? super EventT> handler) {
+    WeakHandler<EventT> weakHandler = new WeakHandler<>(handler);
+    weakHandler.setRegistration(source.addHandler(weakHandler));
+    return weakHandler.createRegistration();
+  }
+
+  public static <ItemT> Registration addWeakListener(
+      ObservableCollection<? extends ItemT> collection, CollectionListener<? super ItemT> listener) {
+    WeakListener<ItemT> weakListener = new WeakListener<>(listener);
+    weakListener.setRegistration(collection.addListener(weakListener));
+    return weakListener.createRegistration();
+  }
+
+  private WeakHandlers() {
+  }
+
+  private abstract static class WeakSubscription<TargetT> {
+    private final WeakReference<TargetT> myTarget;
+    private Registration myRegistration;
+    private boolean myPurged;
+
+    WeakSubscription(TargetT target) {
+      myTarget = new WeakReference<>(target);
+    }
+
+    void setRegistration(Registration registration) {
+      myRegistration = registration;
+      if (myPurged) {
+        remove();
+      }
+    }
+
+    Registration createRegistration() {
+      return new Registration() {
+        @Override
+        protected void doRemove() {
+          WeakSubscription.this.remove();
+        }
+      };
+    }
+
+    TargetT getTarget() {
+      TargetT target = myTarget.get();
+      if (target == null) {
+        myPurged = true;
+        remove();
+      }
+      return target;
+    }
+
+    private void remove() {
+      if (myRegistration != null) {
+        myRegistration.remove();
+        myRegistration = null;
+      }
+    }
+  }
+
+  private static final class WeakHandler<EventT>
+      extends WeakSubscription<EventHandler<? super EventT>> implements EventHandler<EventT> {
+    WeakHandler(EventHandler<? super EventT> handler) {
+      super(handler);
+    }
+
+    @Override
+    public void onEvent(EventT event) {
+      EventHandler<? super EventT> handler = getTarget();
+      if (handler != null) {
+        handler.onEvent(event);
+      }
+    }
+  }
+
+  private static final class WeakListener<ItemT>
+      extends WeakSubscription<CollectionListener<? super ItemT>> implements CollectionListener<ItemT> {
+    WeakListener(CollectionListener<? super ItemT> listener) {
+      super(listener);
+    }
+
+    @Override
+    public void onItemAdded(CollectionItemEvent<? extends ItemT> event) {
+      CollectionListener<? super ItemT> listener = getTarget();
+      if (listener != null) {
+        listener.onItemAdded(event);
+      }
+    }
+
+    @Override
+    public void onItemSet(CollectionItemEvent<? extends ItemT> event) {
+      CollectionListener<? super ItemT> listener = getTarget();
+      if (listener != null) {
+        listener.onItemSet(event);
+      }
+    }
+
+    @Override
+    public void onItemRemoved(CollectionItemEvent<? extends ItemT> event) {
+      CollectionListener<? super ItemT> listener = getTarget();
+      if (listener != null) {
+        listener.onItemRemoved(event);
+      }
+    }
+  }
+}
@@ -17,7 +17,7 @@ package jetbrains.jetpad.model.property;
 
 import jetbrains.jetpad.base.Registration;
 import jetbrains.jetpad.model.event.EventHandler;
-import jetbrains.jetpad.model.event.ListenerCaller;
+import jetbrains.jetpad.model.event.EventSources;
 import jetbrains.jetpad.model.event.Listeners;
 
 import java.util.Objects;
@@ -28,6 +28,11 @@ import java.util.Objects;
 public abstract class BaseDerivedProperty<ValueT> extends BaseReadableProperty<ValueT> {
   private Listeners<EventHandler<? super PropertyChangeEvent<ValueT>>> myHandlers;
   private ValueT myValue;
+  private int myVersion;
+  private int myHeight;
+  private boolean myDirty;
+
+  private int[] myDependencyVersions;
 
   protected BaseDerivedProperty(ValueT initialValue) {
     myValue = initialValue;
@@ -50,37 +55,152 @@ public abstract class BaseDerivedProperty<ValueT> extends BaseReadableProperty<V
 
   @Override
   public final ValueT get() {
-    if (myHandlers != null) {
+    if (isCached()) {
       return myValue;
+    } else if (myHandlers == null && isLazy()) {
+      return getLazily();
     } else {
       return doGet();
     }
   }
 
+  private boolean isCached() {
+    if (myHandlers == null || myDirty) return false;
+    PropagationContext context = PropagationContext.active();
+    return context == null || !context.isCollecting();
+  }
+
+  /**
+   * Returns the cached value if versions of the dependencies haven't changed since it was calculated.
+   * Lazy dependencies check their own dependencies the same way, so nothing is calculated until something changes.
+   */
+  private ValueT getLazily() {
+    ReadableProperty<?>[] dependencies = getDependencies();
+    if (myDependencyVersions != null && dependencyVersionsMatch(dependencies)) {
+      return myValue;
+    }
+
+    ValueT newValue = doGet();
+    if (myDependencyVersions == null || !Objects.equals(myValue, newValue)) {
+      myValue = newValue;
+      myVersion = nextVersion(myVersion);
+    }
+    updateDependencyVersions(dependencies);
+    return myValue;
+  }
+
+  private boolean dependencyVersionsMatch(ReadableProperty<?>[] dependencies) {
+    for (int i = 0; i < dependencies.length; i++) {
+      if (version(dependencies[i]) != myDependencyVersions[i]) return false;
+    }
+    return true;
+  }
+
+  private void updateDependencyVersions(ReadableProperty<?>[] dependencies) {
+    int[] versions = myDependencyVersions;
+    if (versions == null) {
+      versions = new int[dependencies.length];
+    }
+    for (int i = 0; i < dependencies.length; i++) {
+      versions[i] = version(dependencies[i]);
+      if (versions[i] < 0) {
+        myDependencyVersions = null;
+        return;
+      }
+    }
+    myDependencyVersions = versions;
+  }
+
+  private static int version(ReadableProperty<?> property) {
+    if (property instanceof BaseReadableProperty) {
+      return ((BaseReadableProperty<?>) property).getVersion();
+    }
+    return -1;
+  }
+
+  @Override
+  int getVersion() {
+    if (isCached()) {
+      return myVersion;
+    }
+    if (myHandlers == null && isLazy()) {
+      getLazily();
+      return myDependencyVersions == null ? -1 : myVersion;
+    }
+    return -1;
+  }
+
+  /**
+   * Lazy properties cache their values when they don't have handlers, see {@link LazyDerivedProperty}
+   */
+  boolean isLazy() {
+    return false;
+  }
+
+  /**
+   * Properties which our value depends on, or null if the value depends on something else
+   */
+  ReadableProperty<?>[] getDependencies() {
+    return null;
+  }
+
   protected void somethingChanged() {
+    if (myHandlers != null) {
+      PropagationContext context = PropagationContext.active();
+      if (context != null) {
+        if (!myDirty) {
+          myDirty = true;
+          context.schedule(this);
+        }
+        return;
+      }
+    }
+    recalculate();
+  }
+
+  void recalculate() {
+    myDirty = false;
     ValueT newValue = doGet();
     if (Objects.equals(myValue, newValue)) return;
 
-    final PropertyChangeEvent<ValueT> event = new PropertyChangeEvent<>(myValue, newValue);
+    PropertyChangeEvent<ValueT> event = new PropertyChangeEvent<>(myValue, newValue);
     myValue = newValue;
+    myVersion = nextVersion(myVersion);
 
     if (myHandlers != null) {
-      myHandlers.fire(new ListenerCaller<EventHandler<? super PropertyChangeEvent<ValueT>>>() {
-        @Override
-        public void call(EventHandler<? super PropertyChangeEvent<ValueT>> item) {
-          item.onEvent(event);
-        }
-      });
+      myHandlers.fire(event, EventSources.<PropertyChangeEvent<ValueT>>handlerDispatcher());
+    }
+  }
+
+  /**
+   * Height is the length of the longest chain of derived properties which this one depends on.
+   * It defines the recalculation order in {@link Properties#batch(Runnable)}.
+   * Only {@link DerivedProperty} and {@link SimpleDerivedProperty} know their dependencies. Other derived
+   * properties, e.g. the ones created by {@link Properties#select}, have zero height, so the chains are cut at them.
+   */
+  int getHeight() {
+    return myHeight;
+  }
+
+  void updateHeight(ReadableProperty<?>[] dependencies) {
+    int height = 0;
+    for (ReadableProperty<?> d : dependencies) {
+      if (d instanceof BaseDerivedProperty) {
+        height = Math.max(height, ((BaseDerivedProperty<?>) d).myHeight + 1);
+      }
     }
+    myHeight = height;
   }
 
   @Override
   public Registration addHandler(EventHandler<? super PropertyChangeEvent<ValueT>> handler) {
     if (myHandlers == null) {
-      myHandlers = new Listeners<EventHandler<? super PropertyChangeEvent<ValueT>>>() {
+      myHandlers = new Listeners<EventHandler<? super PropertyChangeEvent<ValueT>>>(this) {
         @Override
         protected void beforeFirstAdded() {
           myValue = doGet();
+          myVersion = nextVersion(myVersion);
+          myDependencyVersions = null;
           doAddListeners();
         }
 
@@ -16,6 +16,21 @@
 package jetbrains.jetpad.model.property;
 
 public abstract class BaseReadableProperty<ValueT> implements ReadableProperty<ValueT> {
+  /**
+   * Versions are only compared for equality, so they wrap around on overflow. Negative numbers are skipped,
+   * since -1 stands for a property which can't track its changes.
+   */
+  static int nextVersion(int version) {
+    return version == Integer.MAX_VALUE ? 0 : version + 1;
+  }
+
+  /**
+   * Version of the current value which changes with every change, or -1 if the property can't track its changes
+   */
+  int getVersion() {
+    return -1;
+  }
+
   @Override
   public String getPropExpr() {
     return getClass().getName();
@@ -17,7 +17,7 @@ package jetbrains.jetpad.model.property;
 
 import jetbrains.jetpad.base.Registration;
 import jetbrains.jetpad.model.event.EventHandler;
-import jetbrains.jetpad.model.event.ListenerCaller;
+import jetbrains.jetpad.model.event.EventSources;
 import jetbrains.jetpad.model.event.Listeners;
 
 import java.util.Objects;
@@ -54,12 +54,7 @@ public class DelayedValueProperty<ValueT> extends BaseReadableProperty<ValueT> i
 
   public void flush() {
     if (myHandlers != null) {
-      myHandlers.fire(new ListenerCaller<EventHandler<? super PropertyChangeEvent<ValueT>>>() {
-        @Override
-        public void call(EventHandler<? super PropertyChangeEvent<ValueT>> l) {
-          l.onEvent(myPendingEvent);
-        }
-      });
+      myHandlers.fire(myPendingEvent, EventSources.<PropertyChangeEvent<ValueT>>handlerDispatcher());
     }
     myPendingEvent = null;
   }
@@ -67,7 +62,7 @@ public class DelayedValueProperty<ValueT> extends BaseReadableProperty<ValueT> i
   @Override
   public Registration addHandler(EventHandler<? super PropertyChangeEvent<ValueT>> handler) {
     if (myHandlers == null) {
-      myHandlers = new Listeners<EventHandler<? super PropertyChangeEvent<ValueT>>>() {
+      myHandlers = new Listeners<EventHandler<? super PropertyChangeEvent<ValueT>>>(this) {
         @Override
         protected void afterLastRemoved() {
           myHandlers = null;
@@ -43,6 +43,7 @@ public abstract class DerivedProperty<ValueT> extends BaseDerivedProperty<ValueT
     for (int i = 0, myDependenciesLength = deps.length; i < myDependenciesLength; i++) {
       myRegistrations[i] = register(deps[i]);
     }
+    updateHeight(deps);
   }
 
   private <DependencyT> Registration register(ReadableProperty<DependencyT> prop) {
@@ -54,6 +55,11 @@ public abstract class DerivedProperty<ValueT> extends BaseDerivedProperty<ValueT
     });
   }
 
+  @Override
+  ReadableProperty<?>[] getDependencies() {
+    return myDeps;
+  }
+
   @Override
   protected void doRemoveListeners() {
     for (Registration r : myRegistrations) {
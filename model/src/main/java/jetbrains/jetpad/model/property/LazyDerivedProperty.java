@@ -0,0 +1,39 @@
+/*
+ * Copyright 2012-2017 JetBrains s.r.o
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jetbrains.jetpad.model.property;
+
+/**
+ * {@link DerivedProperty} which caches its value when it doesn't have handlers. The cache is validated against
+ * versions of the dependencies, so repeated {@link #get()} calls only compare the versions until one of them
+ * changes, and nothing is calculated until someone reads the value.
+ * {@link #doGet()} should depend only on the dependencies. Dependencies whose changes can't be tracked, i.e.
+ * properties other than {@link ValueProperty}, derived properties and constants, disable the cache.
+ * With handlers the property behaves exactly like {@link DerivedProperty}.
+ */
+public abstract class LazyDerivedProperty<ValueT> extends DerivedProperty<ValueT> {
+  protected LazyDerivedProperty(ReadableProperty<?>... deps) {
+    super(deps);
+  }
+
+  protected LazyDerivedProperty(ValueT initialValue, ReadableProperty<?>... deps) {
+    super(initialValue, deps);
+  }
+
+  @Override
+  boolean isLazy() {
+    return true;
+  }
+}
@@ -21,7 +21,7 @@ import jetbrains.jetpad.model.collections.CollectionAdapter;
 import jetbrains.jetpad.model.collections.CollectionItemEvent;
 import jetbrains.jetpad.model.collections.list.ObservableList;
 import jetbrains.jetpad.model.event.EventHandler;
-import jetbrains.jetpad.model.event.ListenerCaller;
+import jetbrains.jetpad.model.event.EventSources;
 import jetbrains.jetpad.model.event.Listeners;
 
 /**
@@ -29,7 +29,7 @@ import jetbrains.jetpad.model.event.Listeners;
  */
 public final class ListItemProperty<ValueT> extends BaseReadableProperty<ValueT> implements Property<ValueT>, Disposable {
   private ObservableList<ValueT> myList;
-  private Listeners<EventHandler<? super PropertyChangeEvent<ValueT>>> myHandlers = new Listeners<>();
+  private Listeners<EventHandler<? super PropertyChangeEvent<ValueT>>> myHandlers = new Listeners<>(this);
   private Registration myReg;
   private boolean myDisposed = false;
 
@@ -53,13 +53,8 @@ public final class ListItemProperty<ValueT> extends BaseReadableProperty<ValueT>
       @Override
       public void onItemSet(CollectionItemEvent<? extends ValueT> event) {
         if (event.getIndex() == ListItemProperty.this.getIndex().get()) {
-          final PropertyChangeEvent<ValueT> e = new PropertyChangeEvent<>(event.getOldItem(), event.getNewItem());
-          myHandlers.fire(new ListenerCaller<EventHandler<? super PropertyChangeEvent<ValueT>>>() {
-            @Override
-            public void call(EventHandler<? super PropertyChangeEvent<ValueT>> l) {
-              l.onEvent(e);
-            }
-          });
+          PropertyChangeEvent<ValueT> e = new PropertyChangeEvent<>(event.getOldItem(), event.getNewItem());
+          myHandlers.fire(e, EventSources.<PropertyChangeEvent<ValueT>>handlerDispatcher());
         }
       }
 
@@ -69,13 +64,8 @@ public final class ListItemProperty<ValueT> extends BaseReadableProperty<ValueT>
           ListItemProperty.this.index.set(ListItemProperty.this.getIndex().get() - 1);
         } else if (event.getIndex() == ListItemProperty.this.getIndex().get()) {
           invalidate();
-          final PropertyChangeEvent<ValueT> e = new PropertyChangeEvent<>(event.getOldItem(), null);
-          myHandlers.fire(new ListenerCaller<EventHandler<? super PropertyChangeEvent<ValueT>>>() {
-            @Override
-            public void call(EventHandler<? super PropertyChangeEvent<ValueT>> l) {
-              l.onEvent(e);
-            }
-          });
+          PropertyChangeEvent<ValueT> e = new PropertyChangeEvent<>(event.getOldItem(), null);
+          myHandlers.fire(e, EventSources.<PropertyChangeEvent<ValueT>>handlerDispatcher());
         }
       }
     });
@@ -0,0 +1,191 @@
+/*
+ * Copyright 2012-2017 JetBrains s.r.o
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jetbrains.jetpad.model.property;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Per thread state of {@link Properties#batch(Runnable)}.
+ * While a batch is active, {@link ValueProperty} defers its events and {@link BaseDerivedProperty} defers
+ * recalculation. On commit, the deferred events are fired and the derived properties are recalculated in order of
+ * their heights, see {@link BaseDerivedProperty#getHeight()}. So a derived property is recalculated once after all
+ * its dependencies were updated if it's connected to the changed values only by {@link DerivedProperty}s and
+ * {@link SimpleDerivedProperty}s.
+ * The actions passed to {@link Properties#afterBatch(Runnable)} are run after that.
+ */
+final class PropagationContext {
+  // we can use ThreadLocal here because of our own emulation in jetbrains.jetpad.base.jre
+  @SuppressWarnings("NonJREEmulationClassesInClientCode")
+  private static final ThreadLocal<PropagationContext> ourContext = new ThreadLocal<PropagationContext>() {
+    @Override
+    protected PropagationContext initialValue() {
+      return new PropagationContext();
+    }
+  };
+
+  private static final Comparator<BaseDerivedProperty<?>> BY_HEIGHT = new Comparator<BaseDerivedProperty<?>>() {
+    @Override
+    public int compare(BaseDerivedProperty<?> p1, BaseDerivedProperty<?> p2) {
+      return Integer.compare(p1.getHeight(), p2.getHeight());
+    }
+  };
+
+  //number of threads which run a batch
+  private static final AtomicInteger ourActiveCount = new AtomicInteger();
+
+  static PropagationContext get() {
+    return ourContext.get();
+  }
+
+  /**
+   * @return the context of the current thread if it runs a batch, or null otherwise. It's called on every change
+   * of a property, so the thread local isn't looked up while there are no batches.
+   */
+  static PropagationContext active() {
+    if (ourActiveCount.get() == 0) return null;
+    PropagationContext context = ourContext.get();
+    return context.isActive() ? context : null;
+  }
+
+  private int myDepth;
+  private boolean myCommitting;
+  private List<ValueProperty<?>> myChangedValues = new ArrayList<>();
+  private Map<ValueProperty<?>, Object> myOldValues = new IdentityHashMap<>();
+  private final PriorityQueue<BaseDerivedProperty<?>> myDirtyProperties = new PriorityQueue<>(11, BY_HEIGHT);
+  private List<Runnable> myCommitActions = new ArrayList<>();
+
+  private PropagationContext() {
+  }
+
+  boolean isActive() {
+    return myDepth > 0;
+  }
+
+  /**
+   * Whether the batch action is running. In this state cached values of derived properties can be outdated.
+   */
+  boolean isCollecting() {
+    return myDepth > 0 && !myCommitting;
+  }
+
+  void batch(Runnable r) {
+    if (myDepth == 0) {
+      ourActiveCount.incrementAndGet();
+    }
+    myDepth++;
+    try {
+      r.run();
+    } finally {
+      try {
+        if (myDepth == 1) {
+          myCommitting = true;
+          commit();
+        }
+      } finally {
+        myDepth--;
+        if (myDepth == 0) {
+          try {
+            reset();
+          } finally {
+            myCommitting = false;
+            ourActiveCount.decrementAndGet();
+          }
+        }
+      }
+    }
+  }
+
+  <ValueT> void valueChanged(ValueProperty<ValueT> prop, ValueT oldValue) {
+    if (myOldValues.containsKey(prop)) return;
+    myOldValues.put(prop, oldValue);
+    myChangedValues.add(prop);
+  }
+
+  void schedule(BaseDerivedProperty<?> prop) {
+    myDirtyProperties.add(prop);
+  }
+
+  void afterBatch(Runnable action) {
+    if (isActive()) {
+      myCommitActions.add(action);
+    } else {
+      action.run();
+    }
+  }
+
+  private void commit() {
+    while (true) {
+      if (!myChangedValues.isEmpty()) {
+        List<ValueProperty<?>> changedValues = myChangedValues;
+        Map<ValueProperty<?>, Object> oldValues = myOldValues;
+        myChangedValues = new ArrayList<>();
+        myOldValues = new IdentityHashMap<>();
+        for (ValueProperty<?> prop : changedValues) {
+          fireValueChange(prop, oldValues.get(prop));
+        }
+        continue;
+      }
+
+      BaseDerivedProperty<?> prop = myDirtyProperties.poll();
+      if (prop != null) {
+        prop.recalculate();
+        continue;
+      }
+
+      if (myCommitActions.isEmpty()) return;
+      runCommitActions();
+    }
+  }
+
+  private void runCommitActions() {
+    List<Runnable> actions = myCommitActions;
+    myCommitActions = new ArrayList<>();
+    for (Runnable action : actions) {
+      action.run();
+    }
+  }
+
+  /**
+   * Cleans up after a commit interrupted with an exception: deferred value events are dropped and the scheduled
+   * derived properties are recalculated and the commit actions are run without batching
+   */
+  private void reset() {
+    myChangedValues.clear();
+    myOldValues.clear();
+    BaseDerivedProperty<?> prop;
+    while ((prop = myDirtyProperties.poll()) != null) {
+      prop.recalculate();
+    }
+    while (!myCommitActions.isEmpty()) {
+      runCommitActions();
+    }
+  }
+
+  private <ValueT> void fireValueChange(ValueProperty<ValueT> prop, Object oldValue) {
+    @SuppressWarnings("unchecked")
+    ValueT old = (ValueT) oldValue;
+    ValueT newValue = prop.get();
+    if (Objects.equals(old, newValue)) return;
+    prop.fireEvents(old, newValue);
+  }
+}
@@ -483,6 +483,11 @@ public final class Properties {
       public String getPropExpr() {
         return "constant(" + value + ")";
       }
+
+      @Override
+      int getVersion() {
+        return 0;
+      }
     };
   }
 
@@ -919,6 +924,26 @@ public final class Properties {
     };
   }
 
+  /**
+   * Runs the action so that events of {@link ValueProperty}s changed by it are fired after it completes, and
+   * {@link DerivedProperty}s and {@link SimpleDerivedProperty}s depending on them are recalculated once each, after
+   * all their dependencies. Other derived properties, e.g. {@link #select} results, aren't ordered this way, so
+   * the properties depending on them may be recalculated more than once.
+   * Derived values read inside of the action are calculated from the current state.
+   * Nested calls join the outer batch.
+   */
+  public static void batch(Runnable action) {
+    PropagationContext.get().batch(action);
+  }
+
+  /**
+   * Runs the action when the current {@link #batch(Runnable)} has fired all its events, or immediately if there is
+   * no batch. It lets a listener which reacts to many properties handle all their changes made by a batch at once.
+   */
+  public static void afterBatch(Runnable action) {
+    PropagationContext.get().afterBatch(action);
+  }
+
   private Properties() {
   }
 }
@@ -15,9 +15,12 @@
  */
 package jetbrains.jetpad.model.property;
 
+import jetbrains.jetpad.model.event.ReusedEvents;
+
 public final class PropertyChangeEvent<ValueT> {
   private ValueT myOldValue;
   private ValueT myNewValue;
+  private boolean myExpired;
 
   public PropertyChangeEvent(ValueT oldValue, ValueT newValue) {
     myOldValue = oldValue;
@@ -25,13 +28,28 @@ public final class PropertyChangeEvent<ValueT> {
   }
 
   public ValueT getOldValue() {
+    if (ReusedEvents.DEBUG) {
+      ReusedEvents.checkNotExpired(myExpired);
+    }
     return myOldValue;
   }
 
   public ValueT getNewValue() {
+    if (ReusedEvents.DEBUG) {
+      ReusedEvents.checkNotExpired(myExpired);
+    }
     return myNewValue;
   }
 
+  void reset(ValueT oldValue, ValueT newValue) {
+    myOldValue = oldValue;
+    myNewValue = newValue;
+  }
+
+  void expire() {
+    myExpired = true;
+  }
+
   @Override
   public String toString() {
     return myOldValue + " -> " + myNewValue;
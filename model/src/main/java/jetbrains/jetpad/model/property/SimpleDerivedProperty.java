@@ -41,6 +41,7 @@ public final class SimpleDerivedProperty<ValueT> extends BaseDerivedProperty<Val
     for (int i = 0, myDependenciesLength = myDependencies.length; i < myDependenciesLength; i++) {
       myRegistrations[i] = register(myDependencies[i]);
     }
+    updateHeight(myDependencies);
   }
 
   private <DependencyT> Registration register(ReadableProperty<DependencyT> prop) {
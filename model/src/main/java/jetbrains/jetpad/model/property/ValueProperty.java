@@ -17,8 +17,9 @@ package jetbrains.jetpad.model.property;
 
 import jetbrains.jetpad.base.Registration;
 import jetbrains.jetpad.model.event.EventHandler;
-import jetbrains.jetpad.model.event.ListenerCaller;
+import jetbrains.jetpad.model.event.EventSources;
 import jetbrains.jetpad.model.event.Listeners;
+import jetbrains.jetpad.model.event.ReusedEvents;
 
 import java.util.Objects;
 
@@ -28,6 +29,9 @@ import java.util.Objects;
 public class ValueProperty<ValueT> extends BaseReadableProperty<ValueT> implements Property<ValueT> {
   private Listeners<EventHandler<? super PropertyChangeEvent<ValueT>>> myHandlers;
   private ValueT myValue;
+  private int myVersion;
+  private boolean myReuseEvents;
+  private PropertyChangeEvent<ValueT> myFreeEvent;
 
   public ValueProperty() {
     this(null);
@@ -47,26 +51,68 @@ public class ValueProperty<ValueT> extends BaseReadableProperty<ValueT> implemen
     if (Objects.equals(value, myValue)) return;
     ValueT oldValue = myValue;
     myValue = value;
+    myVersion = nextVersion(myVersion);
 
+    if (myHandlers != null) {
+      PropagationContext context = PropagationContext.active();
+      if (context != null) {
+        context.valueChanged(this, oldValue);
+        return;
+      }
+    }
     fireEvents(oldValue, myValue);
   }
 
+  /**
+   * Makes the property fire the same mutable event object for all the changes, so that setting the value doesn't
+   * allocate. Handlers of such property must not retain the events, see {@link ReusedEvents}.
+   */
+  public void setReuseEvents(boolean reuse) {
+    myReuseEvents = reuse;
+    myFreeEvent = null;
+  }
+
   protected void fireEvents(ValueT oldValue, ValueT newValue) {
     if (myHandlers != null) {
-      final PropertyChangeEvent<ValueT> event = new PropertyChangeEvent<>(oldValue, newValue);
-      myHandlers.fire(new ListenerCaller<EventHandler<? super PropertyChangeEvent<ValueT>>>() {
-        @Override
-        public void call(EventHandler<? super PropertyChangeEvent<ValueT>> l) {
-          l.onEvent(event);
-        }
-      });
+      PropertyChangeEvent<ValueT> event = obtainEvent(oldValue, newValue);
+      try {
+        myHandlers.fire(event, EventSources.<PropertyChangeEvent<ValueT>>handlerDispatcher());
+      } finally {
+        releaseEvent(event);
+      }
     }
   }
 
+  private PropertyChangeEvent<ValueT> obtainEvent(ValueT oldValue, ValueT newValue) {
+    PropertyChangeEvent<ValueT> event = myFreeEvent;
+    if (event == null) {
+      //the event is in use if the property is changed by its handler
+      return new PropertyChangeEvent<>(oldValue, newValue);
+    }
+    myFreeEvent = null;
+    event.reset(oldValue, newValue);
+    return event;
+  }
+
+  private void releaseEvent(PropertyChangeEvent<ValueT> event) {
+    if (!myReuseEvents) return;
+    if (ReusedEvents.DEBUG) {
+      event.expire();
+    } else {
+      event.reset(null, null);
+      myFreeEvent = event;
+    }
+  }
+
+  @Override
+  int getVersion() {
+    return myVersion;
+  }
+
   @Override
   public Registration addHandler(EventHandler<? super PropertyChangeEvent<ValueT>> handler) {
     if (myHandlers == null) {
-      myHandlers = new Listeners<EventHandler<? super PropertyChangeEvent<ValueT>>>() {
+      myHandlers = new Listeners<EventHandler<? super PropertyChangeEvent<ValueT>>>(this) {
         @Override
         protected void afterLastRemoved() {
           myHandlers = null;
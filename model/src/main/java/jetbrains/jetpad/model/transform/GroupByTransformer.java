@@ -0,0 +1,217 @@
+/*
+ * Copyright 2012-2017 JetBrains s.r.o
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jetbrains.jetpad.model.transform;
+
+import jetbrains.jetpad.base.Registration;
+import jetbrains.jetpad.base.function.Function;
+import jetbrains.jetpad.model.collections.CollectionAdapter;
+import jetbrains.jetpad.model.collections.CollectionItemEvent;
+import jetbrains.jetpad.model.collections.ObservableCollection;
+import jetbrains.jetpad.model.collections.list.ObservableList;
+import jetbrains.jetpad.model.collections.list.ObservableTreeList;
+import jetbrains.jetpad.model.collections.list.UnmodifiableObservableList;
+import jetbrains.jetpad.model.collections.map.ObservableHashMap;
+import jetbrains.jetpad.model.collections.map.ObservableMap;
+import jetbrains.jetpad.model.event.EventHandler;
+import jetbrains.jetpad.model.property.PropertyChangeEvent;
+import jetbrains.jetpad.model.property.ReadableProperty;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Groups the items of a collection by a key property, see {@link Transformers#groupBy(Function)}.
+ * All the members are kept in a {@link PrefixSumTree} in the order of the source and every group is ordered by
+ * the source positions of its members, so a member which changes its key goes to the same place where a new
+ * transformation would put it. The {@link PrefixSumTree} of a group is only used to find a member's index in its list.
+ */
+class GroupByTransformer<ItemT, KeyT, CollectionT extends ObservableCollection<ItemT>>
+    extends BaseTransformer<CollectionT, ObservableMap<KeyT, ObservableList<ItemT>>> {
+  private final Function<? super ItemT, ? extends ReadableProperty<? extends KeyT>> myKey;
+
+  GroupByTransformer(Function<? super ItemT, ? extends ReadableProperty<? extends KeyT>> key) {
+    myKey = key;
+  }
+
+  @Override
+  public Transformation<CollectionT, ObservableMap<KeyT, ObservableList<ItemT>>> transform(CollectionT from) {
+    return transform(from, new ObservableHashMap<KeyT, ObservableList<ItemT>>());
+  }
+
+  @Override
+  public Transformation<CollectionT, ObservableMap<KeyT, ObservableList<ItemT>>> transform(
+      final CollectionT from, final ObservableMap<KeyT, ObservableList<ItemT>> to) {
+    return new Transformation<CollectionT, ObservableMap<KeyT, ObservableList<ItemT>>>() {
+      private final Map<KeyT, Group<ItemT, KeyT>> myGroups = new HashMap<>();
+      private final PrefixSumTree<Position<ItemT, KeyT>> myPositions = new PrefixSumTree<>();
+      //events of other collections don't have indices, their items are found by identity
+      //since equal items may belong to different groups
+      private final Map<ItemT, Member<ItemT, KeyT>> myMembers =
+          from instanceof List ? null : new IdentityHashMap<ItemT, Member<ItemT, KeyT>>();
+      private Registration myCollectionRegistration;
+
+      {
+        to.clear();
+        for (ItemT item : from) {
+          watch(item, myPositions.size());
+        }
+
+        myCollectionRegistration = from.addListener(new CollectionAdapter<ItemT>() {
+          @Override
+          public void onItemAdded(CollectionItemEvent<? extends ItemT> event) {
+            watch(event.getNewItem(), myMembers == null ? event.getIndex() : myPositions.size());
+          }
+
+          @Override
+          public void onItemRemoved(CollectionItemEvent<? extends ItemT> event) {
+            Member<ItemT, KeyT> member = myMembers == null
+                ? myPositions.get(event.getIndex()).myMember : myMembers.remove(event.getOldItem());
+            if (member == null) {
+              throw new IllegalStateException("Item " + event.getOldItem() + " hasn't been added");
+            }
+            unwatch(member);
+          }
+        });
+      }
+
+      @Override
+      public CollectionT getSource() {
+        return from;
+      }
+
+      @Override
+      public ObservableMap<KeyT, ObservableList<ItemT>> getTarget() {
+        return to;
+      }
+
+      @Override
+      protected void doDispose() {
+        myCollectionRegistration.remove();
+        for (int i = 0; i < myPositions.size(); i++) {
+          myPositions.get(i).myMember.myRegistration.remove();
+        }
+        if (myMembers != null) {
+          myMembers.clear();
+        }
+        myGroups.clear();
+      }
+
+      private void watch(ItemT item, int index) {
+        final ReadableProperty<? extends KeyT> key = myKey.apply(item);
+        if (key == null) {
+          throw new NullPointerException();
+        }
+        final Member<ItemT, KeyT> member = new Member<>(item);
+        member.myRegistration = key.addHandler(new EventHandler<PropertyChangeEvent<? extends KeyT>>() {
+          @Override
+          public void onEvent(PropertyChangeEvent<? extends KeyT> event) {
+            KeyT newKey = key.get();
+            if (Objects.equals(newKey, member.myKey)) return;
+            leave(member);
+            join(member, newKey);
+          }
+        });
+        myPositions.add(index, member.myPosition);
+        if (myMembers != null) {
+          myMembers.put(item, member);
+        }
+        join(member, key.get());
+      }
+
+      private void unwatch(Member<ItemT, KeyT> member) {
+        member.myRegistration.remove();
+        leave(member);
+        myPositions.remove(myPositions.indexOf(member.myPosition));
+      }
+
+      private void join(Member<ItemT, KeyT> member, KeyT key) {
+        member.myKey = key;
+        Group<ItemT, KeyT> group = myGroups.get(key);
+        boolean created = group == null;
+        if (created) {
+          group = new Group<>();
+          myGroups.put(key, group);
+        }
+        int index = group.myMembers.size();
+        if (index > 0 && rank(group.myMembers.get(index - 1)) > rank(member)) {
+          index = insertionIndex(group, rank(member));
+        }
+        group.myMembers.add(index, member);
+        group.myItems.add(index, member.myItem);
+        if (created) {
+          to.put(key, group.myView);
+        }
+      }
+
+      private void leave(Member<ItemT, KeyT> member) {
+        Group<ItemT, KeyT> group = myGroups.get(member.myKey);
+        int index = group.myMembers.indexOf(member);
+        group.myMembers.remove(index);
+        group.myItems.remove(index);
+        if (group.myMembers.size() == 0) {
+          myGroups.remove(member.myKey);
+          to.remove(member.myKey);
+        }
+      }
+
+      private int insertionIndex(Group<ItemT, KeyT> group, int rank) {
+        int low = 0;
+        int high = group.myMembers.size();
+        while (low < high) {
+          int middle = (low + high) >>> 1;
+          if (rank(group.myMembers.get(middle)) < rank) {
+            low = middle + 1;
+          } else {
+            high = middle;
+          }
+        }
+        return low;
+      }
+
+      private int rank(Member<ItemT, KeyT> member) {
+        return myPositions.indexOf(member.myPosition);
+      }
+    };
+  }
+
+  private static class Group<ItemT, KeyT> {
+    final ObservableList<ItemT> myItems = new ObservableTreeList<>();
+    final ObservableList<ItemT> myView = new UnmodifiableObservableList<>(myItems);
+    final PrefixSumTree<Member<ItemT, KeyT>> myMembers = new PrefixSumTree<>();
+  }
+
+  private static class Member<ItemT, KeyT> extends PrefixSumTree.Node {
+    final ItemT myItem;
+    final Position<ItemT, KeyT> myPosition = new Position<>(this);
+    KeyT myKey;
+    Registration myRegistration;
+
+    Member(ItemT item) {
+      myItem = item;
+    }
+  }
+
+  private static class Position<ItemT, KeyT> extends PrefixSumTree.Node {
+    final Member<ItemT, KeyT> myMember;
+
+    Position(Member<ItemT, KeyT> member) {
+      myMember = member;
+    }
+  }
+}
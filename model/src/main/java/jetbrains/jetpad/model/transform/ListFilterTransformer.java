@@ -0,0 +1,282 @@
+/*
+ * Copyright 2012-2017 JetBrains s.r.o
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jetbrains.jetpad.model.transform;
+
+import jetbrains.jetpad.base.Registration;
+import jetbrains.jetpad.base.function.Function;
+import jetbrains.jetpad.model.collections.CollectionAdapter;
+import jetbrains.jetpad.model.collections.CollectionItemEvent;
+import jetbrains.jetpad.model.collections.ObservableCollection;
+import jetbrains.jetpad.model.collections.list.ObservableArrayList;
+import jetbrains.jetpad.model.collections.list.ObservableList;
+import jetbrains.jetpad.model.event.EventHandler;
+import jetbrains.jetpad.model.property.Properties;
+import jetbrains.jetpad.model.property.PropertyChangeEvent;
+import jetbrains.jetpad.model.property.ReadableProperty;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Filter which keeps the order of the source. A list source is mirrored by a {@link PrefixSumTree} where visible
+ * items weigh 1, so the target index of an item is found in O(log n). Filter changes are collected and applied
+ * by one pass in the order of the source, see {@link Properties#afterBatch(Runnable)}, which adds adjacent items
+ * by one {@link List#addAll(int, java.util.Collection)} and removes them by one range removal.
+ * Other collections are filtered by walking the source and the target in lockstep.
+ */
+class ListFilterTransformer<ItemT, CollectionT extends ObservableCollection<ItemT>>
+    extends BaseFilterTransformer<ItemT, CollectionT, ObservableList<ItemT>> {
+  private final Function<ItemT, ReadableProperty<Boolean>> myFilterBy;
+
+  ListFilterTransformer(Function<ItemT, ReadableProperty<Boolean>> filterBy) {
+    super(filterBy);
+    myFilterBy = filterBy;
+  }
+
+  @Override
+  public Transformation<CollectionT, ObservableList<ItemT>> transform(CollectionT from, ObservableList<ItemT> to) {
+    if (from instanceof ObservableList) {
+      return new IndexedTransformation(from, to);
+    }
+    return super.transform(from, to);
+  }
+
+  @Override
+  protected void add(ItemT item, CollectionT from, ObservableList<ItemT> to) {
+    Iterator<ItemT> fromItr = from.iterator();
+    int index = 0;
+    boolean foundItem = false;
+    for (ItemT curTo : to) {
+      while (fromItr.hasNext()) {
+        ItemT curFrom = fromItr.next();
+        if (curFrom == curTo) {
+          break;
+        }
+        if (curFrom == item) {
+          foundItem = true;
+          break;
+        }
+      }
+      if (foundItem) {
+        break;
+      }
+      index++;
+    }
+    if (!fromItr.hasNext() && !foundItem) {
+      throw new IllegalStateException("item " + item + " has not been found in " + from);
+    }
+    to.add(index, item);
+  }
+
+  @Override
+  protected ObservableList<ItemT> createTo() {
+    return new ObservableArrayList<>();
+  }
+
+  private static boolean isTrue(Boolean value) {
+    return value != null && value;
+  }
+
+  private static boolean isVisible(PrefixSumTree.Node node) {
+    return node.getWeight() == 1;
+  }
+
+  private static class ItemNode<ItemT> extends PrefixSumTree.Node {
+    final ItemT myItem;
+    final ReadableProperty<Boolean> myFilter;
+    Registration myRegistration;
+    boolean myChanged;
+
+    ItemNode(ItemT item, ReadableProperty<Boolean> filter) {
+      myItem = item;
+      myFilter = filter;
+    }
+  }
+
+  private class IndexedTransformation extends Transformation<CollectionT, ObservableList<ItemT>> {
+    private final CollectionT myFrom;
+    private final ObservableList<ItemT> myTo;
+    private final PrefixSumTree<ItemNode<ItemT>> myTree = new PrefixSumTree<>();
+    private final Registration myCollectionRegistration;
+    private List<ItemNode<ItemT>> myChanged = new ArrayList<>();
+    private boolean myUpdating;
+    private final Runnable myUpdate = new Runnable() {
+      @Override
+      public void run() {
+        update();
+      }
+    };
+
+    private IndexedTransformation(CollectionT from, ObservableList<ItemT> to) {
+      myFrom = from;
+      myTo = to;
+
+      List<ItemT> visible = new ArrayList<>();
+      int index = 0;
+      for (ItemT item : from) {
+        ItemNode<ItemT> node = watch(index++, item);
+        if (isTrue(node.myFilter.get())) {
+          myTree.setWeight(node, 1);
+          visible.add(item);
+        }
+      }
+      to.addAll(visible);
+
+      myCollectionRegistration = from.addListener(new CollectionAdapter<ItemT>() {
+        @Override
+        public void onItemAdded(CollectionItemEvent<? extends ItemT> event) {
+          ItemNode<ItemT> node = watch(event.getIndex(), event.getNewItem());
+          if (isTrue(node.myFilter.get())) {
+            myTree.setWeight(node, 1);
+            myTo.add(myTree.weightBefore(node), node.myItem);
+          }
+        }
+
+        @Override
+        public void onItemRemoved(CollectionItemEvent<? extends ItemT> event) {
+          ItemNode<ItemT> node = myTree.get(event.getIndex());
+          if (isVisible(node)) {
+            myTo.remove(myTree.weightBefore(node));
+          }
+          myTree.remove(event.getIndex());
+          node.myRegistration.remove();
+          node.myChanged = false;
+        }
+      });
+    }
+
+    @Override
+    public CollectionT getSource() {
+      return myFrom;
+    }
+
+    @Override
+    public ObservableList<ItemT> getTarget() {
+      return myTo;
+    }
+
+    @Override
+    protected void doDispose() {
+      myCollectionRegistration.remove();
+      for (int i = 0; i < myTree.size(); i++) {
+        myTree.get(i).myRegistration.remove();
+      }
+      myChanged.clear();
+    }
+
+    private ItemNode<ItemT> watch(int index, ItemT item) {
+      final ItemNode<ItemT> node = new ItemNode<>(item, myFilterBy.apply(item));
+      node.myRegistration = node.myFilter.addHandler(new EventHandler<PropertyChangeEvent<Boolean>>() {
+        @Override
+        public void onEvent(PropertyChangeEvent<Boolean> event) {
+          if (node.myChanged) return;
+          node.myChanged = true;
+          myChanged.add(node);
+          if (myChanged.size() == 1) {
+            Properties.afterBatch(myUpdate);
+          }
+        }
+      });
+      myTree.add(index, node);
+      return node;
+    }
+
+    private void update() {
+      //listeners of the target can change filters or the source, the outer call applies such changes by next passes
+      if (myUpdating) return;
+      myUpdating = true;
+      try {
+        while (!myChanged.isEmpty()) {
+          applyChanges();
+        }
+      } finally {
+        myUpdating = false;
+      }
+    }
+
+    private void applyChanges() {
+      final List<ItemNode<ItemT>> changed = myChanged;
+      myChanged = new ArrayList<>();
+      List<ItemNode<ItemT>> flipped = new ArrayList<>();
+      for (ItemNode<ItemT> node : changed) {
+        if (node.myChanged) {
+          node.myChanged = false;
+          if (isFlipped(node)) {
+            flipped.add(node);
+          }
+        }
+      }
+      if (flipped.size() > 1) {
+        Collections.sort(flipped, new Comparator<ItemNode<ItemT>>() {
+          @Override
+          public int compare(ItemNode<ItemT> n1, ItemNode<ItemT> n2) {
+            return Integer.compare(myTree.indexOf(n1), myTree.indexOf(n2));
+          }
+        });
+      }
+
+      //a run of flipped items which are adjacent in the target
+      List<ItemT> added = new ArrayList<>();
+      int runStart = -1;
+      int removedCount = 0;
+      for (ItemNode<ItemT> node : flipped) {
+        //the events of the previous runs could have changed the node, its filter or its position
+        if (!isFlipped(node)) continue;
+        int index = myTree.weightBefore(node);
+        boolean adding = !isVisible(node);
+        if (adding ? removedCount > 0 || index != runStart + added.size() : !added.isEmpty() || index != runStart) {
+          flush(runStart, added, removedCount);
+          removedCount = 0;
+          if (!isFlipped(node)) {
+            runStart = -1;
+            continue;
+          }
+          index = myTree.weightBefore(node);
+          runStart = index;
+        }
+        myTree.setWeight(node, adding ? 1 : 0);
+        if (adding) {
+          added.add(node.myItem);
+        } else {
+          removedCount++;
+        }
+      }
+      flush(runStart, added, removedCount);
+    }
+
+    private boolean isFlipped(ItemNode<ItemT> node) {
+      return myTree.contains(node) && isTrue(node.myFilter.get()) != isVisible(node);
+    }
+
+    private void flush(int index, List<ItemT> added, int removedCount) {
+      if (!added.isEmpty()) {
+        if (added.size() == 1) {
+          myTo.add(index, added.get(0));
+        } else {
+          myTo.addAll(index, added);
+        }
+        added.clear();
+      } else if (removedCount == 1) {
+        myTo.remove(index);
+      } else if (removedCount > 1) {
+        myTo.subList(index, index + removedCount).clear();
+      }
+    }
+  }
+}
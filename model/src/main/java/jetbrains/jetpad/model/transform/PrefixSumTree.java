@@ -0,0 +1,198 @@
+/*
+ * Copyright 2012-2017 JetBrains s.r.o
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jetbrains.jetpad.model.transform;
+
+import java.util.Random;
+
+/**
+ * Treap of the items of a source list with the sums of item weights in its subtrees. A node finds its position
+ * in the source and the sum of the weights before it, i.e. its position in a filtered or flattened list, in O(log n).
+ */
+final class PrefixSumTree<NodeT extends PrefixSumTree.Node> {
+  static class Node {
+    Node myLeft;
+    Node myRight;
+    Node myParent;
+    int myPriority;
+    int mySize;
+    int myWeightSum;
+    int myWeight;
+
+    int getWeight() {
+      return myWeight;
+    }
+  }
+
+  private final Random myRandom = new Random();
+  private Node myRoot;
+  //results of split()
+  private Node myFirst;
+  private Node mySecond;
+
+  int size() {
+    return size(myRoot);
+  }
+
+  int weightSum() {
+    return weightSum(myRoot);
+  }
+
+  void add(int index, NodeT node) {
+    if (index < 0 || index > size()) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+    }
+    node.myLeft = null;
+    node.myRight = null;
+    node.myPriority = myRandom.nextInt();
+    update(node);
+
+    split(myRoot, index);
+    Node first = myFirst;
+    Node second = mySecond;
+    setRoot(merge(merge(first, node), second));
+  }
+
+  NodeT remove(int index) {
+    NodeT node = get(index);
+    split(myRoot, index);
+    Node first = myFirst;
+    split(mySecond, 1);
+    setRoot(merge(first, mySecond));
+    node.myParent = null;
+    return node;
+  }
+
+  NodeT get(int index) {
+    if (index < 0 || index >= size()) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+    }
+    Node node = myRoot;
+    while (true) {
+      int leftSize = size(node.myLeft);
+      if (index < leftSize) {
+        node = node.myLeft;
+      } else if (index == leftSize) {
+        @SuppressWarnings("unchecked")
+        NodeT result = (NodeT) node;
+        return result;
+      } else {
+        index -= leftSize + 1;
+        node = node.myRight;
+      }
+    }
+  }
+
+  boolean contains(NodeT node) {
+    Node n = node;
+    while (n.myParent != null) {
+      n = n.myParent;
+    }
+    return n == myRoot;
+  }
+
+  int indexOf(NodeT node) {
+    int index = size(node.myLeft);
+    for (Node n = node; n.myParent != null; n = n.myParent) {
+      if (n.myParent.myRight == n) {
+        index += size(n.myParent.myLeft) + 1;
+      }
+    }
+    return index;
+  }
+
+  /**
+   * @return the sum of the weights of the nodes before the given one
+   */
+  int weightBefore(NodeT node) {
+    int sum = weightSum(node.myLeft);
+    for (Node n = node; n.myParent != null; n = n.myParent) {
+      Node parent = n.myParent;
+      if (parent.myRight == n) {
+        sum += weightSum(parent.myLeft) + parent.myWeight;
+      }
+    }
+    return sum;
+  }
+
+  void setWeight(NodeT node, int weight) {
+    int delta = weight - node.myWeight;
+    if (delta == 0) return;
+    node.myWeight = weight;
+    for (Node n = node; n != null; n = n.myParent) {
+      n.myWeightSum += delta;
+    }
+  }
+
+  private void setRoot(Node root) {
+    myRoot = root;
+    if (root != null) {
+      root.myParent = null;
+    }
+  }
+
+  /**
+   * Splits the tree into myFirst with the first count nodes and mySecond with the rest
+   */
+  private void split(Node tree, int count) {
+    if (tree == null) {
+      myFirst = null;
+      mySecond = null;
+    } else if (size(tree.myLeft) >= count) {
+      split(tree.myLeft, count);
+      tree.myLeft = mySecond;
+      update(tree);
+      mySecond = tree;
+    } else {
+      split(tree.myRight, count - size(tree.myLeft) - 1);
+      tree.myRight = myFirst;
+      update(tree);
+      myFirst = tree;
+    }
+  }
+
+  private Node merge(Node first, Node second) {
+    if (first == null) return second;
+    if (second == null) return first;
+    if (first.myPriority > second.myPriority) {
+      first.myRight = merge(first.myRight, second);
+      update(first);
+      return first;
+    } else {
+      second.myLeft = merge(first, second.myLeft);
+      update(second);
+      return second;
+    }
+  }
+
+  private static void update(Node node) {
+    node.mySize = 1 + size(node.myLeft) + size(node.myRight);
+    node.myWeightSum = node.myWeight + weightSum(node.myLeft) + weightSum(node.myRight);
+    if (node.myLeft != null) {
+      node.myLeft.myParent = node;
+    }
+    if (node.myRight != null) {
+      node.myRight.myParent = node;
+    }
+  }
+
+  private static int size(Node node) {
+    return node == null ? 0 : node.mySize;
+  }
+
+  private static int weightSum(Node node) {
+    return node == null ? 0 : node.myWeightSum;
+  }
+}
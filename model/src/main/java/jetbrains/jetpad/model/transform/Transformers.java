@@ -23,11 +23,19 @@ import jetbrains.jetpad.model.collections.CollectionAdapter;
 import jetbrains.jetpad.model.collections.CollectionItemEvent;
 import jetbrains.jetpad.model.collections.CollectionListener;
 import jetbrains.jetpad.model.collections.ObservableCollection;
+import jetbrains.jetpad.model.collections.list.ListRangeAdapter;
+import jetbrains.jetpad.model.collections.list.ListRangeEvent;
+import jetbrains.jetpad.model.collections.list.ListRangeListener;
 import jetbrains.jetpad.model.collections.list.ObservableArrayList;
+import jetbrains.jetpad.model.collections.list.ObservableIdentityTreeList;
 import jetbrains.jetpad.model.collections.list.ObservableList;
+import jetbrains.jetpad.model.collections.list.ObservableTreeList;
+import jetbrains.jetpad.model.collections.map.ObservableMap;
 import jetbrains.jetpad.model.collections.set.ObservableHashSet;
+import jetbrains.jetpad.model.collections.set.ObservableLinkedHashSet;
 import jetbrains.jetpad.model.event.CompositeRegistration;
 import jetbrains.jetpad.model.event.EventHandler;
+import jetbrains.jetpad.model.property.Properties;
 import jetbrains.jetpad.model.property.PropertyChangeEvent;
 import jetbrains.jetpad.model.property.ReadableProperty;
 
@@ -139,7 +147,7 @@ public final class Transformers {
           ObservableList<SourceT> from, final ObservableList<TargetT> to) {
         final List<Registration> itemRegistrations = new ArrayList<>();
 
-        CollectionListener<SourceT> listener = new CollectionListener<SourceT>() {
+        ListRangeListener<SourceT> listener = new ListRangeListener<SourceT>() {
           @Override
           public void onItemAdded(CollectionItemEvent<? extends SourceT> event) {
             Transformation<SourceT, TargetT> transformation = transformer.transform(event.getNewItem());
@@ -147,6 +155,19 @@ public final class Transformers {
             itemRegistrations.add(event.getIndex(), Registration.from(transformation));
           }
 
+          @Override
+          public void onItemsAdded(ListRangeEvent<? extends SourceT> event) {
+            List<TargetT> targets = new ArrayList<>(event.size());
+            List<Registration> registrations = new ArrayList<>(event.size());
+            for (SourceT item : event.getItems()) {
+              Transformation<SourceT, TargetT> transformation = transformer.transform(item);
+              targets.add(transformation.getTarget());
+              registrations.add(Registration.from(transformation));
+            }
+            to.addAll(event.getIndex(), targets);
+            itemRegistrations.addAll(event.getIndex(), registrations);
+          }
+
           @Override
           public void onItemSet(CollectionItemEvent<? extends SourceT> event) {
             Transformation<SourceT, TargetT> transformation = transformer.transform(event.getNewItem());
@@ -160,12 +181,21 @@ public final class Transformers {
             to.remove(event.getIndex());
             itemRegistrations.remove(event.getIndex()).remove();
           }
+
+          @Override
+          public void onItemsRemoved(ListRangeEvent<? extends SourceT> event) {
+            int index = event.getIndex();
+            to.subList(index, index + event.size()).clear();
+            List<Registration> removed = itemRegistrations.subList(index, index + event.size());
+            for (Registration r : removed) {
+              r.remove();
+            }
+            removed.clear();
+          }
         };
 
 
-        for (int i = 0; i < from.size(); i++) {
-          listener.onItemAdded(new CollectionItemEvent<>(null, from.get(i), i, EventType.ADD));
-        }
+        listener.onItemsAdded(new ListRangeEvent<>(new ArrayList<>(from), 0, EventType.ADD));
 
         final Registration reg = from.addListener(listener);
         return new SimpleTransformation<>(from, to, new Registration() {
@@ -243,7 +273,7 @@ public final class Transformers {
     return new BaseTransformer<CollectionT, ObservableList<ItemT>>() {
       @Override
       public Transformation<CollectionT, ObservableList<ItemT>> transform(CollectionT from) {
-        return transform(from, new ObservableArrayList<ItemT>());
+        return transform(from, new ObservableTreeList<ItemT>());
       }
 
       @Override
@@ -251,41 +281,57 @@ public final class Transformers {
           final CollectionT from, final ObservableList<ItemT> to) {
         return new Transformation<CollectionT, ObservableList<ItemT>>() {
           private Registration myCollectionReg;
-          private CollectionListener<ItemT> myCollectionListener;
-          private Map<ItemT, Registration> myListeners = new HashMap<>();
+          //entries in the order of the target, an entry finds its index in O(log n)
+          private ObservableIdentityTreeList<SortedEntry<ItemT>> mySorted = new ObservableIdentityTreeList<>();
+          //equal items may have different keys, so they are told apart by identity
+          private Map<ItemT, SortedEntry<ItemT>> myEntries = new IdentityHashMap<>();
+          //entries whose keys have changed since the last update of the order
+          private List<SortedEntry<ItemT>> myChanged = new ArrayList<>();
+          private final Runnable myReorder = new Runnable() {
+            @Override
+            public void run() {
+              reorder();
+            }
+          };
 
           {
-            myCollectionReg = from.addListener(myCollectionListener = new CollectionAdapter<ItemT>() {
+            myCollectionReg = from.addListener(new CollectionAdapter<ItemT>() {
               @Override
               public void onItemAdded(CollectionItemEvent<? extends ItemT> event) {
-                ItemT item = event.getNewItem();
-                watch(item, to);
-
-                int pos = Collections.binarySearch(to, item, comparator);
-                int insertIndex = pos >= 0 ? pos + 1 : -(pos + 1);
-                to.add(insertIndex, item);
+                reorder();
+                SortedEntry<ItemT> entry = watch(event.getNewItem());
+                insert(entry);
               }
 
               @Override
               public void onItemRemoved(CollectionItemEvent<? extends ItemT> event) {
-                ItemT item = event.getOldItem();
-
-                int sortedIndex = to.indexOf(item);
-                if (sortedIndex == -1) {
-                  throw new IllegalStateException();
-                }
-
-                to.remove(sortedIndex);
-                unwatch(item);
+                SortedEntry<ItemT> entry = unwatch(event.getOldItem());
+                removeAt(mySorted.indexOf(entry));
+                entry.myChanged = false;
               }
             });
 
-
+            //sorted before being added, so that the target list can be identity indexed
+            List<SortedEntry<ItemT>> entries = new ArrayList<>();
+            for (ItemT item : to) {
+              entries.add(new SortedEntry<>(item));
+            }
             for (ItemT item : from) {
-              watch(item, to);
-              to.add(item);
+              entries.add(watch(item));
             }
-            Collections.sort(to, comparator);
+            Collections.sort(entries, new Comparator<SortedEntry<ItemT>>() {
+              @Override
+              public int compare(SortedEntry<ItemT> e1, SortedEntry<ItemT> e2) {
+                return comparator.compare(e1.myItem, e2.myItem);
+              }
+            });
+            List<ItemT> items = new ArrayList<>(entries.size());
+            for (SortedEntry<ItemT> entry : entries) {
+              items.add(entry.myItem);
+            }
+            mySorted.addAll(entries);
+            to.clear();
+            to.addAll(items);
           }
 
 
@@ -302,42 +348,123 @@ public final class Transformers {
           @Override
           protected void doDispose() {
             myCollectionReg.remove();
-            for (ItemT item : from) {
-              unwatch(item);
+            for (SortedEntry<ItemT> entry : myEntries.values()) {
+              for (SortedEntry<ItemT> e = entry; e != null; e = e.myNext) {
+                e.myRegistration.remove();
+              }
             }
+            myEntries.clear();
+            myChanged.clear();
           }
 
-          private void watch(final ItemT item, final ObservableList<ItemT> to) {
+          private SortedEntry<ItemT> watch(ItemT item) {
             ReadableProperty<ValueT> property = propSpec.apply(item);
             if (property == null) {
               throw new NullPointerException();
             }
-            myListeners.put(item, property.addHandler(new EventHandler<PropertyChangeEvent<ValueT>>() {
+            final SortedEntry<ItemT> entry = new SortedEntry<>(item);
+            entry.myRegistration = property.addHandler(new EventHandler<PropertyChangeEvent<ValueT>>() {
               @Override
               public void onEvent(PropertyChangeEvent<ValueT> event) {
-                boolean needMove = false;
-                int sortedIndex = to.indexOf(item);
-                if (sortedIndex > 0) {
-                  ItemT before = to.get(sortedIndex - 1);
-                  if (comparator.compare(before, item) > 0) {
-                    needMove = true;
-                  }
-                }
-                if (sortedIndex < to.size() - 1) {
-                  ItemT after = to.get(sortedIndex + 1);
-                  if (comparator.compare(item, after) > 0) {
-                    needMove = true;
+                boolean scheduled = !myChanged.isEmpty();
+                //other occurrences of the item are likely to share the property
+                for (SortedEntry<ItemT> e = myEntries.get(entry.myItem); e != null; e = e.myNext) {
+                  if (!e.myChanged) {
+                    e.myChanged = true;
+                    myChanged.add(e);
                   }
                 }
-                if (needMove) {
-                  myCollectionListener.onItemSet(new CollectionItemEvent<>(item, item, -1, EventType.SET));
+                if (!scheduled && !myChanged.isEmpty()) {
+                  Properties.afterBatch(myReorder);
                 }
               }
-            }));
+            });
+            entry.myNext = myEntries.put(item, entry);
+            return entry;
+          }
+
+          private SortedEntry<ItemT> unwatch(ItemT item) {
+            SortedEntry<ItemT> entry = myEntries.remove(item);
+            if (entry == null) {
+              throw new IllegalStateException();
+            }
+            if (entry.myNext != null) {
+              myEntries.put(item, entry.myNext);
+            }
+            entry.myRegistration.remove();
+            return entry;
+          }
+
+          /**
+           * Moves the entries with changed keys to their places. The entries out of place are removed first,
+           * and once one is removed, its neighbours with changed keys are checked again. After that the rest of
+           * the entries are in order, and the removed ones are inserted back.
+           */
+          private void reorder() {
+            if (myChanged.isEmpty()) return;
+
+            List<SortedEntry<ItemT>> changed = myChanged;
+            myChanged = new ArrayList<>();
+            List<SortedEntry<ItemT>> queue = new ArrayList<>(changed);
+            List<SortedEntry<ItemT>> removed = new ArrayList<>();
+            for (SortedEntry<ItemT> entry : queue) {
+              entry.myQueued = true;
+            }
+            while (!queue.isEmpty()) {
+              SortedEntry<ItemT> entry = queue.remove(queue.size() - 1);
+              entry.myQueued = false;
+              if (!entry.myChanged) continue;
+
+              int index = mySorted.indexOf(entry);
+              if (isInPlace(index, entry.myItem)) continue;
+
+              removeAt(index);
+              entry.myChanged = false;
+              removed.add(entry);
+              requeue(index - 1, queue);
+              requeue(index, queue);
+            }
+
+            for (SortedEntry<ItemT> entry : changed) {
+              entry.myChanged = false;
+            }
+            for (SortedEntry<ItemT> entry : removed) {
+              insert(entry);
+            }
           }
 
-          private void unwatch(ItemT item) {
-            myListeners.remove(item).remove();
+          private void requeue(int index, List<SortedEntry<ItemT>> queue) {
+            if (index < 0 || index >= mySorted.size()) return;
+            SortedEntry<ItemT> entry = mySorted.get(index);
+            if (entry.myChanged && !entry.myQueued) {
+              entry.myQueued = true;
+              queue.add(entry);
+            }
+          }
+
+          private boolean isInPlace(int index, ItemT item) {
+            return (index == 0 || comparator.compare(mySorted.get(index - 1).myItem, item) <= 0)
+                && (index == mySorted.size() - 1 || comparator.compare(item, mySorted.get(index + 1).myItem) <= 0);
+          }
+
+          private void insert(SortedEntry<ItemT> entry) {
+            int low = 0;
+            int high = mySorted.size();
+            while (low < high) {
+              int mid = (low + high) >>> 1;
+              if (comparator.compare(mySorted.get(mid).myItem, entry.myItem) <= 0) {
+                low = mid + 1;
+              } else {
+                high = mid;
+              }
+            }
+            mySorted.add(low, entry);
+            to.add(low, entry.myItem);
+          }
+
+          private void removeAt(int index) {
+            mySorted.remove(index);
+            to.remove(index);
           }
         };
       }
@@ -400,10 +527,11 @@ public final class Transformers {
             });
 
 
-            for (ItemT item : from) {
-              to.add(item);
-            }
-            Collections.sort(to, comparator);
+            List<ItemT> items = new ArrayList<>(to);
+            items.addAll(from);
+            Collections.sort(items, comparator);
+            to.clear();
+            to.addAll(items);
           }
 
 
@@ -427,6 +555,10 @@ public final class Transformers {
     };
   }
 
+  private static int nonNegative(Integer value) {
+    return value == null ? 0 : Math.max(value, 0);
+  }
+
   private static int compareNulls(Object o1, Object o2) {
     if (o1 == o2) return 0;
     if (o1 == null) {
@@ -439,39 +571,7 @@ public final class Transformers {
 
   public static <ItemT, CollectionT extends ObservableCollection<ItemT>>
   Transformer<CollectionT, ObservableList<ItemT>> listFilter(Function<ItemT, ReadableProperty<Boolean>> filterBy) {
-    return new BaseFilterTransformer<ItemT, CollectionT, ObservableList<ItemT>>(filterBy) {
-      @Override
-      protected void add(ItemT item, CollectionT from, ObservableList<ItemT> to) {
-        Iterator<ItemT> fromItr = from.iterator();
-        int index = 0;
-        boolean foundItem = false;
-        for (ItemT curTo : to) {
-          while (fromItr.hasNext()) {
-            ItemT curFrom = fromItr.next();
-            if (curFrom == curTo) {
-              break;
-            }
-            if (curFrom == item) {
-              foundItem = true;
-              break;
-            }
-          }
-          if (foundItem) {
-            break;
-          }
-          index++;
-        }
-        if (!fromItr.hasNext() && !foundItem) {
-          throw new IllegalStateException("item " + item + " has not been found in " + from);
-        }
-        to.add(index, item);
-      }
-
-      @Override
-      protected ObservableList<ItemT> createTo() {
-        return new ObservableArrayList<>();
-      }
-    };
+    return new ListFilterTransformer<ItemT, CollectionT>(filterBy);
   }
 
   public static <ItemT, CollectionT extends ObservableCollection<ItemT>>
@@ -557,7 +657,7 @@ public final class Transformers {
       @Override
       public Transformation<ObservableCollection<SourceT>, ObservableCollection<TargetT>> transform(
           ObservableCollection<SourceT> from) {
-        return transform(from, new ObservableHashSet<TargetT>());
+        return transform(from, new ObservableLinkedHashSet<TargetT>());
       }
 
       @Override
@@ -763,6 +863,118 @@ public final class Transformers {
     };
   }
 
+  /**
+   * Items of the source in [offset, offset + size), e.g. the visible rows of a virtualized list. When it feeds
+   * a collection role synchronizer, only these items have mappers.
+   * Moving the window by k items or adding and removing items in it takes O(k) target modifications.
+   * Null or negative offset and size are treated as zero.
+   */
+  public static <ItemT> Transformer<ObservableList<ItemT>, ObservableList<ItemT>> window(
+      final ReadableProperty<Integer> offset, final ReadableProperty<Integer> size) {
+    return new BaseTransformer<ObservableList<ItemT>, ObservableList<ItemT>>() {
+      @Override
+      public Transformation<ObservableList<ItemT>, ObservableList<ItemT>> transform(ObservableList<ItemT> from) {
+        return transform(from, new ObservableArrayList<ItemT>());
+      }
+
+      @Override
+      public Transformation<ObservableList<ItemT>, ObservableList<ItemT>> transform(
+          final ObservableList<ItemT> from, final ObservableList<ItemT> to) {
+        abstract class WindowUpdater extends CollectionAdapter<ItemT> implements EventHandler<Object> {
+          abstract void update();
+        }
+
+        WindowUpdater updater = new WindowUpdater() {
+          //the target contains from[myStart, myEnd)
+          private int myStart;
+          private int myEnd;
+
+          @Override
+          public void onItemAdded(CollectionItemEvent<? extends ItemT> event) {
+            int index = event.getIndex();
+            if (index < myStart) {
+              myStart++;
+              myEnd++;
+            } else if (index < myEnd) {
+              to.add(index - myStart, event.getNewItem());
+              myEnd++;
+            }
+            update();
+          }
+
+          @Override
+          public void onItemSet(CollectionItemEvent<? extends ItemT> event) {
+            int index = event.getIndex();
+            if (index >= myStart && index < myEnd) {
+              to.set(index - myStart, event.getNewItem());
+            }
+          }
+
+          @Override
+          public void onItemRemoved(CollectionItemEvent<? extends ItemT> event) {
+            int index = event.getIndex();
+            if (index < myStart) {
+              myStart--;
+              myEnd--;
+            } else if (index < myEnd) {
+              to.remove(index - myStart);
+              myEnd--;
+            }
+            update();
+          }
+
+          @Override
+          public void onEvent(Object event) {
+            update();
+          }
+
+          @Override
+          void update() {
+            int start = Math.min(nonNegative(offset.get()), from.size());
+            int end = start + Math.min(nonNegative(size.get()), from.size() - start);
+            if (start >= myEnd || end <= myStart) {
+              to.clear();
+              to.addAll(from.subList(start, end));
+            } else {
+              if (start > myStart) {
+                to.subList(0, start - myStart).clear();
+              }
+              if (end < myEnd) {
+                to.subList(end - Math.max(start, myStart), to.size()).clear();
+              }
+              if (start < myStart) {
+                to.addAll(0, from.subList(start, myStart));
+              }
+              if (end > myEnd) {
+                to.addAll(from.subList(myEnd, end));
+              }
+            }
+            myStart = start;
+            myEnd = end;
+          }
+        };
+
+        to.clear();
+        updater.update();
+        return new SimpleTransformation<>(from, to, new CompositeRegistration(
+            from.addListener(updater), offset.addHandler(updater), size.addHandler(updater)));
+      }
+    };
+  }
+
+  /**
+   * Groups the items by the values of their key properties. A group is put to the target map when its first item
+   * is added and removed when its last item goes. The groups are unmodifiable views and keep their items in
+   * the order of the source, items added to a collection which isn't a list go to the ends of their groups.
+   * An item addition, removal or key change takes O(log n), or O(log^2 n) if the item goes into the middle
+   * of its group.
+   */
+  public static <ItemT, KeyT, CollectionT extends ObservableCollection<ItemT>>
+  Transformer<CollectionT, ObservableMap<KeyT, ObservableList<ItemT>>> groupBy(
+      Function<? super ItemT, ? extends ReadableProperty<? extends KeyT>> key) {
+    return new GroupByTransformer<ItemT, KeyT, CollectionT>(key);
+  }
+
   public static <ItemT>
   Transformer<ObservableList<ObservableList<? extends ItemT>>, ObservableList<ItemT>> flattenList() {
     return flattenList(Functions.<ObservableList<? extends ItemT>>identity());
@@ -787,8 +999,8 @@ public final class Transformers {
       @Override
       public Transformation<ObservableList<SourceT>, ObservableList<ResultT>> transform(
           final ObservableList<SourceT> from, final ObservableList<ResultT> to) {
-        final Map<SourceT, Registration> registrations = new IdentityHashMap<>();
-        final Map<SourceT, Integer> sizes = new IdentityHashMap<>();
+        //the weight of a node is the size of its list
+        final PrefixSumTree<TrackedNode> nodes = new PrefixSumTree<>();
 
         CollectionAdapter<SourceT> sourceListener = new CollectionAdapter<SourceT>() {
           @Override
@@ -798,51 +1010,44 @@ public final class Transformers {
                 t.transform(selected);
             ObservableList<? extends ResultT> target = transform.getTarget();
 
-            int startIndex = getStartResultIndex(event.getNewItem(), from, sizes);
-            sizes.put(event.getNewItem(), target.size());
-            for (ResultT r : target) {
-              to.add(startIndex++, r);
-            }
-
-            final Registration reg = watch(event.getNewItem(), target);
+            TrackedNode node = new TrackedNode();
+            nodes.add(event.getIndex(), node);
+            nodes.setWeight(node, target.size());
+            to.addAll(nodes.weightBefore(node), target);
 
-            registrations.put(event.getNewItem(), new Registration() {
+            final Registration reg = watch(node, target);
+            node.myRegistration = new Registration() {
               @Override
               protected void doRemove() {
                 reg.remove();
                 transform.dispose();
               }
-            });
+            };
           }
 
-          private <ItemT extends ResultT> Registration watch(final SourceT container, ObservableList<ItemT> list) {
+          private <ItemT extends ResultT> Registration watch(final TrackedNode node, ObservableList<ItemT> list) {
             return list.addListener(new CollectionAdapter<ItemT>() {
               @Override
               public void onItemAdded(CollectionItemEvent<? extends ItemT> event) {
-                int startIndex = getStartResultIndex(container, from, sizes);
-                to.add(startIndex + event.getIndex(), event.getNewItem());
-                sizes.put(container, sizes.get(container) + 1);
+                to.add(nodes.weightBefore(node) + event.getIndex(), event.getNewItem());
+                nodes.setWeight(node, node.getWeight() + 1);
               }
 
               @Override
               public void onItemRemoved(CollectionItemEvent<? extends ItemT> event) {
-                to.remove(event.getOldItem());
-                sizes.put(container, sizes.get(container) - 1);
+                to.remove(nodes.weightBefore(node) + event.getIndex());
+                nodes.setWeight(node, node.getWeight() - 1);
               }
             });
           }
 
           @Override
           public void onItemRemoved(CollectionItemEvent<? extends SourceT> event) {
-            SelectedT selected = f.apply(event.getOldItem());
-            Transformation<SelectedT, ? extends ObservableList<? extends ResultT>> transformation =
-                t.transform(selected);
-
-            to.removeAll(transformation.getTarget());
-            sizes.remove(event.getOldItem());
-
-            transformation.dispose();
-            registrations.remove(event.getOldItem()).remove();
+            TrackedNode node = nodes.get(event.getIndex());
+            int startIndex = nodes.weightBefore(node);
+            to.subList(startIndex, startIndex + node.getWeight()).clear();
+            nodes.remove(event.getIndex());
+            node.myRegistration.remove();
           }
         };
 
@@ -855,24 +1060,13 @@ public final class Transformers {
         return new SimpleTransformation<>(from, to, new Registration() {
           @Override
           protected void doRemove() {
-            for (SourceT s : from) {
-              registrations.remove(s).remove();
+            for (int i = 0; i < nodes.size(); i++) {
+              nodes.get(i).myRegistration.remove();
             }
             sourceRegistration.remove();
           }
         });
       }
-
-      private int getStartResultIndex(SourceT event, ObservableList<SourceT> sourceList, Map<SourceT, Integer> sizes) {
-        int resultIndex = 0;
-        Iterator<SourceT> iterator = sourceList.iterator();
-        SourceT current = iterator.next();
-        while (current != event) {
-          resultIndex += sizes.get(current);
-          current = iterator.next();
-        }
-        return resultIndex;
-      }
     };
   }
 
@@ -888,25 +1082,25 @@ public final class Transformers {
       @Override
       public Transformation<ObservableList<PropertyT>, ObservableList<ValueT>> transform(
           final ObservableList<PropertyT> from, final ObservableList<ValueT> to) {
-        final List<Registration> propRegistrations = new ArrayList<>();
+        //tracks the index of every property, even if the same property is added twice
+        final PrefixSumTree<TrackedNode> nodes = new PrefixSumTree<>();
         CollectionAdapter<PropertyT> listener = new CollectionAdapter<PropertyT>() {
           @Override
           public void onItemAdded(final CollectionItemEvent<? extends PropertyT> listEvent) {
-            propRegistrations.add(listEvent.getIndex(), listEvent.getNewItem().addHandler(
-                new EventHandler<PropertyChangeEvent<ValueT>>() {
-                  @Override
-                  public void onEvent(PropertyChangeEvent<ValueT> propEvent) {
-                    int index = from.indexOf(listEvent.getNewItem());
-                    to.set(index, propEvent.getNewValue());
-                  }
-                })
-            );
+            final TrackedNode node = new TrackedNode();
+            nodes.add(listEvent.getIndex(), node);
+            node.myRegistration = listEvent.getNewItem().addHandler(new EventHandler<PropertyChangeEvent<ValueT>>() {
+              @Override
+              public void onEvent(PropertyChangeEvent<ValueT> propEvent) {
+                to.set(nodes.indexOf(node), propEvent.getNewValue());
+              }
+            });
             to.add(listEvent.getIndex(), listEvent.getNewItem().get());
           }
 
           @Override
           public void onItemRemoved(CollectionItemEvent<? extends PropertyT> listEvent) {
-            propRegistrations.remove(listEvent.getIndex()).remove();
+            nodes.remove(listEvent.getIndex()).myRegistration.remove();
             to.remove(listEvent.getIndex());
           }
         };
@@ -920,10 +1114,9 @@ public final class Transformers {
           @Override
           protected void doRemove() {
             reg.remove();
-            for (Registration r : propRegistrations) {
-              r.remove();
+            for (int i = 0; i < nodes.size(); i++) {
+              nodes.get(i).myRegistration.remove();
             }
-            propRegistrations.clear();
             to.clear();
           }
         });
@@ -1103,7 +1296,7 @@ public final class Transformers {
       @Override
       public Transformation<ObservableList<ItemT>, ObservableList<ItemT>> transform(
           ObservableList<ItemT> from, final ObservableList<ItemT> to) {
-        Registration registration = from.addListener(new CollectionAdapter<ItemT>() {
+        Registration registration = from.addListener(new ListRangeAdapter<ItemT>() {
           @Override
           public void onItemAdded(CollectionItemEvent<? extends ItemT> event) {
             to.add(event.getIndex(), event.getNewItem());
@@ -1118,6 +1311,16 @@ public final class Transformers {
           public void onItemRemoved(CollectionItemEvent<? extends ItemT> event) {
             to.remove(event.getIndex());
           }
+
+          @Override
+          public void onItemsAdded(ListRangeEvent<? extends ItemT> event) {
+            to.addAll(event.getIndex(), event.getItems());
+          }
+
+          @Override
+          public void onItemsRemoved(ListRangeEvent<? extends ItemT> event) {
+            to.subList(event.getIndex(), event.getIndex() + event.size()).clear();
+          }
         });
         to.addAll(from);
 
@@ -1626,6 +1829,23 @@ public final class Transformers {
   private Transformers() {
   }
 
+  private static class TrackedNode extends PrefixSumTree.Node {
+    Registration myRegistration;
+  }
+
+  private static class SortedEntry<ItemT> {
+    final ItemT myItem;
+    Registration myRegistration;
+    //another occurrence of the same item
+    SortedEntry<ItemT> myNext;
+    boolean myChanged;
+    boolean myQueued;
+
+    SortedEntry(ItemT item) {
+      myItem = item;
+    }
+  }
+
   private static class SimpleTransformation<SourceT, TargetT> extends Transformation<SourceT, TargetT> {
     private final SourceT mySource;
     private final TargetT myTarget;
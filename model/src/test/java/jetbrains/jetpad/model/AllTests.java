@@ -15,24 +15,40 @@
  */
 package jetbrains.jetpad.model;
 
+import jetbrains.jetpad.model.children.ChildListTest;
+import jetbrains.jetpad.model.collections.ChunkedTreeListTest;
+import jetbrains.jetpad.model.collections.EdtBoundListTest;
 import jetbrains.jetpad.model.collections.ListListenersTest;
+import jetbrains.jetpad.model.collections.ListRangeEventsTest;
+import jetbrains.jetpad.model.collections.ListSnapshotsTest;
 import jetbrains.jetpad.model.collections.ObservableArrayListTest;
+import jetbrains.jetpad.model.collections.ObservableHashMapTest;
 import jetbrains.jetpad.model.collections.ObservableHashSetTest;
+import jetbrains.jetpad.model.collections.ObservableIdentityTreeListTest;
+import jetbrains.jetpad.model.collections.ObservableMappedFileListTest;
+import jetbrains.jetpad.model.collections.ObservablePrimitiveListsTest;
 import jetbrains.jetpad.model.collections.ObservableSingleItemListTest;
+import jetbrains.jetpad.model.collections.ObservableSortedListTest;
 import jetbrains.jetpad.model.collections.SetListenersTest;
 import jetbrains.jetpad.model.collections.TreeListTest;
 import jetbrains.jetpad.model.composite.CompositesBetweenTest;
 import jetbrains.jetpad.model.composite.CompositesCommonAncestorTest;
 import jetbrains.jetpad.model.composite.CompositesTest;
 import jetbrains.jetpad.model.composite.TreePathTest;
+import jetbrains.jetpad.model.event.DispatchStatisticsTest;
 import jetbrains.jetpad.model.event.EventSourceTest;
 import jetbrains.jetpad.model.event.ListenersTest;
+import jetbrains.jetpad.model.event.RegistrationScopeTest;
+import jetbrains.jetpad.model.event.ReusedEventsTest;
 import jetbrains.jetpad.model.event.SelectFromListEventSourcesTest;
+import jetbrains.jetpad.model.event.WeakHandlersTest;
 import jetbrains.jetpad.model.id.BaseIdTest;
 import jetbrains.jetpad.model.property.BooleanPropertiesTest;
 import jetbrains.jetpad.model.property.DerivedPropertyTest;
 import jetbrains.jetpad.model.property.EventSelectionTest;
+import jetbrains.jetpad.model.property.LazyDerivedPropertyTest;
 import jetbrains.jetpad.model.property.ListItemPropertyTest;
+import jetbrains.jetpad.model.property.PropertyBatchTest;
 import jetbrains.jetpad.model.property.PropertyBindingTest;
 import jetbrains.jetpad.model.property.PropertyPersistersTest;
 import jetbrains.jetpad.model.property.PropertySelectionTest;
@@ -46,6 +62,7 @@ import jetbrains.jetpad.model.transform.FilterListTest;
 import jetbrains.jetpad.model.transform.FilterTest;
 import jetbrains.jetpad.model.transform.FlattenListTest;
 import jetbrains.jetpad.model.transform.FlattenPropertyListTest;
+import jetbrains.jetpad.model.transform.GroupByTest;
 import jetbrains.jetpad.model.transform.HighestPriorityErrorCasesTest;
 import jetbrains.jetpad.model.transform.HighestPriorityTest;
 import jetbrains.jetpad.model.transform.MapTransformerTest;
@@ -53,6 +70,8 @@ import jetbrains.jetpad.model.transform.PropertyToCollectionTest;
 import jetbrains.jetpad.model.transform.ReverseTest;
 import jetbrains.jetpad.model.transform.SelectListTest;
 import jetbrains.jetpad.model.transform.SortByConstantTest;
+import jetbrains.jetpad.model.transform.SortByTest;
+import jetbrains.jetpad.model.transform.WindowTest;
 import jetbrains.jetpad.model.util.ListMapTest;
 import org.junit.runner.RunWith;
 import org.junit.runners.Suite;
@@ -60,13 +79,25 @@ import org.junit.runners.Suite;
 @RunWith(Suite.class)
 @Suite.SuiteClasses({
     //collections
+    EdtBoundListTest.class,
     ListListenersTest.class,
+    ListRangeEventsTest.class,
+    ListSnapshotsTest.class,
     ObservableArrayListTest.class,
+    ObservableHashMapTest.class,
     ObservableHashSetTest.class,
+    ObservableIdentityTreeListTest.class,
+    ObservableMappedFileListTest.class,
+    ObservablePrimitiveListsTest.class,
     ObservableSingleItemListTest.class,
+    ObservableSortedListTest.class,
     SelectTest.class,
     SetListenersTest.class,
     TreeListTest.class,
+    ChunkedTreeListTest.class,
+
+    //children
+    ChildListTest.class,
 
     //composite
     CompositesBetweenTest.class,
@@ -75,9 +106,13 @@ import org.junit.runners.Suite;
     TreePathTest.class,
 
     //event
+    DispatchStatisticsTest.class,
     EventSourceTest.class,
     ListenersTest.class,
+    RegistrationScopeTest.class,
+    ReusedEventsTest.class,
     SelectFromListEventSourcesTest.class,
+    WeakHandlersTest.class,
 
     //id
     BaseIdTest.class,
@@ -86,7 +121,9 @@ import org.junit.runners.Suite;
     BooleanPropertiesTest.class,
     DerivedPropertyTest.class,
     EventSelectionTest.class,
+    LazyDerivedPropertyTest.class,
     ListItemPropertyTest.class,
+    PropertyBatchTest.class,
     PropertyBindingTest.class,
     PropertyPersistersTest.class,
     PropertySelectionTest.class,
@@ -101,6 +138,7 @@ import org.junit.runners.Suite;
     FilterTest.class,
     FlattenListTest.class,
     FlattenPropertyListTest.class,
+    GroupByTest.class,
     HighestPriorityErrorCasesTest.class,
     HighestPriorityTest.class,
     MapTransformerTest.class,
@@ -109,6 +147,8 @@ import org.junit.runners.Suite;
     SelectListTest.class,
     SelectTest.class,
     SortByConstantTest.class,
+    SortByTest.class,
+    WindowTest.class,
 
     //util
     ListMapTest.class
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2012-2017 JetBrains s.r.o
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jetbrains.jetpad.model.children;
+
+import jetbrains.jetpad.model.collections.CollectionItemEvent;
+import jetbrains.jetpad.model.collections.list.ListRangeAdapter;
+import jetbrains.jetpad.model.collections.list.ListRangeEvent;
+import jetbrains.jetpad.model.collections.list.ObservableList;
+import jetbrains.jetpad.model.event.EventHandler;
+import jetbrains.jetpad.model.property.PropertyChangeEvent;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class ChildListTest {
+  private Node parent = new Node();
+
+  @Test
+  public void addAndRemove() {
+    Node child = new Node();
+    final List<Node> parents = new ArrayList<>();
+    child.parent().addHandler(new EventHandler<PropertyChangeEvent<Node>>() {
+      @Override
+      public void onEvent(PropertyChangeEvent<Node> event) {
+        parents.add(event.getNewValue());
+      }
+    });
+
+    parent.children.add(child);
+    assertSame(child, child.getPosition().get());
+    parent.children.remove(child);
+
+    assertEquals(Arrays.asList(parent, null), parents);
+  }
+
+  @Test
+  public void set() {
+    Node child = new Node();
+    Node other = new Node();
+    parent.children.add(child);
+
+    parent.children.set(0, other);
+
+    assertNull(child.parent().get());
+    assertSame(parent, other.parent().get());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void addChildOfOtherParent() {
+    Node child = new Node();
+    new Node().children.add(child);
+
+    parent.children.add(child);
+  }
+
+  @Test
+  public void rangeListenersGetRanges() {
+    final List<String> events = new ArrayList<>();
+    parent.children.addListener(new ListRangeAdapter<Node>() {
+      @Override
+      public void onItemAdded(CollectionItemEvent<? extends Node> event) {
+        events.add("item");
+      }
+
+      @Override
+      public void onItemsAdded(ListRangeEvent<? extends Node> event) {
+        events.add("range");
+      }
+    });
+
+    parent.children.addAll(Arrays.asList(new Node(), new Node()));
+
+    assertEquals(Arrays.asList("range"), events);
+    for (Node child : parent.children) {
+      assertSame(parent, child.parent().get());
+    }
+  }
+
+  private static class Node extends SimpleComposite<Node, Node> {
+    final ObservableList<Node> children = new ChildList<>(this);
+  }
+}
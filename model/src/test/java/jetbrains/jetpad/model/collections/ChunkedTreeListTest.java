@@ -0,0 +1,186 @@
+/*
+ * Copyright 2012-2017 JetBrains s.r.o
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jetbrains.jetpad.model.collections;
+
+import jetbrains.jetpad.model.collections.list.ChunkedTreeList;
+import jetbrains.jetpad.model.collections.list.ObservableTreeList;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ChunkedTreeListTest {
+  @Test
+  public void randomOperations() {
+    Random random = new Random(239);
+    int maxValue = 1000;
+
+    for (int i = 0; i < 20; i++) {
+      List<Integer> arrayList = new ArrayList<>();
+      ChunkedTreeList<Integer> treeList = new ChunkedTreeList<>();
+      //growth then shrinking, so that nodes are split and merged on several levels
+      int growSteps = 5000 + random.nextInt(5000);
+
+      for (int j = 0; j < 3 * growSteps; j++) {
+        int op = random.nextInt(4);
+        boolean grow = j < growSteps;
+
+        if (op == 0 || op == 3 && grow) {
+          int index = random.nextInt(arrayList.size() + 1);
+          int element = random.nextInt(maxValue);
+
+          arrayList.add(index, element);
+          treeList.add(index, element);
+        } else if (op == 1 && !arrayList.isEmpty()) {
+          int index = random.nextInt(arrayList.size());
+          int element = random.nextInt(maxValue);
+
+          assertEquals(arrayList.set(index, element), treeList.set(index, element));
+        } else if (!arrayList.isEmpty()) {
+          int index = random.nextInt(arrayList.size());
+
+          assertEquals(arrayList.remove(index), treeList.remove(index));
+        }
+
+        if (j % 100 == 0) {
+          treeList.check();
+          assertEquals(arrayList, treeList);
+        }
+      }
+      treeList.check();
+      assertEquals(arrayList, treeList);
+    }
+  }
+
+  @Test
+  public void snapshotsDontChange() {
+    Random random = new Random(239);
+    List<Integer> arrayList = new ArrayList<>();
+    ChunkedTreeList<Integer> treeList = new ChunkedTreeList<>();
+    List<List<Integer>> snapshots = new ArrayList<>();
+    List<List<Integer>> contents = new ArrayList<>();
+
+    for (int j = 0; j < 30000; j++) {
+      int op = random.nextInt(3);
+      if (op == 0 || j < 10000 || arrayList.isEmpty()) {
+        int index = random.nextInt(arrayList.size() + 1);
+        arrayList.add(index, j);
+        treeList.add(index, j);
+      } else if (op == 1) {
+        int index = random.nextInt(arrayList.size());
+        assertEquals(arrayList.set(index, -j), treeList.set(index, -j));
+      } else {
+        int index = random.nextInt(arrayList.size());
+        assertEquals(arrayList.remove(index), treeList.remove(index));
+      }
+
+      if (j % 1000 == 0) {
+        snapshots.add(treeList.snapshot());
+        contents.add(new ArrayList<>(arrayList));
+      }
+    }
+
+    treeList.check();
+    assertEquals(arrayList, treeList);
+    assertEquals(contents, snapshots);
+  }
+
+  @Test
+  public void appendAndRemoveFromStart() {
+    ChunkedTreeList<Integer> treeList = new ChunkedTreeList<>();
+    for (int i = 0; i < 100000; i++) {
+      treeList.add(i);
+    }
+    treeList.check();
+    for (int i = 0; i < 100000; i++) {
+      assertEquals(i, (int) treeList.get(i));
+    }
+    for (int i = 0; i < 99990; i++) {
+      assertEquals(i, (int) treeList.remove(0));
+    }
+    treeList.check();
+    assertEquals(10, treeList.size());
+  }
+
+  @Test
+  public void listIterator() {
+    List<Integer> arrayList = new ArrayList<>();
+    ChunkedTreeList<Integer> treeList = new ChunkedTreeList<>();
+    for (int i = 0; i < 1000; i++) {
+      arrayList.add(i);
+      treeList.add(i);
+    }
+
+    ListIterator<Integer> expected = arrayList.listIterator(500);
+    ListIterator<Integer> actual = treeList.listIterator(500);
+    while (expected.hasPrevious()) {
+      assertEquals(expected.previous(), actual.previous());
+      if (expected.previousIndex() % 3 == 0) {
+        expected.remove();
+        actual.remove();
+      }
+    }
+    while (expected.hasNext()) {
+      assertEquals(expected.next(), actual.next());
+      if (expected.nextIndex() % 5 == 0) {
+        expected.add(-1);
+        actual.add(-1);
+      } else if (expected.nextIndex() % 7 == 0) {
+        expected.set(-2);
+        actual.set(-2);
+      }
+      assertEquals(expected.nextIndex(), actual.nextIndex());
+    }
+    assertTrue(!actual.hasNext());
+
+    treeList.check();
+    assertEquals(arrayList, treeList);
+  }
+
+  @Test
+  public void observableTreeListIteratorRemove() {
+    ObservableTreeList<Integer> list = new ObservableTreeList<>();
+    final List<Integer> removed = new ArrayList<>();
+    list.addListener(new CollectionAdapter<Integer>() {
+      @Override
+      public void onItemRemoved(CollectionItemEvent<? extends Integer> event) {
+        removed.add(event.getOldItem());
+      }
+    });
+    for (int i = 0; i < 200; i++) {
+      list.add(i);
+    }
+
+    Iterator<Integer> it = list.iterator();
+    while (it.hasNext()) {
+      if (it.next() % 2 == 0) {
+        it.remove();
+      }
+    }
+
+    assertEquals(100, list.size());
+    assertEquals(100, removed.size());
+    for (int i = 0; i < 100; i++) {
+      assertEquals(2 * i + 1, (int) list.get(i));
+    }
+  }
+}
@@ -0,0 +1,294 @@
+/*
+ * Copyright 2012-2017 JetBrains s.r.o
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jetbrains.jetpad.model.collections;
+
+import jetbrains.jetpad.base.Registration;
+import jetbrains.jetpad.base.ThrowableHandlers;
+import jetbrains.jetpad.base.edt.EventDispatchThread;
+import jetbrains.jetpad.base.function.Consumer;
+import jetbrains.jetpad.model.collections.list.EdtBoundList;
+import jetbrains.jetpad.model.collections.list.ListRangeAdapter;
+import jetbrains.jetpad.model.collections.list.ListRangeEvent;
+import jetbrains.jetpad.model.collections.list.ObservableArrayList;
+import jetbrains.jetpad.model.collections.list.ObservableList;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class EdtBoundListTest {
+  private ObservableList<Integer> myList;
+  private QueueEdt myEdt;
+  private List<String> myEvents;
+
+  @Before
+  public void init() {
+    myList = new ObservableArrayList<>();
+    myEdt = new QueueEdt();
+    myEvents = new ArrayList<>();
+    myList.addListener(new ListRangeAdapter<Integer>() {
+      @Override
+      public void onItemAdded(CollectionItemEvent<? extends Integer> event) {
+        myEvents.add(event.toString());
+      }
+
+      @Override
+      public void onItemRemoved(CollectionItemEvent<? extends Integer> event) {
+        myEvents.add(event.toString());
+      }
+
+      @Override
+      public void onItemsAdded(ListRangeEvent<? extends Integer> event) {
+        myEvents.add(event.toString());
+      }
+
+      @Override
+      public void onItemsRemoved(ListRangeEvent<? extends Integer> event) {
+        myEvents.add(event.toString());
+      }
+    });
+  }
+
+  @Test
+  public void appendsAreCoalesced() throws InterruptedException {
+    EdtBoundList<Integer> buffer = new EdtBoundList<>(myList, myEdt, 10);
+    buffer.add(0);
+    buffer.add(1);
+    buffer.addAll(Arrays.asList(2, 3));
+
+    assertEquals(1, myEdt.myTasks.size());
+    assertTrue(myList.isEmpty());
+    assertEquals(3, buffer.getPendingCount());
+
+    myEdt.runAll();
+
+    assertEquals(Arrays.asList(0, 1, 2, 3), myList);
+    assertEquals(Arrays.asList(new ListRangeEvent<>(Arrays.asList(0, 1, 2, 3), 0, CollectionItemEvent.EventType.ADD)
+        .toString()), myEvents);
+    assertEquals(0, buffer.getPendingCount());
+  }
+
+  @Test
+  public void modificationsAppliedInOrder() throws InterruptedException {
+    EdtBoundList<Integer> buffer = new EdtBoundList<>(myList, myEdt, 10);
+    buffer.add(0);
+    buffer.add(1);
+    buffer.add(0, 10);
+    buffer.add(2);
+    buffer.set(1, 20);
+    buffer.remove(Integer.valueOf(1));
+    buffer.remove(0);
+    myEdt.runAll();
+
+    assertEquals(Arrays.asList(20, 2), myList);
+  }
+
+  @Test
+  public void clearDropsEarlierModifications() throws InterruptedException {
+    myList.add(5);
+    myEvents.clear();
+    EdtBoundList<Integer> buffer = new EdtBoundList<>(myList, myEdt, 10);
+    buffer.add(0);
+    buffer.add(1);
+    buffer.clear();
+    buffer.add(2);
+    myEdt.runAll();
+
+    assertEquals(Arrays.asList(2), myList);
+    assertEquals(Arrays.asList(
+        new ListRangeEvent<>(Arrays.asList(5), 0, CollectionItemEvent.EventType.REMOVE).toString(),
+        new CollectionItemEvent<>(null, 2, 0, CollectionItemEvent.EventType.ADD).toString()), myEvents);
+  }
+
+  @Test
+  public void failedAppendDoesntDropOtherItems() throws InterruptedException {
+    final ObservableList<Integer> target = new ObservableArrayList<Integer>() {
+      @Override
+      protected void checkAdd(int index, Integer item) {
+        super.checkAdd(index, item);
+        if (item < 0) {
+          throw new IllegalArgumentException();
+        }
+      }
+    };
+    final List<Throwable> errors = new ArrayList<>();
+    Registration reg = ThrowableHandlers.addHandler(new Consumer<Throwable>() {
+      @Override
+      public void accept(Throwable t) {
+        errors.add(t);
+      }
+    });
+    EdtBoundList<Integer> buffer = new EdtBoundList<>(target, myEdt, 10);
+    buffer.addAll(Arrays.asList(0, 1, -1, 2, 3));
+    try {
+      ThrowableHandlers.asInProduction(new Runnable() {
+        @Override
+        public void run() {
+          myEdt.runAll();
+        }
+      });
+    } finally {
+      reg.remove();
+    }
+
+    assertEquals(Arrays.asList(0, 1, 2, 3), target);
+    assertEquals(1, errors.size());
+  }
+
+  @Test
+  public void offerFailsWhenFull() {
+    EdtBoundList<Integer> buffer = new EdtBoundList<>(myList, myEdt, 2);
+    assertTrue(buffer.offer(0));
+    assertTrue(buffer.offer(1));
+    assertFalse(buffer.offer(2));
+    assertFalse(buffer.offerAll(Arrays.asList(3, 4)));
+
+    myEdt.runAll();
+    assertTrue(buffer.offerAll(Arrays.asList(3, 4)));
+    myEdt.runAll();
+
+    assertEquals(Arrays.asList(0, 1, 3, 4), myList);
+  }
+
+  @Test
+  public void batchSizeLimitsOneTask() throws InterruptedException {
+    EdtBoundList<Integer> buffer = new EdtBoundList<>(myList, myEdt, 10, 2);
+    for (int i = 0; i < 5; i++) {
+      buffer.add(i);
+    }
+
+    myEdt.runOne();
+    assertEquals(Arrays.asList(0, 1), myList);
+    assertEquals(1, myEdt.myTasks.size());
+
+    myEdt.runAll();
+    assertEquals(Arrays.asList(0, 1, 2, 3, 4), myList);
+  }
+
+  @Test
+  public void producerWaitsForEdt() throws Exception {
+    final EdtBoundList<Integer> buffer = new EdtBoundList<>(myList, myEdt, 1);
+    buffer.add(0);
+    final CountDownLatch added = new CountDownLatch(1);
+    Thread producer = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          buffer.add(1);
+          added.countDown();
+        } catch (InterruptedException e) {
+          throw new RuntimeException(e);
+        }
+      }
+    });
+    producer.start();
+
+    assertFalse(added.await(100, TimeUnit.MILLISECONDS));
+    myEdt.runAll();
+    assertTrue(added.await(10, TimeUnit.SECONDS));
+    producer.join();
+    myEdt.runAll();
+
+    assertEquals(Arrays.asList(0, 1), myList);
+  }
+
+  @Test
+  public void concurrentProducers() throws Exception {
+    final int producersCount = 4;
+    final int itemsCount = 5000;
+    final EdtBoundList<Integer> buffer = new EdtBoundList<>(myList, myEdt, 16);
+    List<Thread> producers = new ArrayList<>();
+    for (int p = 0; p < producersCount; p++) {
+      final int producer = p;
+      Thread thread = new Thread(new Runnable() {
+        @Override
+        public void run() {
+          try {
+            for (int i = 0; i < itemsCount; i++) {
+              buffer.add(producer * itemsCount + i);
+            }
+          } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+          }
+        }
+      });
+      producers.add(thread);
+      thread.start();
+    }
+
+    long deadline = System.currentTimeMillis() + 30000;
+    while (myList.size() < producersCount * itemsCount && System.currentTimeMillis() < deadline) {
+      myEdt.runAll();
+      Thread.yield();
+    }
+    for (Thread thread : producers) {
+      thread.join();
+    }
+
+    assertEquals(producersCount * itemsCount, myList.size());
+    int[] last = new int[producersCount];
+    Arrays.fill(last, -1);
+    for (int item : myList) {
+      int producer = item / itemsCount;
+      assertTrue(item % itemsCount > last[producer]);
+      last[producer] = item % itemsCount;
+    }
+  }
+
+  private static class QueueEdt implements EventDispatchThread {
+    private final Queue<Runnable> myTasks = new ConcurrentLinkedQueue<>();
+
+    void runOne() {
+      myTasks.poll().run();
+    }
+
+    void runAll() {
+      for (Runnable task = myTasks.poll(); task != null; task = myTasks.poll()) {
+        task.run();
+      }
+    }
+
+    @Override
+    public long getCurrentTimeMillis() {
+      return 0;
+    }
+
+    @Override
+    public void schedule(Runnable r) {
+      myTasks.add(r);
+    }
+
+    @Override
+    public Registration schedule(int delay, Runnable r) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Registration scheduleRepeating(int period, Runnable r) {
+      throw new UnsupportedOperationException();
+    }
+  }
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright 2012-2017 JetBrains s.r.o
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jetbrains.jetpad.model.collections;
+
+import jetbrains.jetpad.model.collections.list.ListRangeAdapter;
+import jetbrains.jetpad.model.collections.list.ListRangeEvent;
+import jetbrains.jetpad.model.collections.list.ObservableArrayList;
+import jetbrains.jetpad.model.collections.list.ObservableList;
+import jetbrains.jetpad.model.transform.Transformation;
+import jetbrains.jetpad.model.transform.Transformers;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static jetbrains.jetpad.model.collections.CollectionItemEvent.EventType.ADD;
+import static jetbrains.jetpad.model.collections.CollectionItemEvent.EventType.REMOVE;
+import static org.junit.Assert.assertEquals;
+
+public class ListRangeEventsTest {
+  private ObservableList<Integer> myList;
+  private RangeRecorder myRecorder;
+
+  @Before
+  public void init() {
+    myList = new ObservableArrayList<>();
+    myList.addAll(Arrays.asList(0, 1, 2, 3));
+    myRecorder = new RangeRecorder();
+  }
+
+  @Test
+  public void addAllFiresRangeEvent() {
+    myList.addListener(myRecorder);
+    myList.addAll(1, Arrays.asList(10, 11));
+
+    assertEquals(Arrays.asList(0, 10, 11, 1, 2, 3), myList);
+    assertEquals(Arrays.asList("[10, 11] added at 1"), myRecorder.events);
+  }
+
+  @Test
+  public void addAllToEnd() {
+    myList.addListener(myRecorder);
+    myList.addAll(Arrays.asList(10, 11));
+
+    assertEquals(Arrays.asList("[10, 11] added at 4"), myRecorder.events);
+  }
+
+  @Test
+  public void addEmptyCollection() {
+    myList.addListener(myRecorder);
+
+    assertEquals(false, myList.addAll(new ArrayList<Integer>()));
+    assertEquals(0, myRecorder.events.size());
+  }
+
+  @Test(expected = IndexOutOfBoundsException.class)
+  public void addEmptyCollectionOutOfBounds() {
+    myList.addListener(myRecorder);
+    myList.addAll(-1, new ArrayList<Integer>());
+  }
+
+  @Test(expected = IndexOutOfBoundsException.class)
+  public void addEmptyCollectionOutOfBoundsWithoutListeners() {
+    myList.addAll(5, new ArrayList<Integer>());
+  }
+
+  @Test
+  public void clearFiresRangeEvent() {
+    myList.addListener(myRecorder);
+    myList.clear();
+
+    assertEquals(0, myList.size());
+    assertEquals(Arrays.asList("[0, 1, 2, 3] removed at 0"), myRecorder.events);
+  }
+
+  @Test
+  public void subListClearFiresRangeEvent() {
+    myList.addListener(myRecorder);
+    myList.subList(1, 3).clear();
+
+    assertEquals(Arrays.asList(0, 3), myList);
+    assertEquals(Arrays.asList("[1, 2] removed at 1"), myRecorder.events);
+  }
+
+  @Test
+  public void itemEventsIfNotAllListenersHandleRanges() {
+    myList.addListener(myRecorder);
+    myList.addListener(new CollectionAdapter<Integer>());
+    myList.addAll(Arrays.asList(10, 11));
+    myList.subList(0, 2).clear();
+
+    assertEquals(Arrays.asList(
+        "10 added at 4", "11 added at 5",
+        "0 removed at 0", "1 removed at 0"), myRecorder.events);
+  }
+
+  @Test
+  public void rangeEventsAfterPlainListenerRemoved() {
+    myList.addListener(myRecorder);
+    myList.addListener(new CollectionAdapter<Integer>()).remove();
+    myList.clear();
+
+    assertEquals(Arrays.asList("[0, 1, 2, 3] removed at 0"), myRecorder.events);
+  }
+
+  @Test
+  public void dispatchItems() {
+    RangeRecorder recorder = new RangeRecorder();
+    new ListRangeEvent<>(Arrays.asList(1, 2), 3, REMOVE).dispatchItems(recorder);
+    new ListRangeEvent<>(Arrays.asList(1, 2), 3, ADD).dispatchItems(recorder);
+
+    assertEquals(Arrays.asList(
+        "2 removed at 4", "1 removed at 3",
+        "1 added at 3", "2 added at 4"), recorder.events);
+  }
+
+  @Test
+  public void identityListTransfersRanges() {
+    Transformation<ObservableList<Integer>, ObservableList<Integer>> transformation =
+        Transformers.<Integer>identityList().transform(myList);
+    transformation.getTarget().addListener(myRecorder);
+
+    myList.addAll(2, Arrays.asList(10, 11));
+    myList.subList(0, 3).clear();
+
+    assertEquals(myList, transformation.getTarget());
+    assertEquals(Arrays.asList("[10, 11] added at 2", "[0, 1, 10] removed at 0"), myRecorder.events);
+  }
+
+  private static class RangeRecorder extends ListRangeAdapter<Integer> {
+    private final List<String> events = new ArrayList<>();
+
+    @Override
+    public void onItemAdded(CollectionItemEvent<? extends Integer> event) {
+      events.add(event.toString());
+    }
+
+    @Override
+    public void onItemRemoved(CollectionItemEvent<? extends Integer> event) {
+      events.add(event.toString());
+    }
+
+    @Override
+    public void onItemsAdded(ListRangeEvent<? extends Integer> event) {
+      events.add(event.toString());
+    }
+
+    @Override
+    public void onItemsRemoved(ListRangeEvent<? extends Integer> event) {
+      events.add(event.toString());
+    }
+  }
+}
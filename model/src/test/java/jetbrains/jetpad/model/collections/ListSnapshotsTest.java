@@ -0,0 +1,146 @@
+/*
+ * Copyright 2012-2017 JetBrains s.r.o
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jetbrains.jetpad.model.collections;
+
+import jetbrains.jetpad.model.collections.list.ObservableCopyOnWriteArrayList;
+import jetbrains.jetpad.model.collections.list.ObservableIdentityTreeList;
+import jetbrains.jetpad.model.collections.list.ObservableTreeList;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ListSnapshotsTest {
+  @Test
+  public void observableTreeListSnapshot() {
+    final ObservableTreeList<Integer> list = new ObservableTreeList<>();
+    checkSnapshots(list, new SnapshotSource() {
+      @Override
+      public List<Integer> snapshot() {
+        return list.snapshot();
+      }
+    });
+  }
+
+  @Test
+  public void copyOnWriteListSnapshot() {
+    final ObservableCopyOnWriteArrayList<Integer> list = new ObservableCopyOnWriteArrayList<>();
+    checkSnapshots(list, new SnapshotSource() {
+      @Override
+      public List<Integer> snapshot() {
+        return list.snapshot();
+      }
+    });
+  }
+
+  @Test
+  public void identityTreeListSnapshot() {
+    ObservableIdentityTreeList<String> list = new ObservableIdentityTreeList<>();
+    for (int i = 0; i < 1000; i++) {
+      list.add("" + i);
+    }
+    List<String> snapshot = list.snapshot();
+    String first = list.get(0);
+    list.remove(first);
+
+    assertEquals(1000, snapshot.size());
+    assertSame(first, snapshot.get(0));
+    assertEquals(-1, list.indexOf(first));
+    assertEquals(998, list.indexOf(snapshot.get(999)));
+  }
+
+  @Test
+  public void snapshotIsReusedUntilModification() {
+    ObservableCopyOnWriteArrayList<Integer> list = new ObservableCopyOnWriteArrayList<>();
+    list.add(1);
+
+    assertSame(list.snapshot(), list.snapshot());
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void snapshotIsImmutable() {
+    ObservableTreeList<Integer> list = new ObservableTreeList<>();
+    list.add(1);
+    list.snapshot().add(2);
+  }
+
+  @Test
+  public void readSnapshotOnOtherThread() throws Exception {
+    final ObservableTreeList<Integer> list = new ObservableTreeList<>();
+    for (int i = 0; i < 100000; i++) {
+      list.add(i);
+    }
+    final List<Integer> snapshot = list.snapshot();
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      long sum = executor.submit(new Callable<Long>() {
+        @Override
+        public Long call() {
+          long result = 0;
+          for (Integer i : snapshot) {
+            result += i;
+          }
+          return result;
+        }
+      }).get();
+      list.clear();
+
+      assertEquals(99999L * 100000 / 2, sum);
+      assertEquals(100000, snapshot.size());
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  private void checkSnapshots(List<Integer> list, SnapshotSource source) {
+    assertTrue(source.snapshot().isEmpty());
+
+    List<Integer> expected = new ArrayList<>();
+    List<List<Integer>> snapshots = new ArrayList<>();
+    List<List<Integer>> contents = new ArrayList<>();
+    for (int i = 0; i < 300; i++) {
+      if (i % 3 == 2) {
+        int index = (i * 7) % list.size();
+        list.remove(index);
+        expected.remove(index);
+      } else {
+        int index = (i * 13) % (list.size() + 1);
+        list.add(index, i);
+        expected.add(index, i);
+      }
+      if (i % 10 == 0) {
+        list.set(0, -i);
+        expected.set(0, -i);
+        snapshots.add(source.snapshot());
+        contents.add(new ArrayList<>(expected));
+      }
+    }
+
+    assertEquals(expected, list);
+    assertEquals(contents, snapshots);
+  }
+
+  private interface SnapshotSource {
+    List<Integer> snapshot();
+  }
+}
@@ -22,11 +22,13 @@ import org.junit.Before;
 import org.junit.Test;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 
 import static jetbrains.jetpad.model.collections.CollectionItemEvent.EventType.SET;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 public class ObservableArrayListTest {
@@ -131,6 +133,53 @@ public class ObservableArrayListTest {
     assertEquals(SET, counter.getEvents().get(0).getType());
   }
 
+  @Test
+  public void growBeyondInlineItemsAndShrink() {
+    List<String> expected = new ArrayList<>();
+    for (int i = 0; i < 20; i++) {
+      String item = "" + i;
+      list.add(i / 2, item);
+      expected.add(i / 2, item);
+      assertEquals(expected, list);
+    }
+    while (!list.isEmpty()) {
+      int index = list.size() / 3;
+      assertEquals(expected.remove(index), list.remove(index));
+      assertEquals(expected, list);
+    }
+    assertEquals(40, events.size());
+  }
+
+  @Test
+  public void setInlineAndInArray() {
+    for (int i = 0; i < 6; i++) {
+      list.add("" + i);
+      list.set(i, "x" + i);
+      assertEquals("x" + i, list.get(i));
+    }
+    assertEquals("x0", list.get(0));
+  }
+
+  @Test
+  public void nullItems() {
+    list.add(null);
+    assertEquals(1, list.size());
+    assertNull(list.get(0));
+    list.set(0, "a");
+    list.set(0, null);
+    list.add("b");
+    list.remove(0);
+    list.set(0, null);
+
+    assertEquals(Collections.singletonList((String) null), list);
+  }
+
+  @Test(expected = IndexOutOfBoundsException.class)
+  public void getBeyondSize() {
+    list.add("a");
+    list.get(1);
+  }
+
   private String addSampleItem() {
     String item = "xyz";
     list.add(item);
@@ -0,0 +1,247 @@
+/*
+ * Copyright 2012-2017 JetBrains s.r.o
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jetbrains.jetpad.model.collections;
+
+import jetbrains.jetpad.base.Registration;
+import jetbrains.jetpad.model.collections.map.MapAdapter;
+import jetbrains.jetpad.model.collections.map.MapEvent;
+import jetbrains.jetpad.model.collections.map.ObservableHashMap;
+import jetbrains.jetpad.model.collections.map.ObservableMap;
+import jetbrains.jetpad.model.event.EventHandler;
+import jetbrains.jetpad.model.property.PropertyChangeEvent;
+import jetbrains.jetpad.model.property.ReadableProperty;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import static jetbrains.jetpad.model.collections.map.MapEvent.EventType.PUT;
+import static jetbrains.jetpad.model.collections.map.MapEvent.EventType.REMOVE;
+import static jetbrains.jetpad.model.collections.map.MapEvent.EventType.REPLACE;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ObservableHashMapTest {
+  private ObservableMap<String, Integer> myMap;
+  private List<MapEvent<? extends String, ? extends Integer>> myEvents;
+
+  @Before
+  public void init() {
+    myMap = new ObservableHashMap<>();
+    myMap.put("a", 1);
+    myMap.put("b", 2);
+    myEvents = new ArrayList<>();
+    myMap.addHandler(new EventHandler<MapEvent<? extends String, ? extends Integer>>() {
+      @Override
+      public void onEvent(MapEvent<? extends String, ? extends Integer> event) {
+        myEvents.add(event);
+      }
+    });
+  }
+
+  @Test
+  public void putNewKey() {
+    assertNull(myMap.put("c", 3));
+
+    assertEquals(Integer.valueOf(3), myMap.get("c"));
+    assertEquals(Arrays.asList(new MapEvent<>("c", null, 3, PUT)), myEvents);
+  }
+
+  @Test
+  public void putExistingKey() {
+    assertEquals(Integer.valueOf(1), myMap.put("a", 10));
+
+    assertEquals(Arrays.asList(new MapEvent<>("a", 1, 10, REPLACE)), myEvents);
+  }
+
+  @Test
+  public void putSameValue() {
+    myMap.put("a", 1);
+
+    assertEquals(0, myEvents.size());
+  }
+
+  @Test
+  public void putNullValue() {
+    myMap.put("c", null);
+    myMap.put("c", 3);
+
+    assertEquals(Arrays.asList(new MapEvent<>("c", null, null, PUT), new MapEvent<>("c", null, 3, REPLACE)), myEvents);
+  }
+
+  @Test
+  public void remove() {
+    assertEquals(Integer.valueOf(1), myMap.remove("a"));
+    assertNull(myMap.remove("a"));
+
+    assertEquals(Arrays.asList(new MapEvent<>("a", 1, null, REMOVE)), myEvents);
+  }
+
+  @Test
+  public void clear() {
+    myMap.clear();
+
+    assertTrue(myMap.isEmpty());
+    assertEquals(2, myEvents.size());
+    for (MapEvent<? extends String, ? extends Integer> event : myEvents) {
+      assertEquals(REMOVE, event.getType());
+    }
+  }
+
+  @Test
+  public void entrySetOperations() {
+    Iterator<Map.Entry<String, Integer>> iterator = myMap.entrySet().iterator();
+    while (iterator.hasNext()) {
+      Map.Entry<String, Integer> entry = iterator.next();
+      if ("a".equals(entry.getKey())) {
+        assertEquals(Integer.valueOf(1), entry.setValue(10));
+        assertEquals(Integer.valueOf(10), entry.getValue());
+      } else {
+        iterator.remove();
+      }
+    }
+
+    assertEquals(1, myMap.size());
+    assertEquals(2, myEvents.size());
+    assertTrue(myEvents.contains(new MapEvent<>("a", 1, 10, REPLACE)));
+    assertTrue(myEvents.contains(new MapEvent<>("b", 2, null, REMOVE)));
+  }
+
+  @Test
+  public void keySetRemove() {
+    myMap.keySet().remove("b");
+
+    assertEquals(Arrays.asList(new MapEvent<>("b", 2, null, REMOVE)), myEvents);
+  }
+
+  @Test
+  public void listener() {
+    final List<String> events = new ArrayList<>();
+    myMap.addListener(new MapAdapter<String, Integer>() {
+      @Override
+      public void onEntryPut(MapEvent<? extends String, ? extends Integer> event) {
+        events.add("put " + event.getKey());
+      }
+
+      @Override
+      public void onEntryRemoved(MapEvent<? extends String, ? extends Integer> event) {
+        events.add("removed " + event.getKey());
+      }
+    });
+    myMap.put("c", 3);
+    myMap.put("c", 4);
+    myMap.remove("c");
+
+    assertEquals(Arrays.asList("put c", "removed c"), events);
+  }
+
+  @Test
+  public void valueProperty() {
+    ReadableProperty<Integer> a = myMap.valueProperty("a");
+    ReadableProperty<Integer> c = myMap.valueProperty("c");
+    assertEquals(Integer.valueOf(1), a.get());
+    assertNull(c.get());
+
+    myMap.put("c", 3);
+    assertEquals(Integer.valueOf(3), c.get());
+  }
+
+  @Test
+  public void valuePropertyEvents() {
+    RecordingHandler handler = new RecordingHandler();
+    myMap.valueProperty("c").addHandler(handler);
+
+    myMap.put("c", 3);
+    myMap.put("c", 4);
+    myMap.remove("c");
+
+    assertEquals(Arrays.asList(
+        new PropertyChangeEvent<>(null, 3), new PropertyChangeEvent<>(3, 4), new PropertyChangeEvent<>(4, null)),
+        handler.events);
+  }
+
+  @Test
+  public void valuePropertyIgnoresOtherKeys() {
+    RecordingHandler handler = new RecordingHandler();
+    myMap.valueProperty("a").addHandler(handler);
+    for (int i = 0; i < 100; i++) {
+      myMap.valueProperty("key" + i).addHandler(new RecordingHandler());
+    }
+
+    myMap.put("b", 20);
+    myMap.remove("b");
+    myMap.put("a", 10);
+
+    assertEquals(Arrays.asList(new PropertyChangeEvent<>(1, 10)), handler.events);
+  }
+
+  @Test
+  public void valuePropertyHandlerRemoved() {
+    RecordingHandler handler = new RecordingHandler();
+    ReadableProperty<Integer> a = myMap.valueProperty("a");
+    Registration reg = a.addHandler(handler);
+    reg.remove();
+    myMap.put("a", 10);
+
+    a.addHandler(handler);
+    myMap.put("a", 11);
+
+    assertEquals(Arrays.asList(new PropertyChangeEvent<>(10, 11)), handler.events);
+  }
+
+  @Test
+  public void valuePropertyIgnoresNullValues() {
+    RecordingHandler handler = new RecordingHandler();
+    myMap.valueProperty("c").addHandler(handler);
+
+    myMap.put("c", null);
+    myMap.remove("c");
+
+    assertEquals(0, handler.events.size());
+  }
+
+  @Test
+  public void listenerAddedAfterLastRemoved() {
+    ObservableMap<String, Integer> map = new ObservableHashMap<>();
+    final List<String> events = new ArrayList<>();
+    MapAdapter<String, Integer> listener = new MapAdapter<String, Integer>() {
+      @Override
+      public void onEntryPut(MapEvent<? extends String, ? extends Integer> event) {
+        events.add(event.getKey());
+      }
+    };
+    map.addListener(listener).remove();
+    map.put("a", 1);
+    map.addListener(listener);
+    map.put("b", 2);
+
+    assertEquals(Arrays.asList("b"), events);
+  }
+
+  private static class RecordingHandler implements EventHandler<PropertyChangeEvent<Integer>> {
+    private final List<PropertyChangeEvent<Integer>> events = new ArrayList<>();
+
+    @Override
+    public void onEvent(PropertyChangeEvent<Integer> event) {
+      events.add(event);
+    }
+  }
+}
@@ -17,12 +17,22 @@ package jetbrains.jetpad.model.collections;
 
 import jetbrains.jetpad.base.Value;
 import jetbrains.jetpad.model.collections.set.ObservableHashSet;
+import jetbrains.jetpad.model.collections.set.ObservableIdentityHashSet;
+import jetbrains.jetpad.model.collections.set.ObservableLinkedHashSet;
 import jetbrains.jetpad.model.collections.set.ObservableSet;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mockito;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.ConcurrentModificationException;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
@@ -74,6 +84,19 @@ public class ObservableHashSetTest {
     assertTrue(set.isEmpty());
   }
 
+  @Test
+  public void nullValueAfterRejectedAdd() {
+    for (int i = 0; i < 10; i++) {
+      set.add("" + i);
+    }
+    assertFalse(set.add("5"));
+    assertTrue(set.add(null));
+    assertTrue(set.contains(null));
+    assertTrue(set.remove("5"));
+    assertTrue(set.remove(null));
+    assertEquals(9, set.size());
+  }
+
   @Test
   public void iterator() {
     set.add("x");
@@ -117,6 +140,126 @@ public class ObservableHashSetTest {
     }
   }
 
+  @Test
+  public void growBeyondInlineItemsAndShrink() {
+    Set<String> expected = new HashSet<>();
+    for (int i = 0; i < 10; i++) {
+      assertTrue(set.add("" + i));
+      assertFalse(set.add("" + i));
+      expected.add("" + i);
+      assertEquals(expected, set);
+    }
+    for (int i = 0; i < 10; i++) {
+      assertTrue(set.remove("" + i));
+      assertFalse(set.contains("" + i));
+      expected.remove("" + i);
+      assertEquals(expected, set);
+    }
+    assertTrue(set.isEmpty());
+    assertTrue(set.add("x"));
+    assertEquals(1, set.size());
+  }
+
+  @Test
+  public void inlineIteratorRemove() {
+    set.add("x");
+    set.add("y");
+    set.add("z");
+    Iterator<String> i = set.iterator();
+    while (i.hasNext()) {
+      if (!"y".equals(i.next())) {
+        i.remove();
+      }
+    }
+    assertEquals(Collections.singleton("y"), set);
+  }
+
+  @Test
+  public void randomOperationsInAllModes() {
+    checkRandomOperations(new ObservableHashSet<Key>(), new HashSet<Key>());
+    checkRandomOperations(new ObservableLinkedHashSet<Key>(), new LinkedHashSet<Key>());
+    checkRandomOperations(new ObservableIdentityHashSet<Key>(), new HashSet<Key>());
+  }
+
+  private void checkRandomOperations(ObservableSet<Key> set, Set<Key> expected) {
+    boolean identity = set instanceof ObservableIdentityHashSet;
+    Random random = new Random(42);
+    Key[] keys = new Key[200];
+    for (int i = 0; i < keys.length; i++) {
+      keys[i] = new Key(i);
+    }
+
+    for (int step = 0; step < 20000; step++) {
+      Key key = keys[random.nextInt(keys.length)];
+      Key probe = identity ? key : new Key(key.myValue);
+      int operation = random.nextInt(10);
+      if (operation < 5) {
+        assertEquals(expected.add(key), set.add(key));
+      } else if (operation < 9) {
+        assertEquals(expected.remove(key), set.remove(probe));
+      } else {
+        Iterator<Key> i = set.iterator();
+        while (i.hasNext()) {
+          Key next = i.next();
+          if (next.myValue % 3 == 0) {
+            i.remove();
+            expected.remove(next);
+          }
+        }
+      }
+      assertEquals(expected.size(), set.size());
+      assertEquals(expected.contains(key), set.contains(probe));
+    }
+
+    assertEquals(expected, new HashSet<>(set));
+    if (expected instanceof LinkedHashSet) {
+      assertEquals(new ArrayList<>(expected), new ArrayList<>(set));
+    }
+  }
+
+  @Test
+  public void linkedSetKeepsOrderAfterRemoval() {
+    ObservableSet<Integer> linked = new ObservableLinkedHashSet<>();
+    for (int i = 0; i < 20; i++) {
+      linked.add(i);
+    }
+    for (int i = 0; i < 20; i += 2) {
+      linked.remove(i);
+    }
+    for (int i = 100; i < 120; i++) {
+      linked.add(i);
+    }
+
+    List<Integer> expected = new ArrayList<>();
+    for (int i = 1; i < 20; i += 2) {
+      expected.add(i);
+    }
+    for (int i = 100; i < 120; i++) {
+      expected.add(i);
+    }
+    assertEquals(expected, new ArrayList<>(linked));
+  }
+
+  @Test
+  public void identitySetKeepsEqualItems() {
+    ObservableSet<Key> identitySet = new ObservableIdentityHashSet<>();
+    for (int i = 0; i < 10; i++) {
+      assertTrue(identitySet.add(new Key(0)));
+    }
+    assertEquals(10, identitySet.size());
+    assertFalse(identitySet.contains(new Key(0)));
+  }
+
+  @Test(expected = ConcurrentModificationException.class)
+  public void modificationDuringIteration() {
+    for (int i = 0; i < 10; i++) {
+      set.add("" + i);
+    }
+    for (String s : set) {
+      set.add(s + "x");
+    }
+  }
+
   private Value<Integer> createSetCountingBeforeRemove() {
     final Value<Integer> counter = new Value<>(0);
     set = new ObservableHashSet<String>() {
@@ -179,4 +322,23 @@ public class ObservableHashSetTest {
     Mockito.verify(listener, Mockito.never()).onItemRemoved(
         new CollectionItemEvent<>("x", null, -1, CollectionItemEvent.EventType.REMOVE));
   }
-}
\ No newline at end of file
+
+  private static class Key {
+    private final int myValue;
+
+    Key(int value) {
+      myValue = value;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      return o instanceof Key && ((Key) o).myValue == myValue;
+    }
+
+    @Override
+    public int hashCode() {
+      //few distinct hashes make long probe sequences
+      return myValue % 7;
+    }
+  }
+}
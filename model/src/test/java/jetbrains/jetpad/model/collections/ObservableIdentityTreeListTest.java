@@ -0,0 +1,124 @@
+/*
+ * Copyright 2012-2017 JetBrains s.r.o
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jetbrains.jetpad.model.collections;
+
+import jetbrains.jetpad.base.function.Function;
+import jetbrains.jetpad.model.collections.list.ChunkedTreeList;
+import jetbrains.jetpad.model.collections.list.ObservableArrayList;
+import jetbrains.jetpad.model.collections.list.ObservableIdentityTreeList;
+import jetbrains.jetpad.model.collections.list.ObservableList;
+import jetbrains.jetpad.model.property.ReadableProperty;
+import jetbrains.jetpad.model.property.ValueProperty;
+import jetbrains.jetpad.model.transform.Transformers;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ObservableIdentityTreeListTest {
+  @Test
+  public void indexOfAfterRandomOperations() {
+    Random random = new Random(239);
+    List<Object> arrayList = new ArrayList<>();
+    ChunkedTreeList<Object> treeList = ChunkedTreeList.identityIndexed();
+
+    for (int j = 0; j < 20000; j++) {
+      int op = random.nextInt(4);
+      if (op < 2 || arrayList.isEmpty()) {
+        int index = random.nextInt(arrayList.size() + 1);
+        Object item = new Object();
+        arrayList.add(index, item);
+        treeList.add(index, item);
+      } else if (op == 2) {
+        int index = random.nextInt(arrayList.size());
+        Object item = new Object();
+        arrayList.set(index, item);
+        treeList.set(index, item);
+      } else {
+        Object item = arrayList.remove(random.nextInt(arrayList.size()));
+        assertTrue(treeList.remove(item));
+        assertFalse(treeList.contains(item));
+      }
+
+      if (j % 500 == 0) {
+        treeList.check();
+        for (int i = 0; i < arrayList.size(); i++) {
+          assertEquals(i, treeList.indexOf(arrayList.get(i)));
+        }
+      }
+    }
+    treeList.check();
+    assertEquals(arrayList, treeList);
+  }
+
+  @Test
+  public void comparesByIdentity() {
+    ObservableList<String> list = new ObservableIdentityTreeList<>();
+    String item = "a";
+    list.add(item);
+
+    assertEquals(0, list.indexOf(item));
+    assertEquals(-1, list.indexOf(new String("a")));
+    assertFalse(list.remove(new String("a")));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void addTwice() {
+    ObservableList<String> list = new ObservableIdentityTreeList<>();
+    String item = "a";
+    list.add(item);
+    list.add(item);
+  }
+
+  @Test
+  public void setSameItem() {
+    ObservableList<String> list = new ObservableIdentityTreeList<>();
+    String item = "a";
+    list.add(item);
+    list.set(0, item);
+
+    assertEquals(0, list.indexOf(item));
+  }
+
+  @Test
+  public void sortByToIdentityList() {
+    ObservableList<ValueProperty<Integer>> source = new ObservableArrayList<>();
+    for (int i : Arrays.asList(3, 1, 2)) {
+      source.add(new ValueProperty<>(i));
+    }
+    ObservableList<ValueProperty<Integer>> sorted = new ObservableIdentityTreeList<>();
+    Transformers.<ValueProperty<Integer>, ValueProperty<Integer>, Integer, ObservableList<ValueProperty<Integer>>>sortBy(
+        new Function<ValueProperty<Integer>, ReadableProperty<Integer>>() {
+          @Override
+          public ReadableProperty<Integer> apply(ValueProperty<Integer> p) {
+            return p;
+          }
+        }).transform(source, sorted);
+
+    source.get(0).set(0);
+    source.remove(1);
+
+    assertEquals(2, sorted.size());
+    assertEquals(0, (int) sorted.get(0).get());
+    assertEquals(2, (int) sorted.get(1).get());
+  }
+}
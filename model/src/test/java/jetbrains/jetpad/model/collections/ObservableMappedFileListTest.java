@@ -0,0 +1,169 @@
+/*
+ * Copyright 2012-2017 JetBrains s.r.o
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jetbrains.jetpad.model.collections;
+
+import jetbrains.jetpad.model.collections.list.ObservableMappedFileList;
+import jetbrains.jetpad.model.collections.list.RecordCodec;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+public class ObservableMappedFileListTest {
+  private static final RecordCodec<Long> LONG_CODEC = new LongCodec(8);
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private File myFile;
+  private ObservableMappedFileList<Long> myList;
+
+  @Before
+  public void init() throws IOException {
+    myFile = folder.newFile();
+    myList = ObservableMappedFileList.open(myFile, LONG_CODEC, 2);
+  }
+
+  @After
+  public void dispose() throws IOException {
+    myList.close();
+  }
+
+  @Test
+  public void append() {
+    myList.add(1L);
+    myList.addAll(Arrays.asList(2L, 3L));
+
+    assertEquals(Arrays.asList(1L, 2L, 3L), myList);
+  }
+
+  @Test
+  public void appendFiresEvents() {
+    final List<CollectionItemEvent<? extends Long>> events = new ArrayList<>();
+    myList.addListener(new CollectionAdapter<Long>() {
+      @Override
+      public void onItemAdded(CollectionItemEvent<? extends Long> event) {
+        events.add(event);
+      }
+    });
+
+    myList.add(1L);
+    myList.add(2L);
+
+    assertEquals(Arrays.asList(
+        new CollectionItemEvent<>(null, 1L, 0, CollectionItemEvent.EventType.ADD),
+        new CollectionItemEvent<>(null, 2L, 1, CollectionItemEvent.EventType.ADD)), events);
+  }
+
+  @Test
+  public void setAndRemoveLast() {
+    myList.addAll(Arrays.asList(1L, 2L, 3L));
+    myList.set(1, 20L);
+    myList.remove(2);
+
+    assertEquals(Arrays.asList(1L, 20L), myList);
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void insertInTheMiddle() {
+    myList.addAll(Arrays.asList(1L, 2L));
+    myList.add(1, 3L);
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void removeFromTheMiddle() {
+    myList.addAll(Arrays.asList(1L, 2L));
+    myList.remove(0);
+  }
+
+  @Test
+  public void itemsAreCached() {
+    myList.addAll(Arrays.asList(1000L, 2000L, 3000L));
+
+    assertSame(myList.get(2), myList.get(2));
+    myList.get(1);
+    myList.get(2);
+    Long evicted = myList.get(0);
+    myList.get(1);
+    myList.get(2);
+    assertNotSame(evicted, myList.get(0));
+    assertEquals(evicted, myList.get(0));
+  }
+
+  @Test
+  public void reopen() throws IOException {
+    myList.addAll(Arrays.asList(1L, 2L, 3L));
+    myList.close();
+    assertEquals(3 * 8, myFile.length());
+
+    myList = ObservableMappedFileList.open(myFile, LONG_CODEC, 2);
+    assertEquals(Arrays.asList(1L, 2L, 3L), myList);
+  }
+
+  @Test
+  public void severalSegments() throws IOException {
+    myList.close();
+    int recordSize = 1 << 20;
+    myList = ObservableMappedFileList.open(myFile, new LongCodec(recordSize), 2);
+    List<Long> expected = new ArrayList<>();
+    for (long i = 0; i < 40; i++) {
+      myList.add(i);
+      expected.add(i);
+    }
+    myList.set(20, -20L);
+    expected.set(20, -20L);
+    assertEquals(expected, myList);
+    myList.close();
+
+    myList = ObservableMappedFileList.open(myFile, new LongCodec(recordSize), 2);
+    assertEquals(expected, myList);
+  }
+
+  private static class LongCodec implements RecordCodec<Long> {
+    private final int myRecordSize;
+
+    LongCodec(int recordSize) {
+      myRecordSize = recordSize;
+    }
+
+    @Override
+    public int recordSize() {
+      return myRecordSize;
+    }
+
+    @Override
+    public void encode(Long item, ByteBuffer buffer) {
+      buffer.putLong(item);
+    }
+
+    @Override
+    public Long decode(ByteBuffer buffer) {
+      return Long.valueOf(buffer.getLong());
+    }
+  }
+}
@@ -0,0 +1,310 @@
+/*
+ * Copyright 2012-2017 JetBrains s.r.o
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jetbrains.jetpad.model.collections;
+
+import jetbrains.jetpad.base.Registration;
+import jetbrains.jetpad.model.collections.list.IntListAdapter;
+import jetbrains.jetpad.model.collections.list.IntListListener;
+import jetbrains.jetpad.model.collections.list.ListRangeAdapter;
+import jetbrains.jetpad.model.collections.list.ListRangeEvent;
+import jetbrains.jetpad.model.collections.list.ObservableDoubleList;
+import jetbrains.jetpad.model.collections.list.ObservableIntList;
+import jetbrains.jetpad.model.collections.list.ObservableList;
+import jetbrains.jetpad.model.collections.list.ObservableLongList;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ObservablePrimitiveListsTest {
+  private ObservableIntList myList;
+  private IntRecorder myRecorder;
+
+  @Before
+  public void init() {
+    myList = new ObservableIntList();
+    myList.addAll(new int[] {0, 1, 2, 3});
+    myRecorder = new IntRecorder();
+  }
+
+  @Test
+  public void basicOperations() {
+    myList.add(4);
+    myList.add(0, -1);
+    assertEquals(-1, myList.set(0, 10));
+    assertEquals(10, myList.remove(0));
+
+    assertArrayEquals(new int[] {0, 1, 2, 3, 4}, myList.toArray());
+    assertEquals(3, myList.indexOf(3));
+    assertEquals(-1, myList.indexOf(10));
+    assertEquals("[0, 1, 2, 3, 4]", myList.toString());
+  }
+
+  @Test
+  public void growsBeyondInitialCapacity() {
+    ObservableIntList list = new ObservableIntList();
+    for (int i = 0; i < 1000; i++) {
+      list.add(0, i);
+    }
+
+    assertEquals(1000, list.size());
+    assertEquals(999, list.get(0));
+    assertEquals(0, list.get(999));
+  }
+
+  @Test(expected = IndexOutOfBoundsException.class)
+  public void getOutOfBounds() {
+    myList.get(4);
+  }
+
+  @Test(expected = IndexOutOfBoundsException.class)
+  public void addOutOfBounds() {
+    myList.add(5, 0);
+  }
+
+  @Test
+  public void itemEvents() {
+    myList.addListener(myRecorder);
+    myList.add(1, 10);
+    myList.set(1, 11);
+    myList.remove(1);
+
+    assertEquals(Arrays.asList("added 10 at 1", "set 10 -> 11 at 1", "removed 11 at 1"), myRecorder.events);
+  }
+
+  @Test
+  public void rangeEvents() {
+    myList.addListener(myRecorder);
+    myList.addAll(1, new int[] {10, 11});
+    myList.removeRange(0, 2);
+    myList.clear();
+
+    assertEquals(Arrays.asList("added [10, 11] at 1", "removed [0, 10] at 0", "removed [11, 1, 2, 3] at 0"),
+        myRecorder.events);
+    assertTrue(myList.isEmpty());
+  }
+
+  @Test
+  public void emptyRangesDontFire() {
+    myList.addListener(myRecorder);
+    myList.addAll(new int[0]);
+    myList.removeRange(1, 1);
+
+    assertEquals(0, myRecorder.events.size());
+  }
+
+  @Test
+  public void adapterReplaysRanges() {
+    final List<String> events = new ArrayList<>();
+    myList.addListener(new IntListAdapter() {
+      @Override
+      public void onAdded(int index, int value) {
+        events.add("added " + value + " at " + index);
+      }
+
+      @Override
+      public void onRemoved(int index, int value) {
+        events.add("removed " + value + " at " + index);
+      }
+    });
+    myList.addAll(1, new int[] {10, 11});
+    myList.removeRange(0, 2);
+
+    assertEquals(Arrays.asList(
+        "added 10 at 1", "added 11 at 2", "removed 10 at 1", "removed 0 at 0"), events);
+  }
+
+  @Test
+  public void modificationFromListener() {
+    myList.addListener(new IntListAdapter() {
+      @Override
+      public void onAdded(int index, int value) {
+        if (value > 0) {
+          myList.add(-value);
+        }
+      }
+    });
+    myList.addListener(myRecorder);
+    myList.add(5);
+
+    assertArrayEquals(new int[] {0, 1, 2, 3, 5, -5}, myList.toArray());
+    assertEquals(Arrays.asList("added -5 at 5", "added 5 at 4"), myRecorder.events);
+  }
+
+  @Test
+  public void removedListener() {
+    Registration reg = myList.addListener(myRecorder);
+    reg.remove();
+    myList.add(1);
+
+    assertEquals(0, myRecorder.events.size());
+  }
+
+  @Test
+  public void boxedView() {
+    ObservableList<Integer> view = myList.asList();
+    assertEquals(Arrays.asList(0, 1, 2, 3), view);
+
+    view.add(4);
+    view.remove(0);
+    view.set(0, 10);
+    view.addAll(Arrays.asList(5, 6));
+    view.subList(0, 2).clear();
+
+    assertArrayEquals(new int[] {3, 4, 5, 6}, myList.toArray());
+  }
+
+  @Test
+  public void boxedViewEvents() {
+    final List<String> events = new ArrayList<>();
+    ObservableList<Integer> view = myList.asList();
+    Registration reg = view.addListener(new ListRangeAdapter<Integer>() {
+      @Override
+      public void onItemAdded(CollectionItemEvent<? extends Integer> event) {
+        events.add(event.toString());
+      }
+
+      @Override
+      public void onItemSet(CollectionItemEvent<? extends Integer> event) {
+        events.add(event.toString());
+      }
+
+      @Override
+      public void onItemRemoved(CollectionItemEvent<? extends Integer> event) {
+        events.add(event.toString());
+      }
+
+      @Override
+      public void onItemsAdded(ListRangeEvent<? extends Integer> event) {
+        events.add(event.toString());
+      }
+
+      @Override
+      public void onItemsRemoved(ListRangeEvent<? extends Integer> event) {
+        events.add(event.toString());
+      }
+    });
+    myList.add(4);
+    myList.set(0, 10);
+    myList.remove(0);
+    myList.addAll(new int[] {5, 6});
+    myList.removeRange(0, 2);
+
+    List<String> expected = Arrays.asList(
+        new CollectionItemEvent<>(null, 4, 4, CollectionItemEvent.EventType.ADD).toString(),
+        new CollectionItemEvent<>(0, 10, 0, CollectionItemEvent.EventType.SET).toString(),
+        new CollectionItemEvent<>(10, null, 0, CollectionItemEvent.EventType.REMOVE).toString(),
+        new ListRangeEvent<>(Arrays.asList(5, 6), 4, CollectionItemEvent.EventType.ADD).toString(),
+        new ListRangeEvent<>(Arrays.asList(1, 2), 0, CollectionItemEvent.EventType.REMOVE).toString());
+    assertEquals(expected, events);
+
+    reg.remove();
+    myList.add(7);
+    assertEquals(expected.size(), events.size());
+  }
+
+  @Test
+  public void boxedViewFallsBackToItemEvents() {
+    ObservableList<Integer> view = myList.asList();
+    final List<Integer> mirror = new ArrayList<>(view);
+    view.addListener(new CollectionAdapter<Integer>() {
+      @Override
+      public void onItemAdded(CollectionItemEvent<? extends Integer> event) {
+        mirror.add(event.getIndex(), event.getNewItem());
+      }
+
+      @Override
+      public void onItemRemoved(CollectionItemEvent<? extends Integer> event) {
+        mirror.remove(event.getIndex());
+      }
+    });
+    myList.addAll(1, new int[] {10, 11, 12});
+    myList.removeRange(2, 5);
+
+    assertEquals(view, mirror);
+  }
+
+  @Test
+  public void itemListenersOfViewSeeListAfterEachItem() {
+    final ObservableList<Integer> view = myList.asList();
+    final List<String> events = new ArrayList<>();
+    view.addListener(new CollectionAdapter<Integer>() {
+      @Override
+      public void onItemAdded(CollectionItemEvent<? extends Integer> event) {
+        events.add("added " + event.getNewItem() + " size " + view.size());
+      }
+
+      @Override
+      public void onItemRemoved(CollectionItemEvent<? extends Integer> event) {
+        events.add("removed " + event.getOldItem() + " size " + view.size());
+      }
+    });
+    myList.addAll(new int[] {4, 5});
+    myList.removeRange(0, 2);
+
+    assertEquals(Arrays.asList("added 4 size 5", "added 5 size 6", "removed 1 size 5", "removed 0 size 4"), events);
+  }
+
+  @Test
+  public void longAndDoubleLists() {
+    ObservableLongList longs = new ObservableLongList();
+    longs.addAll(new long[] {1L, Long.MAX_VALUE});
+    longs.remove(0);
+    assertArrayEquals(new long[] {Long.MAX_VALUE}, longs.toArray());
+    assertEquals(Arrays.asList(Long.MAX_VALUE), longs.asList());
+
+    ObservableDoubleList doubles = new ObservableDoubleList();
+    doubles.add(0.5);
+    doubles.add(0, 1.5);
+    assertArrayEquals(new double[] {1.5, 0.5}, doubles.toArray(), 0.0);
+    assertEquals(1, doubles.indexOf(0.5));
+  }
+
+  private static class IntRecorder implements IntListListener {
+    private final List<String> events = new ArrayList<>();
+
+    @Override
+    public void onAdded(int index, int value) {
+      events.add("added " + value + " at " + index);
+    }
+
+    @Override
+    public void onSet(int index, int oldValue, int newValue) {
+      events.add("set " + oldValue + " -> " + newValue + " at " + index);
+    }
+
+    @Override
+    public void onRemoved(int index, int value) {
+      events.add("removed " + value + " at " + index);
+    }
+
+    @Override
+    public void onRangeAdded(int index, int[] values) {
+      events.add("added " + Arrays.toString(values) + " at " + index);
+    }
+
+    @Override
+    public void onRangeRemoved(int index, int[] values) {
+      events.add("removed " + Arrays.toString(values) + " at " + index);
+    }
+  }
+}
@@ -0,0 +1,256 @@
+/*
+ * Copyright 2012-2017 JetBrains s.r.o
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jetbrains.jetpad.model.collections;
+
+import jetbrains.jetpad.base.Registration;
+import jetbrains.jetpad.base.function.Function;
+import jetbrains.jetpad.model.collections.list.ObservableSortedList;
+import jetbrains.jetpad.model.event.EventHandler;
+import jetbrains.jetpad.model.property.PropertyChangeEvent;
+import jetbrains.jetpad.model.property.ReadableProperty;
+import jetbrains.jetpad.model.property.ValueProperty;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static jetbrains.jetpad.model.collections.CollectionItemEvent.EventType.ADD;
+import static jetbrains.jetpad.model.collections.CollectionItemEvent.EventType.REMOVE;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ObservableSortedListTest {
+  private static final Comparator<Integer> NATURAL = new Comparator<Integer>() {
+    @Override
+    public int compare(Integer i1, Integer i2) {
+      return i1.compareTo(i2);
+    }
+  };
+
+  private static final Function<Item, ReadableProperty<Integer>> KEY = new Function<Item, ReadableProperty<Integer>>() {
+    @Override
+    public ReadableProperty<Integer> apply(Item item) {
+      return item.key;
+    }
+  };
+
+  private ObservableSortedList<Integer> myList;
+
+  @Before
+  public void init() {
+    myList = new ObservableSortedList<>(NATURAL);
+  }
+
+  @Test
+  public void addKeepsOrder() {
+    myList.add(3);
+    myList.add(1);
+    myList.add(2);
+    myList.add(1);
+
+    assertEquals(Arrays.asList(1, 1, 2, 3), myList);
+  }
+
+  @Test
+  public void addAll() {
+    myList.addAll(Arrays.asList(5, 3, 4));
+    myList.addAll(Arrays.asList(1, 6));
+
+    assertEquals(Arrays.asList(1, 3, 4, 5, 6), myList);
+  }
+
+  @Test
+  public void randomAddsAndRemoves() {
+    Random random = new Random(42);
+    List<Integer> expected = new ArrayList<>();
+    for (int i = 0; i < 3000; i++) {
+      Integer value = random.nextInt(500);
+      if (random.nextInt(3) == 0) {
+        assertEquals(expected.remove(value), myList.remove(value));
+      } else {
+        myList.add(value);
+        expected.add(value);
+        Collections.sort(expected);
+      }
+    }
+    assertEquals(expected, myList);
+  }
+
+  @Test
+  public void indexOfFindsEqualItem() {
+    myList.addAll(Arrays.asList(1, 2, 2, 3));
+
+    assertEquals(1, myList.indexOf(2));
+    assertEquals(-1, myList.indexOf(4));
+    assertTrue(myList.contains(3));
+    assertFalse(myList.contains(0));
+  }
+
+  @Test
+  public void positionalAddInOrder() {
+    myList.addAll(Arrays.asList(1, 3));
+    myList.add(1, 2);
+
+    assertEquals(Arrays.asList(1, 2, 3), myList);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void positionalAddOutOfOrder() {
+    myList.addAll(Arrays.asList(1, 3));
+    myList.add(0, 2);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void setOutOfOrder() {
+    myList.addAll(Arrays.asList(1, 3));
+    myList.set(0, 4);
+  }
+
+  @Test
+  public void firesItemEvents() {
+    RecordingCollectionEventHandler<Integer> handler = new RecordingCollectionEventHandler<>();
+    myList.addHandler(handler);
+    myList.add(2);
+    myList.add(1);
+
+    assertEquals(new CollectionItemEvent<>(null, 1, 0, ADD), handler.getEvents().get(1));
+  }
+
+  @Test
+  public void keyChangeMovesItem() {
+    ObservableSortedList<Item> list = ObservableSortedList.byKey(KEY);
+    Item a = new Item(1);
+    Item b = new Item(2);
+    Item c = new Item(3);
+    list.addAll(Arrays.asList(c, a, b));
+    assertEquals(Arrays.asList(a, b, c), list);
+
+    RecordingCollectionEventHandler<Item> handler = new RecordingCollectionEventHandler<>();
+    list.addHandler(handler);
+    a.key.set(5);
+
+    assertEquals(Arrays.asList(b, c, a), list);
+    assertEquals(Arrays.asList(new CollectionItemEvent<>(a, null, 0, REMOVE), new CollectionItemEvent<>(null, a, 2, ADD)),
+        handler.getEvents());
+  }
+
+  @Test
+  public void keyChangeInPlaceFiresNothing() {
+    ObservableSortedList<Item> list = ObservableSortedList.byKey(KEY);
+    Item a = new Item(1);
+    Item b = new Item(5);
+    list.add(a);
+    list.add(b);
+    RecordingCollectionEventHandler<Item> handler = new RecordingCollectionEventHandler<>();
+    list.addHandler(handler);
+
+    a.key.set(3);
+
+    assertEquals(0, handler.getCounter());
+  }
+
+  @Test
+  public void removedItemIsNotWatched() {
+    ObservableSortedList<Item> list = ObservableSortedList.byKey(KEY);
+    Item a = new Item(1);
+    Item b = new Item(2);
+    list.add(a);
+    list.add(b);
+    list.remove(a);
+    a.key.set(10);
+
+    assertEquals(Arrays.asList(b), list);
+    assertEquals(0, a.key.getHandlersCount());
+  }
+
+  @Test
+  public void nullKeysGoFirst() {
+    ObservableSortedList<Item> list = ObservableSortedList.byKey(KEY);
+    Item a = new Item(1);
+    Item b = new Item(null);
+    list.add(a);
+    list.add(b);
+
+    assertEquals(Arrays.asList(b, a), list);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void keyedListRejectsSameItem() {
+    ObservableSortedList<Item> list = ObservableSortedList.byKey(KEY);
+    Item a = new Item(1);
+    list.add(a);
+    list.add(a);
+  }
+
+  @Test
+  public void randomKeyChanges() {
+    ObservableSortedList<Item> list = ObservableSortedList.byKey(KEY);
+    Random random = new Random(42);
+    List<Item> items = new ArrayList<>();
+    for (int i = 0; i < 500; i++) {
+      Item item = new Item(random.nextInt(100));
+      items.add(item);
+      list.add(item);
+    }
+    for (int i = 0; i < 2000; i++) {
+      items.get(random.nextInt(items.size())).key.set(random.nextInt(100));
+    }
+
+    for (int i = 1; i < list.size(); i++) {
+      assertTrue(list.get(i - 1).key.get() <= list.get(i).key.get());
+    }
+    assertEquals(items.size(), list.size());
+  }
+
+  private static class Item {
+    final CountingProperty key;
+
+    Item(Integer key) {
+      this.key = new CountingProperty(key);
+    }
+  }
+
+  private static class CountingProperty extends ValueProperty<Integer> {
+    private int myHandlersCount;
+
+    CountingProperty(Integer value) {
+      super(value);
+    }
+
+    int getHandlersCount() {
+      return myHandlersCount;
+    }
+
+    @Override
+    public Registration addHandler(EventHandler<? super PropertyChangeEvent<Integer>> handler) {
+      final Registration registration = super.addHandler(handler);
+      myHandlersCount++;
+      return new Registration() {
+        @Override
+        protected void doRemove() {
+          myHandlersCount--;
+          registration.remove();
+        }
+      };
+    }
+  }
+}
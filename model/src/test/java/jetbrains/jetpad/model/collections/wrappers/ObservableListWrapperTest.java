@@ -15,7 +15,9 @@
  */
 package jetbrains.jetpad.model.collections.wrappers;
 
+import jetbrains.jetpad.base.Registration;
 import jetbrains.jetpad.base.function.Function;
+import jetbrains.jetpad.model.collections.CollectionAdapter;
 import jetbrains.jetpad.model.collections.CollectionItemEvent;
 import jetbrains.jetpad.model.collections.CollectionListener;
 import jetbrains.jetpad.model.collections.list.ObservableArrayList;
@@ -33,6 +35,7 @@ import static jetbrains.jetpad.model.collections.ObservableItemEventMatchers.set
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.Matchers.contains;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertThat;
 
 public class ObservableListWrapperTest {
@@ -56,11 +59,12 @@ public class ObservableListWrapperTest {
   private InOrder inOrder = Mockito.inOrder(sourceListener, targetListener);
 
   private CollectingListener listener = new CollectingListener();
+  private Registration listenerReg;
 
   @Before
   public void setup() {
     source.addAll(Arrays.asList(10.0, 20.0, 30.0));
-    target.addListener(listener);
+    listenerReg = target.addListener(listener);
   }
 
   @Test
@@ -121,6 +125,8 @@ public class ObservableListWrapperTest {
 
   @Test
   public void listMapListenerSourceThenTargetOnSourceAdd() {
+    //listeners of the view are notified in the place of the first of them
+    listenerReg.remove();
     source.addListener(sourceListener);
     target.addListener(targetListener);
     source.add(0, 0.0);
@@ -146,6 +152,8 @@ public class ObservableListWrapperTest {
 
   @Test
   public void listMapListenerSourceThenTargetOnTargetAdd() {
+    //listeners of the view are notified in the place of the first of them
+    listenerReg.remove();
     source.addListener(sourceListener);
     target.addListener(targetListener);
 
@@ -169,4 +177,47 @@ public class ObservableListWrapperTest {
     inOrder.verify(sourceListener)
         .onItemAdded(new CollectionItemEvent<>(null, -1.0, 0, CollectionItemEvent.EventType.ADD));
   }
-}
\ No newline at end of file
+
+  @Test
+  public void oneConversionForAllListeners() {
+    final int[] conversions = new int[1];
+    ObservableList<Integer> wrapper = new ObservableListWrapper<>(source, new Function<Double, Integer>() {
+      @Override
+      public Integer apply(Double value) {
+        conversions[0]++;
+        return value.intValue();
+      }
+    }, toSource);
+    CollectingListener listener1 = new CollectingListener();
+    CollectingListener listener2 = new CollectingListener();
+    Registration reg1 = wrapper.addListener(listener1);
+    Registration reg2 = wrapper.addListener(listener2);
+
+    source.add(0.0);
+    assertEquals(1, conversions[0]);
+    listener1.assertEvents(1, 0, 0);
+    listener2.assertEvents(1, 0, 0);
+
+    reg1.remove();
+    reg2.remove();
+    source.add(0.0);
+    assertEquals(1, conversions[0]);
+  }
+
+  @Test
+  public void listenerAddedDuringSourceEvent() {
+    final CollectingListener listener1 = new CollectingListener();
+    final CollectingListener listener2 = new CollectingListener();
+    target.addListener(listener1);
+    source.addListener(new CollectionAdapter<Double>() {
+      @Override
+      public void onItemAdded(CollectionItemEvent<? extends Double> event) {
+        target.addListener(listener2);
+      }
+    });
+
+    source.add(0.0);
+
+    listener1.assertEvents(1, 0, 0);
+  }
+}
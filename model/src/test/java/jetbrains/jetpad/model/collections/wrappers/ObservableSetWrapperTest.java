@@ -15,6 +15,7 @@
  */
 package jetbrains.jetpad.model.collections.wrappers;
 
+import jetbrains.jetpad.base.Registration;
 import jetbrains.jetpad.base.function.Function;
 import jetbrains.jetpad.model.collections.CollectionItemEvent;
 import jetbrains.jetpad.model.collections.CollectionListener;
@@ -55,11 +56,12 @@ public class ObservableSetWrapperTest {
   private InOrder inOrder = Mockito.inOrder(sourceListener, targetListener);
 
   private CollectingListener listener = new CollectingListener();
+  private Registration listenerReg;
 
   @Before
   public void setup() {
     source.addAll(Arrays.asList(10.0, 20.0, 30.0));
-    target.addListener(listener);
+    listenerReg = target.addListener(listener);
   }
 
   @Test
@@ -103,6 +105,8 @@ public class ObservableSetWrapperTest {
 
   @Test
   public void setMapListenerSourceThenTargetOnSourceAdd() {
+    //listeners of the view are notified in the place of the first of them
+    listenerReg.remove();
     source.addListener(sourceListener);
     target.addListener(targetListener);
     source.add(0.0);
@@ -128,6 +132,8 @@ public class ObservableSetWrapperTest {
 
   @Test
   public void setMapListenerSourceThenTargetOnTargetAdd() {
+    //listeners of the view are notified in the place of the first of them
+    listenerReg.remove();
     source.addListener(sourceListener);
     target.addListener(targetListener);
 
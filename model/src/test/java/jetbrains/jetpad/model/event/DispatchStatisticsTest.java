@@ -0,0 +1,116 @@
+/*
+ * Copyright 2012-2017 JetBrains s.r.o
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jetbrains.jetpad.model.event;
+
+import jetbrains.jetpad.model.property.ValueProperty;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class DispatchStatisticsTest {
+  private long myTime;
+  private DispatchStatistics myStatistics;
+
+  @Before
+  public void init() {
+    myStatistics = new DispatchStatistics() {
+      @Override
+      protected long nanoTime() {
+        return myTime;
+      }
+    };
+  }
+
+  @Test
+  public void hottestSources() {
+    Object cold = new Object();
+    Object hot = new Object();
+    fire(cold, "l", 10);
+    fire(hot, "l", 20);
+    fire(hot, "l", 20);
+
+    List<DispatchStatistics.SourceStats> sources = myStatistics.getHottestSources(1);
+    assertEquals(1, sources.size());
+    assertEquals(2, sources.get(0).getCount());
+    assertEquals(40, sources.get(0).getTotalNanos());
+    assertEquals(20, sources.get(0).getMaxNanos());
+  }
+
+  @Test
+  public void slowestListeners() {
+    Object source = new Object();
+    fire(source, "fast", 10);
+    fire(source, "fast", 10);
+    fire(source, "slow", 15);
+
+    List<DispatchStatistics.ListenerStats> listeners = myStatistics.getSlowestListeners(2);
+    assertEquals(2, listeners.size());
+    assertEquals(15, listeners.get(0).getMaxNanos());
+    assertEquals(20, listeners.get(1).getTotalNanos());
+  }
+
+  @Test
+  public void nestedFire() {
+    Object outer = new Object();
+    Object inner = new Object();
+    myStatistics.onFireStarted(outer, 1, 1);
+    myStatistics.onListenerStarted(outer, "l1");
+    myTime += 5;
+    fire(inner, "l2", 10, 2);
+    myStatistics.onListenerFinished(outer, "l1");
+    myStatistics.onFireFinished(outer);
+
+    List<DispatchStatistics.SourceStats> sources = myStatistics.getHottestSources(2);
+    assertEquals(15, sources.get(0).getTotalNanos());
+    assertEquals(1, sources.get(0).getMaxDepth());
+    assertEquals(10, sources.get(1).getTotalNanos());
+    assertEquals(2, sources.get(1).getMaxDepth());
+  }
+
+  @Test
+  public void propertyIsDescribedByExpression() {
+    ValueProperty<String> prop = new ValueProperty<>();
+    fire(prop, "l", 1);
+
+    assertEquals(prop.getPropExpr(), myStatistics.getHottestSources(1).get(0).getName());
+    assertEquals(prop.getPropExpr(), myStatistics.getSlowestListeners(1).get(0).getLastSource());
+  }
+
+  @Test
+  public void reset() {
+    fire(new Object(), "l", 1);
+    myStatistics.reset();
+
+    assertTrue(myStatistics.getHottestSources(10).isEmpty());
+    assertTrue(myStatistics.getSlowestListeners(10).isEmpty());
+  }
+
+  private void fire(Object source, Object listener, long nanos) {
+    fire(source, listener, nanos, 1);
+  }
+
+  private void fire(Object source, Object listener, long nanos, int depth) {
+    myStatistics.onFireStarted(source, 1, depth);
+    myStatistics.onListenerStarted(source, listener);
+    myTime += nanos;
+    myStatistics.onListenerFinished(source, listener);
+    myStatistics.onFireFinished(source);
+  }
+}
@@ -20,9 +20,14 @@ import jetbrains.jetpad.base.Value;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 
 public class ListenersTest {
   private Listeners<Listener> myListeners;
@@ -87,16 +92,137 @@ public class ListenersTest {
     assertEquals(0, myListeners.size());
   }
 
+  @Test
+  public void fireWithDispatcher() {
+    final StringBuilder log = new StringBuilder();
+    for (final String name : new String[] {"a", "b"}) {
+      myListeners.add(new Listener() {
+        @Override
+        public void act() {
+          log.append(name);
+        }
+      });
+    }
+
+    myListeners.fire("!", new ListenerDispatcher<Listener, String>() {
+      @Override
+      public void dispatch(Listener l, String event) {
+        l.act();
+        log.append(event);
+      }
+    });
+
+    assertEquals("a!b!", log.toString());
+  }
+
+  @Test
+  public void removeNotYetCalledListenerInFire() {
+    final Value<Registration> secondReg = new Value<>(null);
+    myListeners.add(new Listener() {
+      @Override
+      public void act() {
+        secondReg.get().remove();
+      }
+    });
+    secondReg.set(myListeners.add(createInnerListener()));
+
+    fire();
+
+    assertFalse(myInnerListenerCalled);
+    assertEquals(1, myListeners.size());
+  }
+
+  @Test
+  public void afterLastRemovedInFire() {
+    final Value<Integer> lastRemovedCount = new Value<>(0);
+    myListeners = new Listeners<Listener>() {
+      @Override
+      protected void afterLastRemoved() {
+        lastRemovedCount.set(lastRemovedCount.get() + 1);
+      }
+    };
+    final Value<Registration> reg = new Value<>(null);
+    reg.set(myListeners.add(new Listener() {
+      @Override
+      public void act() {
+        reg.get().remove();
+      }
+    }));
+
+    fire();
+
+    assertEquals(0, myListeners.size());
+    assertEquals(1, (int) lastRemovedCount.get());
+  }
+
+  @Test
+  public void removeAllInFire() {
+    final List<Registration> regs = new ArrayList<>();
+    final List<Integer> called = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      final int index = i;
+      regs.add(myListeners.add(new Listener() {
+        @Override
+        public void act() {
+          called.add(index);
+          for (Registration reg : regs) {
+            reg.remove();
+          }
+          regs.clear();
+        }
+      }));
+    }
+
+    fire();
+
+    assertEquals(Arrays.asList(0), called);
+    assertEquals(0, myListeners.size());
+    assertTrue(myListeners.isEmpty());
+  }
+
+  @Test
+  public void orderIsKeptAfterRemovals() {
+    final List<Integer> called = new ArrayList<>();
+    List<Registration> regs = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      final int index = i;
+      regs.add(myListeners.add(new Listener() {
+        @Override
+        public void act() {
+          called.add(index);
+        }
+      }));
+    }
+    for (int i = 0; i < 10; i += 2) {
+      regs.get(i).remove();
+    }
+    myListeners.add(new Listener() {
+      @Override
+      public void act() {
+        called.add(10);
+      }
+    });
+
+    fire();
+
+    assertEquals(Arrays.asList(1, 3, 5, 7, 9, 10), called);
+    assertEquals(6, myListeners.size());
+  }
+
   private void fireAndCheck(int expectedListenersSize) {
     assertEquals(1, myListeners.size());
+    fire();
+    assertEquals(expectedListenersSize, myListeners.size());
+    assertFalse(myInnerListenerCalled);
+  }
+
+  private void fire() {
     myListeners.fire(new ListenerCaller<Listener>() {
       @Override
       public void call(Listener l) {
         l.act();
       }
     });
-    assertEquals(expectedListenersSize, myListeners.size());
-    assertFalse(myInnerListenerCalled);
   }
 
   private Listener createInnerListener() {
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2012-2017 JetBrains s.r.o
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jetbrains.jetpad.model.event;
+
+import jetbrains.jetpad.base.Registration;
+import jetbrains.jetpad.test.BaseTestCase;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class RegistrationScopeTest extends BaseTestCase {
+  private int myRemoveCounter = 0;
+
+  @Test
+  public void removalOrder() {
+    RegistrationScope scope = new RegistrationScope();
+    scope.add(createReg(1));
+    scope.add(createReg(0));
+    scope.remove();
+    assertEquals(2, myRemoveCounter);
+  }
+
+  @Test
+  public void individualRemoveIsForgotten() {
+    RegistrationScope scope = new RegistrationScope();
+    Registration reg = scope.add(createReg(0));
+    scope.add(createReg(1));
+
+    reg.remove();
+    assertEquals(1, myRemoveCounter);
+
+    scope.remove();
+    assertEquals(2, myRemoveCounter);
+  }
+
+  @Test
+  public void removeAfterDispose() {
+    RegistrationScope scope = new RegistrationScope();
+    Registration reg = scope.add(createReg(0));
+    scope.remove();
+
+    reg.remove();
+    assertEquals(1, myRemoveCounter);
+    assertTrue(scope.isEmpty());
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void addAfterDispose() {
+    RegistrationScope scope = new RegistrationScope();
+    scope.remove();
+    scope.add(Registration.EMPTY);
+  }
+
+  private Registration createReg(final int expectedOrder) {
+    return new Registration() {
+      @Override
+      protected void doRemove() {
+        assertEquals(expectedOrder, myRemoveCounter++);
+      }
+    };
+  }
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright 2012-2017 JetBrains s.r.o
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jetbrains.jetpad.model.event;
+
+import jetbrains.jetpad.model.collections.CollectionAdapter;
+import jetbrains.jetpad.model.collections.CollectionItemEvent;
+import jetbrains.jetpad.model.collections.list.ObservableArrayList;
+import jetbrains.jetpad.model.property.PropertyChangeEvent;
+import jetbrains.jetpad.model.property.ValueProperty;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+public class ReusedEventsTest {
+  @Test
+  public void propertyReusesEvent() {
+    ValueProperty<Integer> prop = new ValueProperty<>(0);
+    prop.setReuseEvents(true);
+    final List<PropertyChangeEvent<Integer>> events = new ArrayList<>();
+    final List<String> values = new ArrayList<>();
+    prop.addHandler(new EventHandler<PropertyChangeEvent<Integer>>() {
+      @Override
+      public void onEvent(PropertyChangeEvent<Integer> event) {
+        events.add(event);
+        values.add(event.toString());
+      }
+    });
+
+    prop.set(1);
+    prop.set(2);
+
+    assertSame(events.get(0), events.get(1));
+    assertEquals(Arrays.asList("0 -> 1", "1 -> 2"), values);
+  }
+
+  @Test
+  public void propertyDoesntReuseEventsByDefault() {
+    ValueProperty<Integer> prop = new ValueProperty<>(0);
+    final List<PropertyChangeEvent<Integer>> events = new ArrayList<>();
+    prop.addHandler(new EventHandler<PropertyChangeEvent<Integer>>() {
+      @Override
+      public void onEvent(PropertyChangeEvent<Integer> event) {
+        events.add(event);
+      }
+    });
+
+    prop.set(1);
+    prop.set(2);
+
+    assertNotSame(events.get(0), events.get(1));
+    assertEquals(Integer.valueOf(1), events.get(0).getNewValue());
+  }
+
+  @Test
+  public void nestedPropertySetGetsOwnEvent() {
+    final ValueProperty<Integer> prop = new ValueProperty<>(0);
+    prop.setReuseEvents(true);
+    final List<String> values = new ArrayList<>();
+    prop.addHandler(new EventHandler<PropertyChangeEvent<Integer>>() {
+      @Override
+      public void onEvent(PropertyChangeEvent<Integer> event) {
+        if (event.getNewValue() == 1) {
+          prop.set(2);
+        }
+        values.add(event.toString());
+      }
+    });
+
+    prop.set(1);
+    prop.set(3);
+
+    assertEquals(Arrays.asList("1 -> 2", "0 -> 1", "2 -> 3"), values);
+  }
+
+  @Test
+  public void listReusesEvent() {
+    ObservableArrayList<String> list = new ObservableArrayList<>();
+    list.setReuseEvents(true);
+    final List<CollectionItemEvent<? extends String>> events = new ArrayList<>();
+    final List<String> values = new ArrayList<>();
+    list.addListener(new CollectionAdapter<String>() {
+      @Override
+      public void onItemAdded(CollectionItemEvent<? extends String> event) {
+        record(event);
+      }
+
+      @Override
+      public void onItemSet(CollectionItemEvent<? extends String> event) {
+        record(event);
+      }
+
+      @Override
+      public void onItemRemoved(CollectionItemEvent<? extends String> event) {
+        record(event);
+      }
+
+      private void record(CollectionItemEvent<? extends String> event) {
+        events.add(event);
+        values.add(event.toString());
+      }
+    });
+
+    list.add("a");
+    list.set(0, "b");
+    list.remove(0);
+
+    assertSame(events.get(0), events.get(1));
+    assertSame(events.get(1), events.get(2));
+    assertEquals(Arrays.asList(
+        new CollectionItemEvent<>(null, "a", 0, CollectionItemEvent.EventType.ADD).toString(),
+        new CollectionItemEvent<>("a", "b", 0, CollectionItemEvent.EventType.SET).toString(),
+        new CollectionItemEvent<>("b", null, 0, CollectionItemEvent.EventType.REMOVE).toString()), values);
+  }
+
+  @Test
+  public void nestedListChangeGetsOwnEvent() {
+    final ObservableArrayList<String> list = new ObservableArrayList<>();
+    list.setReuseEvents(true);
+    final List<CollectionItemEvent<? extends String>> events = new ArrayList<>();
+    list.addListener(new CollectionAdapter<String>() {
+      @Override
+      public void onItemAdded(CollectionItemEvent<? extends String> event) {
+        if ("a".equals(event.getNewItem())) {
+          list.add("b");
+        }
+        events.add(new CollectionItemEvent<>(event.getOldItem(), event.getNewItem(), event.getIndex(), event.getType()));
+      }
+    });
+
+    list.add("a");
+
+    assertEquals(Arrays.asList(
+        new CollectionItemEvent<>(null, "b", 1, CollectionItemEvent.EventType.ADD),
+        new CollectionItemEvent<>(null, "a", 0, CollectionItemEvent.EventType.ADD)), events);
+  }
+
+  @Test
+  public void listKeepsReusingEventsAfterListenersChange() {
+    ObservableArrayList<String> list = new ObservableArrayList<>();
+    list.setReuseEvents(true);
+    final List<CollectionItemEvent<? extends String>> events = new ArrayList<>();
+    CollectionAdapter<String> listener = new CollectionAdapter<String>() {
+      @Override
+      public void onItemAdded(CollectionItemEvent<? extends String> event) {
+        events.add(event);
+      }
+    };
+    list.addListener(listener).remove();
+    list.add("a");
+    list.addListener(listener);
+    list.add("b");
+    list.add("c");
+
+    assertEquals(2, events.size());
+    assertSame(events.get(0), events.get(1));
+  }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright 2012-2017 JetBrains s.r.o
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jetbrains.jetpad.model.event;
+
+import jetbrains.jetpad.base.Registration;
+import jetbrains.jetpad.model.collections.CollectionAdapter;
+import jetbrains.jetpad.model.collections.CollectionItemEvent;
+import jetbrains.jetpad.model.collections.CollectionListener;
+import jetbrains.jetpad.model.collections.list.ObservableArrayList;
+import jetbrains.jetpad.test.BaseTestCase;
+import org.junit.Test;
+
+import java.lang.ref.WeakReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class WeakHandlersTest extends BaseTestCase {
+  private int myEventsCount;
+  private WeakReference<EventHandler<Integer>> myHandlerRef;
+  private boolean myEmpty = true;
+
+  private final Listeners<EventHandler<? super Integer>> myListeners =
+      new Listeners<EventHandler<? super Integer>>() {
+        @Override
+        protected void beforeFirstAdded() {
+          myEmpty = false;
+        }
+
+        @Override
+        protected void afterLastRemoved() {
+          myEmpty = true;
+        }
+      };
+
+  private final EventSource<Integer> mySource = new EventSource<Integer>() {
+    @Override
+    public Registration addHandler(EventHandler<? super Integer> handler) {
+      return myListeners.add(handler);
+    }
+  };
+
+  @Test
+  public void reachableHandlerGetsEvents() {
+    EventHandler<Integer> handler = countingHandler();
+    WeakHandlers.addWeakHandler(mySource, handler);
+
+    fire();
+
+    assertEquals(1, myEventsCount);
+  }
+
+  @Test
+  public void collectedHandlerIsRemovedByFire() {
+    addCollectableHandler();
+    collect(myHandlerRef);
+    assertFalse(myEmpty);
+
+    fire();
+
+    assertTrue(myEmpty);
+    assertEquals(0, myEventsCount);
+  }
+
+  @Test
+  public void removeRegistration() {
+    EventHandler<Integer> handler = countingHandler();
+    Registration reg = WeakHandlers.addWeakHandler(mySource, handler);
+
+    reg.remove();
+
+    assertTrue(myEmpty);
+  }
+
+  @Test
+  public void removeRegistrationAfterPurge() {
+    Registration reg = addCollectableHandler();
+    collect(myHandlerRef);
+    fire();
+    assertTrue(myEmpty);
+
+    reg.remove();
+
+    assertTrue(myEmpty);
+  }
+
+  @Test
+  public void weakCollectionListener() {
+    ObservableArrayList<String> list = new ObservableArrayList<>();
+    CollectionListener<String> listener = new CollectionAdapter<String>() {
+      @Override
+      public void onItemAdded(CollectionItemEvent<? extends String> event) {
+        myEventsCount++;
+      }
+    };
+    WeakHandlers.addWeakListener(list, listener);
+
+    list.add("a");
+
+    assertEquals(1, myEventsCount);
+  }
+
+  private Registration addCollectableHandler() {
+    EventHandler<Integer> handler = countingHandler();
+    myHandlerRef = new WeakReference<>(handler);
+    return WeakHandlers.addWeakHandler(mySource, handler);
+  }
+
+  private EventHandler<Integer> countingHandler() {
+    return new EventHandler<Integer>() {
+      @Override
+      public void onEvent(Integer event) {
+        myEventsCount++;
+      }
+    };
+  }
+
+  private void fire() {
+    myListeners.fire(0, EventSources.<Integer>handlerDispatcher());
+  }
+
+  private static void collect(WeakReference<?> ref) {
+    for (int i = 0; i < 100 && ref.get() != null; i++) {
+      System.gc();
+    }
+    assertTrue(ref.get() == null);
+  }
+}
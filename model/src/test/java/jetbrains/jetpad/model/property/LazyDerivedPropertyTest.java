@@ -0,0 +1,140 @@
+/*
+ * Copyright 2012-2017 JetBrains s.r.o
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jetbrains.jetpad.model.property;
+
+import jetbrains.jetpad.base.Registration;
+import jetbrains.jetpad.model.collections.list.ObservableArrayList;
+import jetbrains.jetpad.model.collections.list.ObservableList;
+import jetbrains.jetpad.model.event.EventHandler;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class LazyDerivedPropertyTest {
+  private ValueProperty<Integer> source = new ValueProperty<>(1);
+  private int parityCalculations;
+  private int descriptionCalculations;
+
+  private ReadableProperty<Boolean> even = new LazyDerivedProperty<Boolean>(source) {
+    @Override
+    protected Boolean doGet() {
+      parityCalculations++;
+      return source.get() % 2 == 0;
+    }
+  };
+
+  private ReadableProperty<String> description = new LazyDerivedProperty<String>(even) {
+    @Override
+    protected String doGet() {
+      descriptionCalculations++;
+      return even.get() ? "even" : "odd";
+    }
+  };
+
+  @Test
+  public void valueIsCached() {
+    assertEquals("odd", description.get());
+    assertEquals("odd", description.get());
+
+    assertEquals(1, descriptionCalculations);
+    assertEquals(1, parityCalculations);
+  }
+
+  @Test
+  public void recalculatedAfterChange() {
+    description.get();
+    source.set(2);
+
+    assertEquals("even", description.get());
+    assertEquals("even", description.get());
+    assertEquals(2, descriptionCalculations);
+    assertEquals(2, parityCalculations);
+  }
+
+  @Test
+  public void versionWrapsAround() {
+    assertEquals(0, BaseReadableProperty.nextVersion(Integer.MAX_VALUE));
+  }
+
+  @Test
+  public void nothingIsCalculatedUntilRead() {
+    description.get();
+    for (int i = 2; i < 10; i++) {
+      source.set(i);
+    }
+
+    assertEquals(1, parityCalculations);
+    assertEquals("odd", description.get());
+    assertEquals(2, parityCalculations);
+  }
+
+  @Test
+  public void unchangedDependencyValueDoesntRecalculate() {
+    description.get();
+    source.set(3);
+
+    assertEquals("odd", description.get());
+    assertEquals(2, parityCalculations);
+    assertEquals(1, descriptionCalculations);
+  }
+
+  @Test
+  public void unrelatedChangeDoesntRecalculate() {
+    description.get();
+    new ValueProperty<>(0).set(1);
+
+    description.get();
+    assertEquals(1, parityCalculations);
+    assertEquals(1, descriptionCalculations);
+  }
+
+  @Test
+  public void observedProperty() {
+    final List<String> values = new ArrayList<>();
+    Registration reg = description.addHandler(new EventHandler<PropertyChangeEvent<String>>() {
+      @Override
+      public void onEvent(PropertyChangeEvent<String> event) {
+        values.add(event.getNewValue());
+      }
+    });
+    source.set(2);
+    reg.remove();
+    source.set(3);
+
+    assertEquals(Arrays.asList("even"), values);
+    assertEquals("odd", description.get());
+  }
+
+  @Test
+  public void untrackedDependencyDisablesCache() {
+    final ObservableList<Integer> list = new ObservableArrayList<>();
+    final ReadableProperty<Integer> size = Properties.size(list);
+    ReadableProperty<Integer> doubleSize = new LazyDerivedProperty<Integer>(size) {
+      @Override
+      protected Integer doGet() {
+        return size.get() * 2;
+      }
+    };
+
+    assertEquals(0, (int) doubleSize.get());
+    list.add(1);
+    assertEquals(2, (int) doubleSize.get());
+  }
+}
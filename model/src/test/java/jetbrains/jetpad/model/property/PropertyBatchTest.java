@@ -0,0 +1,206 @@
+/*
+ * Copyright 2012-2017 JetBrains s.r.o
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jetbrains.jetpad.model.property;
+
+import jetbrains.jetpad.model.event.EventHandler;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class PropertyBatchTest {
+  private ValueProperty<Integer> source;
+  private ReadableProperty<Integer> left;
+  private ReadableProperty<Integer> right;
+  private ReadableProperty<Integer> sum;
+  private int sumCalculations;
+  private List<Integer> sumValues;
+
+  @Before
+  public void init() {
+    source = new ValueProperty<>(1);
+    left = plusOne(source);
+    right = plusOne(plusOne(source));
+    sum = new DerivedProperty<Integer>(left, right) {
+      @Override
+      protected Integer doGet() {
+        sumCalculations++;
+        return left.get() + right.get();
+      }
+    };
+    sumValues = new ArrayList<>();
+    sum.addHandler(new EventHandler<PropertyChangeEvent<Integer>>() {
+      @Override
+      public void onEvent(PropertyChangeEvent<Integer> event) {
+        sumValues.add(event.getNewValue());
+      }
+    });
+    sumCalculations = 0;
+  }
+
+  @Test
+  public void diamondWithoutBatch() {
+    source.set(2);
+
+    assertEquals(Arrays.asList(6, 7), sumValues);
+  }
+
+  @Test
+  public void diamondInBatch() {
+    Properties.batch(new Runnable() {
+      @Override
+      public void run() {
+        source.set(2);
+      }
+    });
+
+    assertEquals(Arrays.asList(7), sumValues);
+    assertEquals(1, sumCalculations);
+  }
+
+  @Test
+  public void eventsAreFiredAfterBatch() {
+    Properties.batch(new Runnable() {
+      @Override
+      public void run() {
+        source.set(2);
+        source.set(3);
+        assertTrue(sumValues.isEmpty());
+      }
+    });
+
+    assertEquals(Arrays.asList(9), sumValues);
+  }
+
+  @Test
+  public void derivedValueIsActualInBatch() {
+    Properties.batch(new Runnable() {
+      @Override
+      public void run() {
+        source.set(2);
+        assertEquals(7, (int) sum.get());
+      }
+    });
+
+    assertEquals(7, (int) sum.get());
+  }
+
+  @Test
+  public void revertedChangeFiresNothing() {
+    Properties.batch(new Runnable() {
+      @Override
+      public void run() {
+        source.set(2);
+        source.set(1);
+      }
+    });
+
+    assertTrue(sumValues.isEmpty());
+    assertEquals(0, sumCalculations);
+  }
+
+  @Test
+  public void nestedBatch() {
+    Properties.batch(new Runnable() {
+      @Override
+      public void run() {
+        Properties.batch(new Runnable() {
+          @Override
+          public void run() {
+            source.set(2);
+          }
+        });
+        assertTrue(sumValues.isEmpty());
+      }
+    });
+
+    assertEquals(Arrays.asList(7), sumValues);
+  }
+
+  @Test
+  public void changesFromHandlersArePropagated() {
+    final ValueProperty<Integer> other = new ValueProperty<>(0);
+    final ReadableProperty<Integer> otherPlusOne = plusOne(other);
+    final List<Integer> otherValues = new ArrayList<>();
+    otherPlusOne.addHandler(new EventHandler<PropertyChangeEvent<Integer>>() {
+      @Override
+      public void onEvent(PropertyChangeEvent<Integer> event) {
+        otherValues.add(event.getNewValue());
+      }
+    });
+    sum.addHandler(new EventHandler<PropertyChangeEvent<Integer>>() {
+      @Override
+      public void onEvent(PropertyChangeEvent<Integer> event) {
+        other.set(event.getNewValue());
+      }
+    });
+
+    Properties.batch(new Runnable() {
+      @Override
+      public void run() {
+        source.set(2);
+      }
+    });
+
+    assertEquals(Arrays.asList(8), otherValues);
+  }
+
+  @Test
+  public void batchOnOtherThreadDoesntDeferEvents() throws Exception {
+    final CountDownLatch started = new CountDownLatch(1);
+    final CountDownLatch finish = new CountDownLatch(1);
+    Thread thread = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        Properties.batch(new Runnable() {
+          @Override
+          public void run() {
+            started.countDown();
+            try {
+              finish.await();
+            } catch (InterruptedException e) {
+              throw new RuntimeException(e);
+            }
+          }
+        });
+      }
+    });
+    thread.start();
+    try {
+      started.await();
+      source.set(2);
+      assertEquals(Arrays.asList(6, 7), sumValues);
+    } finally {
+      finish.countDown();
+      thread.join();
+    }
+  }
+
+  private static ReadableProperty<Integer> plusOne(final ReadableProperty<Integer> prop) {
+    return new DerivedProperty<Integer>(prop) {
+      @Override
+      protected Integer doGet() {
+        return prop.get() + 1;
+      }
+    };
+  }
+}
@@ -16,7 +16,11 @@
 package jetbrains.jetpad.model.transform;
 
 import jetbrains.jetpad.base.function.Function;
+import jetbrains.jetpad.model.collections.CollectionAdapter;
+import jetbrains.jetpad.model.collections.CollectionItemEvent;
 import jetbrains.jetpad.model.collections.ObservableCollection;
+import jetbrains.jetpad.model.collections.list.ListRangeAdapter;
+import jetbrains.jetpad.model.collections.list.ListRangeEvent;
 import jetbrains.jetpad.model.collections.list.ObservableArrayList;
 import jetbrains.jetpad.model.collections.list.ObservableList;
 import jetbrains.jetpad.model.event.EventHandler;
@@ -28,13 +32,24 @@ import jetbrains.jetpad.model.property.ReadableProperty;
 import jetbrains.jetpad.model.property.ValueProperty;
 import org.junit.Test;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
 
 import static org.junit.Assert.assertEquals;
 
 public class FilterListTest {
   private ObservableArrayList<String> from = new ObservableArrayList<>();
   private ObservableArrayList<String> to = new ObservableArrayList<>();
+  private static final Function<ValueProperty<Boolean>, ReadableProperty<Boolean>> VISIBLE =
+      new Function<ValueProperty<Boolean>, ReadableProperty<Boolean>>() {
+        @Override
+        public ReadableProperty<Boolean> apply(ValueProperty<Boolean> item) {
+          return item;
+        }
+      };
+
   private Transformer<ObservableCollection<String>,ObservableList<String>> filter = Transformers.listFilter(new Function<String, ReadableProperty<Boolean>>() {
     @Override
     public ReadableProperty<Boolean> apply(String s) {
@@ -174,4 +189,166 @@ public class FilterListTest {
     assertEquals(1, to.size());
     assertEquals("a", to.get(0));
   }
-}
\ No newline at end of file
+
+  @Test
+  public void removeFromMiddle() {
+    from.addAll(Arrays.asList("aa", "b", "cc", "dd"));
+    filter.transform(from, to);
+
+    from.remove(2);
+
+    assertEquals(Arrays.asList("aa", "dd"), to);
+  }
+
+  @Test
+  public void batchAddsAdjacentItemsAsRange() {
+    final ObservableList<ValueProperty<Boolean>> source = new ObservableArrayList<>();
+    for (int i = 0; i < 6; i++) {
+      source.add(new ValueProperty<>(i == 0 || i == 5));
+    }
+    ObservableList<ValueProperty<Boolean>> target =
+        Transformers.<ValueProperty<Boolean>, ObservableList<ValueProperty<Boolean>>>listFilter(VISIBLE)
+            .transform(source).getTarget();
+    final List<String> events = new ArrayList<>();
+    target.addListener(new ListRangeAdapter<ValueProperty<Boolean>>() {
+      @Override
+      public void onItemsAdded(ListRangeEvent<? extends ValueProperty<Boolean>> event) {
+        events.add("add " + event.getIndex() + " " + event.size());
+      }
+
+      @Override
+      public void onItemsRemoved(ListRangeEvent<? extends ValueProperty<Boolean>> event) {
+        events.add("remove " + event.getIndex() + " " + event.size());
+      }
+
+      @Override
+      public void onItemAdded(CollectionItemEvent<? extends ValueProperty<Boolean>> event) {
+        events.add("add " + event.getIndex());
+      }
+    });
+
+    Properties.batch(new Runnable() {
+      @Override
+      public void run() {
+        source.get(4).set(true);
+        source.get(2).set(true);
+        source.get(3).set(true);
+      }
+    });
+    assertEquals(Arrays.asList("add 1 3"), events);
+
+    events.clear();
+    Properties.batch(new Runnable() {
+      @Override
+      public void run() {
+        source.get(0).set(false);
+        source.get(2).set(false);
+        source.get(3).set(false);
+      }
+    });
+    assertEquals(Arrays.asList("remove 0 3"), events);
+    assertEquals(Arrays.asList(source.get(4), source.get(5)), target);
+  }
+
+  @Test
+  public void targetListenerChangesOtherFilters() {
+    //the visible item 1 separates the runs of the changed items 0 and 4
+    final ObservableList<ValueProperty<Boolean>> source = items(false, true, false, false, false);
+    final ObservableList<ValueProperty<Boolean>> target =
+        Transformers.<ValueProperty<Boolean>, ObservableList<ValueProperty<Boolean>>>listFilter(VISIBLE)
+            .transform(source).getTarget();
+    final List<ValueProperty<Boolean>> added = new ArrayList<>();
+    target.addListener(new CollectionAdapter<ValueProperty<Boolean>>() {
+      @Override
+      public void onItemAdded(CollectionItemEvent<? extends ValueProperty<Boolean>> event) {
+        added.add(event.getNewItem());
+        if (event.getNewItem() == source.get(0)) {
+          source.get(4).set(false);
+          source.get(2).set(true);
+        }
+      }
+    });
+
+    Properties.batch(new Runnable() {
+      @Override
+      public void run() {
+        source.get(0).set(true);
+        source.get(4).set(true);
+      }
+    });
+
+    assertEquals(Arrays.asList(source.get(0), source.get(2)), added);
+    assertEquals(Arrays.asList(source.get(0), source.get(1), source.get(2)), target);
+  }
+
+  @Test
+  public void targetListenerRemovesSourceItem() {
+    final ObservableList<ValueProperty<Boolean>> source = items(false, true, false, false, false);
+    final ValueProperty<Boolean> removed = source.get(4);
+    ObservableList<ValueProperty<Boolean>> target =
+        Transformers.<ValueProperty<Boolean>, ObservableList<ValueProperty<Boolean>>>listFilter(VISIBLE)
+            .transform(source).getTarget();
+    target.addListener(new CollectionAdapter<ValueProperty<Boolean>>() {
+      @Override
+      public void onItemAdded(CollectionItemEvent<? extends ValueProperty<Boolean>> event) {
+        if (event.getNewItem() == source.get(0)) {
+          source.remove(removed);
+        }
+      }
+    });
+
+    Properties.batch(new Runnable() {
+      @Override
+      public void run() {
+        source.get(0).set(true);
+        removed.set(true);
+      }
+    });
+
+    assertEquals(Arrays.asList(source.get(0), source.get(1)), target);
+  }
+
+  @Test
+  public void randomChanges() {
+    final Random random = new Random(42);
+    final ObservableList<ValueProperty<Boolean>> source = new ObservableArrayList<>();
+    ObservableList<ValueProperty<Boolean>> target =
+        Transformers.<ValueProperty<Boolean>, ObservableList<ValueProperty<Boolean>>>listFilter(VISIBLE)
+            .transform(source).getTarget();
+
+    for (int i = 0; i < 100; i++) {
+      Properties.batch(new Runnable() {
+        @Override
+        public void run() {
+          for (int j = random.nextInt(20); j >= 0; j--) {
+            int action = random.nextInt(4);
+            if (action == 0 || source.isEmpty()) {
+              source.add(random.nextInt(source.size() + 1), new ValueProperty<>(random.nextBoolean()));
+            } else if (action == 1) {
+              source.remove(random.nextInt(source.size()));
+            } else {
+              ValueProperty<Boolean> item = source.get(random.nextInt(source.size()));
+              item.set(!item.get());
+            }
+          }
+        }
+      });
+
+      List<ValueProperty<Boolean>> expected = new ArrayList<>();
+      for (ValueProperty<Boolean> item : source) {
+        if (item.get()) {
+          expected.add(item);
+        }
+      }
+      assertEquals(expected, target);
+    }
+  }
+
+  private ObservableList<ValueProperty<Boolean>> items(Boolean... visible) {
+    ObservableList<ValueProperty<Boolean>> result = new ObservableArrayList<>();
+    for (Boolean value : visible) {
+      result.add(new ValueProperty<>(value));
+    }
+    return result;
+  }
+}
@@ -180,6 +180,33 @@ public class FlattenListTest {
     assertEquals(Arrays.asList("x"), result);
   }
 
+  @Test
+  public void removeEqualItemFromList() {
+    MyList l1 = new MyList("a", "b");
+    MyList l2 = new MyList("a", "c");
+    fromList.addAll(Arrays.asList(l1, l2));
+    listTransformer.transform(fromList, to);
+
+    l2.list.remove(0);
+
+    assertEquals("[a, b, c]", "" + to);
+  }
+
+  @Test
+  public void sameListTwice() {
+    MyList l1 = new MyList("a");
+    MyList l2 = new MyList("b");
+    fromList.addAll(Arrays.asList(l1, l2, l1));
+    listTransformer.transform(fromList, to);
+
+    l1.list.add("c");
+    assertEquals("[a, c, b, a, c]", "" + to);
+
+    fromList.remove(0);
+    l1.list.remove(0);
+    assertEquals("[b, c]", "" + to);
+  }
+
   private class MyList {
     private ObservableArrayList<String> list = new ObservableArrayList<>();
 
@@ -63,6 +63,16 @@ public class FlattenPropertyListTest {
     assertList("a", "c");
   }
 
+  @Test
+  public void samePropertyTwice() {
+    list.add(list.get(0));
+    list.remove(0);
+
+    list.get(2).set("z");
+
+    assertList("b", "c", "z");
+  }
+
   @Test
   public void dispose() {
     trans.dispose();
@@ -0,0 +1,260 @@
+/*
+ * Copyright 2012-2017 JetBrains s.r.o
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jetbrains.jetpad.model.transform;
+
+import jetbrains.jetpad.base.function.Function;
+import jetbrains.jetpad.model.collections.list.ObservableArrayList;
+import jetbrains.jetpad.model.collections.list.ObservableList;
+import jetbrains.jetpad.model.collections.map.MapAdapter;
+import jetbrains.jetpad.model.collections.map.MapEvent;
+import jetbrains.jetpad.model.collections.map.ObservableMap;
+import jetbrains.jetpad.model.collections.set.ObservableLinkedHashSet;
+import jetbrains.jetpad.model.collections.set.ObservableSet;
+import jetbrains.jetpad.model.property.ReadableProperty;
+import jetbrains.jetpad.model.property.ValueProperty;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class GroupByTest {
+  private ObservableList<Task> tasks = new ObservableArrayList<>();
+  private Transformation<ObservableList<Task>, ObservableMap<String, ObservableList<Task>>> transformation;
+  private ObservableMap<String, ObservableList<Task>> groups;
+  private Task a1 = new Task("a1", "alice");
+  private Task a2 = new Task("a2", "alice");
+  private Task b1 = new Task("b1", "bob");
+
+  @Before
+  public void init() {
+    tasks.addAll(Arrays.asList(a1, b1, a2));
+    transformation = Transformers.<Task, String, ObservableList<Task>>groupBy(
+        new Function<Task, ReadableProperty<String>>() {
+          @Override
+          public ReadableProperty<String> apply(Task task) {
+            return task.assignee;
+          }
+        }).transform(tasks);
+    groups = transformation.getTarget();
+  }
+
+  @Test
+  public void initialGroups() {
+    assertEquals(2, groups.size());
+    assertGroup("alice", a1, a2);
+    assertGroup("bob", b1);
+  }
+
+  @Test
+  public void addToExistingGroup() {
+    Task b2 = new Task("b2", "bob");
+    tasks.add(0, b2);
+
+    assertGroup("bob", b2, b1);
+  }
+
+  @Test
+  public void groupCreatedWithFirstItem() {
+    final List<String> events = new ArrayList<>();
+    groups.addListener(new MapAdapter<String, ObservableList<Task>>() {
+      @Override
+      public void onEntryPut(MapEvent<? extends String, ? extends ObservableList<Task>> event) {
+        events.add("put " + event.getKey() + " " + event.getNewValue());
+      }
+
+      @Override
+      public void onEntryRemoved(MapEvent<? extends String, ? extends ObservableList<Task>> event) {
+        events.add("remove " + event.getKey() + " " + event.getOldValue());
+      }
+    });
+
+    Task c1 = new Task("c1", "carol");
+    tasks.add(c1);
+    tasks.remove(c1);
+
+    assertEquals(Arrays.asList("put carol [c1]", "remove carol []"), events);
+    assertNull(groups.get("carol"));
+  }
+
+  @Test
+  public void removeLastItemOfGroup() {
+    tasks.remove(b1);
+
+    assertEquals(1, groups.size());
+    assertNull(groups.get("bob"));
+  }
+
+  @Test
+  public void keyChange() {
+    ObservableList<Task> alice = groups.get("alice");
+
+    a1.assignee.set("bob");
+
+    assertGroup("alice", a2);
+    assertGroup("bob", a1, b1);
+    assertEquals(Arrays.asList(a2), alice);
+  }
+
+  @Test
+  public void keyChangeBackRestoresOrder() {
+    tasks.add(new Task("a3", "alice"));
+    a2.assignee.set("bob");
+    a1.assignee.set("bob");
+    a2.assignee.set("alice");
+
+    assertEquals(groupBy(tasks), groups);
+    a1.assignee.set("alice");
+    assertEquals(groupBy(tasks), groups);
+  }
+
+  @Test
+  public void randomChangesMatchNewTransformation() {
+    Random random = new Random(42);
+    String[] names = {"alice", "bob", "carol"};
+    for (int i = 0; i < 500; i++) {
+      int operation = random.nextInt(3);
+      if (operation == 0 || tasks.isEmpty()) {
+        tasks.add(random.nextInt(tasks.size() + 1), new Task("t" + i, names[random.nextInt(names.length)]));
+      } else if (operation == 1) {
+        tasks.remove(random.nextInt(tasks.size()));
+      } else {
+        tasks.get(random.nextInt(tasks.size())).assignee.set(names[random.nextInt(names.length)]);
+      }
+      assertEquals(groupBy(tasks), groups);
+    }
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void groupsAreUnmodifiable() {
+    groups.get("alice").add(b1);
+  }
+
+  @Test
+  public void setSource() {
+    ObservableSet<Task> set = new ObservableLinkedHashSet<>();
+    set.addAll(Arrays.asList(a1, b1, a2));
+    ObservableMap<String, ObservableList<Task>> setGroups = Transformers.<Task, String, ObservableSet<Task>>groupBy(
+        new Function<Task, ReadableProperty<String>>() {
+          @Override
+          public ReadableProperty<String> apply(Task task) {
+            return task.assignee;
+          }
+        }).transform(set).getTarget();
+
+    a1.assignee.set("bob");
+    Task b2 = new Task("b2", "bob");
+    set.add(b2);
+    set.remove(b1);
+
+    assertEquals(Arrays.asList(a2), setGroups.get("alice"));
+    assertEquals(Arrays.asList(a1, b2), setGroups.get("bob"));
+  }
+
+  @Test
+  public void keyChangeToNewGroup() {
+    b1.assignee.set(null);
+
+    assertNull(groups.get("bob"));
+    assertTrue(groups.containsKey(null));
+    assertGroup(null, b1);
+  }
+
+  @Test
+  public void sameItemTwice() {
+    tasks.add(a1);
+    assertGroup("alice", a1, a2, a1);
+
+    a1.assignee.set("bob");
+    assertGroup("alice", a2);
+    assertGroup("bob", a1, b1, a1);
+
+    tasks.remove(a1);
+    assertGroup("bob", b1, a1);
+  }
+
+  @Test
+  public void equalItems() {
+    Task other = new Task("a1", "bob");
+    tasks.add(other);
+    tasks.remove(0);
+
+    assertGroup("alice", a2);
+    assertGroup("bob", b1, other);
+    assertSame(other, groups.get("bob").get(1));
+  }
+
+  @Test
+  public void dispose() {
+    transformation.dispose();
+    a1.assignee.set("bob");
+    tasks.add(new Task("c1", "carol"));
+
+    assertGroup("alice", a1, a2);
+    assertEquals(2, groups.size());
+  }
+
+  private Map<String, List<Task>> groupBy(List<Task> items) {
+    Map<String, List<Task>> result = new HashMap<>();
+    for (Task item : items) {
+      List<Task> group = result.get(item.assignee.get());
+      if (group == null) {
+        group = new ArrayList<>();
+        result.put(item.assignee.get(), group);
+      }
+      group.add(item);
+    }
+    return result;
+  }
+
+  private void assertGroup(String key, Task... items) {
+    assertEquals(Arrays.asList(items), groups.get(key));
+  }
+
+  private static class Task {
+    final String name;
+    final ValueProperty<String> assignee;
+
+    Task(String name, String assignee) {
+      this.name = name;
+      this.assignee = new ValueProperty<>(assignee);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      return o instanceof Task && ((Task) o).name.equals(name);
+    }
+
+    @Override
+    public int hashCode() {
+      return name.hashCode();
+    }
+
+    @Override
+    public String toString() {
+      return name;
+    }
+  }
+}
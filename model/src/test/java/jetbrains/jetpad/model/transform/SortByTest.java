@@ -0,0 +1,213 @@
+/*
+ * Copyright 2012-2017 JetBrains s.r.o
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jetbrains.jetpad.model.transform;
+
+import jetbrains.jetpad.base.function.Function;
+import jetbrains.jetpad.model.collections.CollectionAdapter;
+import jetbrains.jetpad.model.collections.CollectionItemEvent;
+import jetbrains.jetpad.model.collections.list.ObservableArrayList;
+import jetbrains.jetpad.model.collections.list.ObservableList;
+import jetbrains.jetpad.model.property.Properties;
+import jetbrains.jetpad.model.property.ReadableProperty;
+import jetbrains.jetpad.model.property.ValueProperty;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class SortByTest {
+  private static final Function<ValueProperty<Integer>, ReadableProperty<Integer>> KEY =
+      new Function<ValueProperty<Integer>, ReadableProperty<Integer>>() {
+        @Override
+        public ReadableProperty<Integer> apply(ValueProperty<Integer> item) {
+          return item;
+        }
+      };
+
+  private ObservableList<ValueProperty<Integer>> source = new ObservableArrayList<>();
+  private Transformation<ObservableList<ValueProperty<Integer>>, ObservableList<ValueProperty<Integer>>> transformation;
+  private int modifications;
+
+  @Before
+  public void init() {
+    transformation = Transformers.<ValueProperty<Integer>, ValueProperty<Integer>, Integer,
+        ObservableList<ValueProperty<Integer>>>sortBy(KEY).transform(source);
+    transformation.getTarget().addListener(new CollectionAdapter<ValueProperty<Integer>>() {
+      @Override
+      public void onItemAdded(CollectionItemEvent<? extends ValueProperty<Integer>> event) {
+        modifications++;
+      }
+
+      @Override
+      public void onItemRemoved(CollectionItemEvent<? extends ValueProperty<Integer>> event) {
+        modifications++;
+      }
+    });
+  }
+
+  @Test
+  public void keyChangeMovesItem() {
+    add(1, 2, 3);
+
+    source.get(0).set(4);
+
+    assertTarget(2, 3, 4);
+    assertEquals(2, modifications);
+  }
+
+  @Test
+  public void keyChangeInPlace() {
+    add(1, 3, 5);
+
+    source.get(1).set(4);
+
+    assertTarget(1, 4, 5);
+    assertEquals(0, modifications);
+  }
+
+  @Test
+  public void batchMovesChangedItems() {
+    add(1, 2, 3, 4, 5);
+
+    Properties.batch(new Runnable() {
+      @Override
+      public void run() {
+        source.get(0).set(10);
+        source.get(2).set(6);
+        source.get(3).set(7);
+      }
+    });
+
+    assertTarget(2, 5, 6, 7, 10);
+    assertEquals(6, modifications);
+  }
+
+  @Test
+  public void batchWithRemovalOfChangedItem() {
+    add(1, 2, 3);
+
+    Properties.batch(new Runnable() {
+      @Override
+      public void run() {
+        source.get(0).set(5);
+        source.remove(0);
+        source.get(0).set(4);
+      }
+    });
+
+    assertTarget(3, 4);
+  }
+
+  @Test
+  public void sameItemTwice() {
+    ValueProperty<Integer> item = new ValueProperty<>(2);
+    add(1, 3);
+    source.add(item);
+    source.add(item);
+
+    item.set(4);
+    assertTarget(1, 3, 4, 4);
+
+    source.remove(item);
+    assertTarget(1, 3, 4);
+  }
+
+  @Test
+  public void equalItems() {
+    source.add(new EqualProperty(1));
+    source.add(new EqualProperty(2));
+
+    source.remove(0);
+    assertTarget(2);
+  }
+
+  @Test
+  public void disposedTransformationIgnoresChanges() {
+    add(2, 1);
+    transformation.dispose();
+
+    source.get(0).set(0);
+
+    assertTarget(1, 0);
+  }
+
+  @Test
+  public void randomBatches() {
+    final Random random = new Random(42);
+    for (int i = 0; i < 200; i++) {
+      source.add(new ValueProperty<>(random.nextInt(50)));
+    }
+
+    for (int i = 0; i < 50; i++) {
+      Properties.batch(new Runnable() {
+        @Override
+        public void run() {
+          for (int j = random.nextInt(40); j >= 0; j--) {
+            source.get(random.nextInt(source.size())).set(random.nextInt(50));
+          }
+        }
+      });
+
+      List<Integer> expected = new ArrayList<>();
+      for (ValueProperty<Integer> item : source) {
+        expected.add(item.get());
+      }
+      Collections.sort(expected);
+      assertEquals(expected, keys());
+    }
+  }
+
+  private void add(Integer... keys) {
+    for (Integer key : keys) {
+      source.add(new ValueProperty<>(key));
+    }
+    modifications = 0;
+  }
+
+  private void assertTarget(Integer... keys) {
+    assertEquals(Arrays.asList(keys), keys());
+  }
+
+  private List<Integer> keys() {
+    List<Integer> result = new ArrayList<>();
+    for (ValueProperty<Integer> item : transformation.getTarget()) {
+      result.add(item.get());
+    }
+    return result;
+  }
+
+  private static class EqualProperty extends ValueProperty<Integer> {
+    EqualProperty(Integer value) {
+      super(value);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      return o instanceof EqualProperty;
+    }
+
+    @Override
+    public int hashCode() {
+      return 0;
+    }
+  }
+}
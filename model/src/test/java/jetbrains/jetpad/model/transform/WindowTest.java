@@ -0,0 +1,194 @@
+/*
+ * Copyright 2012-2017 JetBrains s.r.o
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jetbrains.jetpad.model.transform;
+
+import jetbrains.jetpad.model.collections.CollectionAdapter;
+import jetbrains.jetpad.model.collections.CollectionItemEvent;
+import jetbrains.jetpad.model.collections.list.ObservableArrayList;
+import jetbrains.jetpad.model.collections.list.ObservableList;
+import jetbrains.jetpad.model.property.ValueProperty;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class WindowTest {
+  private ObservableList<Integer> from = new ObservableArrayList<>();
+  private ValueProperty<Integer> offset = new ValueProperty<>(2);
+  private ValueProperty<Integer> size = new ValueProperty<>(3);
+  private Transformation<ObservableList<Integer>, ObservableList<Integer>> transformation;
+  private int modifications;
+
+  @Before
+  public void init() {
+    for (int i = 0; i < 10; i++) {
+      from.add(i);
+    }
+    transformation = Transformers.<Integer>window(offset, size).transform(from);
+    transformation.getTarget().addListener(new CollectionAdapter<Integer>() {
+      @Override
+      public void onItemAdded(CollectionItemEvent<? extends Integer> event) {
+        modifications++;
+      }
+
+      @Override
+      public void onItemRemoved(CollectionItemEvent<? extends Integer> event) {
+        modifications++;
+      }
+    });
+  }
+
+  @Test
+  public void initialWindow() {
+    assertTarget(2, 3, 4);
+  }
+
+  @Test
+  public void scrollDown() {
+    offset.set(3);
+
+    assertTarget(3, 4, 5);
+    assertEquals(2, modifications);
+  }
+
+  @Test
+  public void scrollUp() {
+    offset.set(0);
+
+    assertTarget(0, 1, 2);
+    assertEquals(4, modifications);
+  }
+
+  @Test
+  public void jump() {
+    offset.set(7);
+
+    assertTarget(7, 8, 9);
+  }
+
+  @Test
+  public void scrollPastEnd() {
+    offset.set(8);
+    assertTarget(8, 9);
+
+    offset.set(20);
+    assertTarget();
+  }
+
+  @Test
+  public void resize() {
+    size.set(5);
+    assertTarget(2, 3, 4, 5, 6);
+
+    size.set(1);
+    assertTarget(2);
+  }
+
+  @Test
+  public void nullSize() {
+    size.set(null);
+
+    assertTarget();
+  }
+
+  @Test
+  public void addBeforeWindow() {
+    from.add(0, -1);
+
+    assertTarget(1, 2, 3);
+    assertEquals(2, modifications);
+  }
+
+  @Test
+  public void addInWindow() {
+    from.add(3, -1);
+
+    assertTarget(2, -1, 3);
+    assertEquals(2, modifications);
+  }
+
+  @Test
+  public void addAfterWindow() {
+    from.add(5, -1);
+
+    assertTarget(2, 3, 4);
+    assertEquals(0, modifications);
+  }
+
+  @Test
+  public void removeBeforeWindow() {
+    from.remove(0);
+
+    assertTarget(3, 4, 5);
+  }
+
+  @Test
+  public void removeInWindow() {
+    from.remove(3);
+
+    assertTarget(2, 4, 5);
+  }
+
+  @Test
+  public void setInWindow() {
+    from.set(2, -1);
+
+    assertTarget(-1, 3, 4);
+  }
+
+  @Test
+  public void dispose() {
+    transformation.dispose();
+    offset.set(0);
+
+    assertTarget(2, 3, 4);
+  }
+
+  @Test
+  public void randomChanges() {
+    Random random = new Random(42);
+    for (int i = 0; i < 500; i++) {
+      int action = random.nextInt(5);
+      if (action == 0) {
+        from.add(random.nextInt(from.size() + 1), i);
+      } else if (action == 1 && !from.isEmpty()) {
+        from.remove(random.nextInt(from.size()));
+      } else if (action == 2) {
+        offset.set(random.nextInt(15));
+      } else if (action == 3) {
+        size.set(random.nextInt(8));
+      } else if (!from.isEmpty()) {
+        from.set(random.nextInt(from.size()), i);
+      }
+
+      int start = Math.min(offset.get(), from.size());
+      int end = Math.min(start + size.get(), from.size());
+      assertEquals(from.subList(start, end), transformation.getTarget());
+    }
+  }
+
+  private void assertTarget(Integer... items) {
+    List<Integer> expected = new ArrayList<>();
+    for (Integer item : items) {
+      expected.add(item);
+    }
+    assertEquals(expected, transformation.getTarget());
+  }
+}